@@ -5,24 +5,58 @@ CREATE DATABASE issuance_db;
 
 \c quotation_db;
 
+-- INCREMENT BY must match the JPA allocationSize (pooled optimizer)
+CREATE SEQUENCE quotes_id_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE quotes (
-    id SERIAL PRIMARY KEY,
+    id BIGINT PRIMARY KEY,
     dni VARCHAR(20) NOT NULL,
     age INT NOT NULL,
     car_value DECIMAL(12, 2) NOT NULL,
     probability_score DOUBLE PRECISION,
     risk_level VARCHAR(20),
     status VARCHAR(20) DEFAULT 'PENDING',
-    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+    created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+    -- Scored by the embedded fallback while ml-risk-ms was degraded
+    fallback_scored BOOLEAN NOT NULL DEFAULT FALSE
+);
+
+-- Keyset pagination of a customer's quotes (quotesByDni); id breaks created_at ties
+CREATE INDEX idx_quotes_dni_created_at ON quotes (dni, created_at, id);
+
+-- Transactional outbox: policy events written with their quote, drained by the relay
+CREATE SEQUENCE quote_outbox_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE quote_outbox (
+    id BIGINT PRIMARY KEY,
+    quote_id BIGINT NOT NULL,
+    topic VARCHAR(255) NOT NULL,
+    message_key VARCHAR(255),
+    payload BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    -- Failed publish attempts; the event is claimed or waiting to be retried until available_at
+    attempts INT NOT NULL DEFAULT 0,
+    available_at TIMESTAMP,
+    -- Set once the event ran out of attempts; see V8__quote_outbox_retries.sql to release it
+    parked_at TIMESTAMP,
+    last_error VARCHAR(1000)
 );
 
 \c issuance_db;
 
+CREATE SEQUENCE policies_id_seq START WITH 1 INCREMENT BY 50;
+
 CREATE TABLE policies (
-    id SERIAL PRIMARY KEY,
-    quote_id BIGINT NOT NULL,
+    id BIGINT PRIMARY KEY,
+    quote_id BIGINT UNIQUE NOT NULL,
     policy_number VARCHAR(50) UNIQUE NOT NULL,
     dni VARCHAR(20) NOT NULL,
     final_premium DECIMAL(12, 2) NOT NULL,
     issued_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
+
+-- Next unleased policy number per year; instances lease blocks of numbers from it
+CREATE TABLE policy_number_blocks (
+    policy_year INT PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
@@ -0,0 +1,18 @@
+-- Moves quotes and policies from SERIAL (IDENTITY) ids to pooled sequences so
+-- Hibernate can batch inserts. Apply to databases created from the previous init.sql;
+-- fresh installs get the same schema from init.sql.
+--
+-- The existing SERIAL sequences are reused: their current value is preserved and the
+-- pooled optimizer only hands out ids above it.
+
+\c quotation_db;
+
+ALTER TABLE quotes ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE quotes ALTER COLUMN id TYPE BIGINT;
+ALTER SEQUENCE quotes_id_seq AS BIGINT INCREMENT BY 50;
+
+\c issuance_db;
+
+ALTER TABLE policies ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE policies ALTER COLUMN id TYPE BIGINT;
+ALTER SEQUENCE policies_id_seq AS BIGINT INCREMENT BY 50;
@@ -0,0 +1,15 @@
+-- Adds the transactional outbox for policy issuance events. Apply to databases created
+-- from a previous init.sql; fresh installs get the same schema from init.sql.
+
+\c quotation_db;
+
+CREATE SEQUENCE quote_outbox_id_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE quote_outbox (
+    id BIGINT PRIMARY KEY,
+    quote_id BIGINT NOT NULL,
+    topic VARCHAR(255) NOT NULL,
+    message_key VARCHAR(255),
+    payload BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
@@ -0,0 +1,6 @@
+-- Index for keyset pagination of a customer's quotes (quotesByDni). Apply to databases
+-- created from a previous init.sql; fresh installs get the same index from init.sql.
+
+\c quotation_db;
+
+CREATE INDEX CONCURRENTLY IF NOT EXISTS idx_quotes_dni_created_at ON quotes (dni, created_at, id);
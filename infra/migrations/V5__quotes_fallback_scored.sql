@@ -0,0 +1,6 @@
+-- Marks quotes scored by the embedded fallback while ml-risk-ms was degraded. Apply to
+-- databases created from a previous init.sql; fresh installs get the column from init.sql.
+
+\c quotation_db;
+
+ALTER TABLE quotes ADD COLUMN IF NOT EXISTS fallback_scored BOOLEAN NOT NULL DEFAULT FALSE;
@@ -0,0 +1,9 @@
+-- Year-partitioned policy number blocks leased by issuance-ms instances. Apply to
+-- databases created from a previous init.sql; fresh installs get the table from init.sql.
+
+\c issuance_db;
+
+CREATE TABLE IF NOT EXISTS policy_number_blocks (
+    policy_year INT PRIMARY KEY,
+    next_value BIGINT NOT NULL
+);
@@ -0,0 +1,43 @@
+-- One policy per quote, so redelivered issuance events cannot issue a quote twice. Apply
+-- to databases created from a previous init.sql; fresh installs get the constraint from
+-- init.sql.
+--
+-- Quotes issued more than once before the constraint existed keep their oldest policy.
+-- The others were already pushed to their customers, so they are not dropped: they move
+-- to policies_duplicate_quotes, listed at the end, to be cancelled or refunded.
+
+\c issuance_db;
+
+BEGIN;
+
+CREATE TABLE IF NOT EXISTS policies_duplicate_quotes (
+    id BIGINT PRIMARY KEY,
+    quote_id BIGINT NOT NULL,
+    policy_number VARCHAR(50) NOT NULL,
+    dni VARCHAR(20) NOT NULL,
+    final_premium DECIMAL(12, 2) NOT NULL,
+    issued_at TIMESTAMP,
+    kept_policy_id BIGINT NOT NULL,
+    moved_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+WITH moved AS (
+    DELETE FROM policies p
+    USING (SELECT quote_id, MIN(id) AS kept_policy_id
+           FROM policies
+           GROUP BY quote_id
+           HAVING COUNT(*) > 1) kept
+    WHERE p.quote_id = kept.quote_id
+      AND p.id <> kept.kept_policy_id
+    RETURNING p.id, p.quote_id, p.policy_number, p.dni, p.final_premium, p.issued_at, kept.kept_policy_id
+)
+INSERT INTO policies_duplicate_quotes (id, quote_id, policy_number, dni, final_premium, issued_at, kept_policy_id)
+SELECT id, quote_id, policy_number, dni, final_premium, issued_at, kept_policy_id FROM moved;
+
+ALTER TABLE policies ADD CONSTRAINT policies_quote_id_key UNIQUE (quote_id);
+
+COMMIT;
+
+SELECT quote_id, kept_policy_id, id AS moved_policy_id, policy_number, dni, issued_at
+FROM policies_duplicate_quotes
+ORDER BY quote_id, id;
@@ -0,0 +1,14 @@
+-- Tracks failed publish attempts per outbox event, so an event the broker keeps refusing
+-- is parked instead of failing every batch it is in. Apply to databases created from a
+-- previous init.sql; fresh installs get the same columns from init.sql.
+--
+-- Parked events stay in the table. To publish them again once the cause is fixed:
+--   UPDATE quote_outbox SET parked_at = NULL, attempts = 0, available_at = NULL WHERE parked_at IS NOT NULL;
+
+\c quotation_db;
+
+ALTER TABLE quote_outbox
+    ADD COLUMN IF NOT EXISTS attempts INT NOT NULL DEFAULT 0,
+    ADD COLUMN IF NOT EXISTS available_at TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS parked_at TIMESTAMP,
+    ADD COLUMN IF NOT EXISTS last_error VARCHAR(1000);
@@ -0,0 +1,84 @@
+package com.pacifico.issuance.config;
+
+import com.pacifico.issuance.service.KeyOrderedExecutor;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.kafka.ConcurrentKafkaListenerContainerFactoryConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.util.backoff.ExponentialBackOff;
+
+@Configuration
+public class KafkaConfig {
+
+    /**
+     * Backoff between redeliveries of an event that could neither be issued nor diverted to
+     * the retry topics, i.e. while the database and the broker are both failing it. It never
+     * gives up: skipping the event would lose it.
+     */
+    @Bean
+    public ExponentialBackOff issuanceRedeliveryBackOff(
+            @Value("${issuance.retry.redelivery-initial-interval:1000}") long initialInterval,
+            @Value("${issuance.retry.redelivery-max-interval:60000}") long maxInterval) {
+        ExponentialBackOff backOff = new ExponentialBackOff(initialInterval, 2);
+        backOff.setMaxInterval(maxInterval);
+        return backOff;
+    }
+
+    /**
+     * Error handler of every listener factory: the default one would skip the failed event
+     * after ten immediate attempts and commit its offset. The retry topics replace it with
+     * their own, which forwards to the next topic.
+     */
+    @Bean
+    public DefaultErrorHandler issuanceErrorHandler(ExponentialBackOff issuanceRedeliveryBackOff) {
+        return new DefaultErrorHandler(issuanceRedeliveryBackOff);
+    }
+
+    /**
+     * Listener factory for batch listeners: the whole poll is handed over at once and
+     * offsets are only committed when the listener acknowledges it. Every other
+     * {@code spring.kafka.listener.*} setting, and the error handler, are shared with the
+     * default factory.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> batchListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.setBatchListener(true);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL_IMMEDIATE);
+        return factory;
+    }
+
+    /**
+     * Listener factory for records handed off to other threads: each record is acknowledged
+     * by the thread that processed it, in any order, and the container commits a
+     * partition's offset only up to its lowest record not yet acknowledged. The next poll
+     * is delivered once every record of the previous one is acknowledged.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<Object, Object> parallelListenerContainerFactory(
+            ConcurrentKafkaListenerContainerFactoryConfigurer configurer,
+            ConsumerFactory<Object, Object> consumerFactory) {
+        ConcurrentKafkaListenerContainerFactory<Object, Object> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        configurer.configure(factory, consumerFactory);
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+        factory.getContainerProperties().setAsyncAcks(true);
+        return factory;
+    }
+
+    /**
+     * Processes issuance events of different customers in parallel, keeping each customer's
+     * events in order.
+     */
+    @Bean(destroyMethod = "close")
+    public KeyOrderedExecutor issuanceExecutor(MeterRegistry meterRegistry) {
+        return new KeyOrderedExecutor("issuance", meterRegistry);
+    }
+}
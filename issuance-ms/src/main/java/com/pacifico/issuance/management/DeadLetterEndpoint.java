@@ -0,0 +1,49 @@
+package com.pacifico.issuance.management;
+
+import com.pacifico.issuance.service.DeadLetterReplayer;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Actuator endpoint for the issuance dead-letter topic, at {@code /actuator/deadletters}.
+ * <p>
+ * Served on the management port only ({@code management.server.port}), which is neither
+ * registered in Eureka nor routed by the gateway.
+ */
+@Component
+@Endpoint(id = "deadletters")
+public class DeadLetterEndpoint {
+
+    private static final int DEFAULT_MAX = 1000;
+
+    private final DeadLetterReplayer deadLetterReplayer;
+
+    public DeadLetterEndpoint(DeadLetterReplayer deadLetterReplayer) {
+        this.deadLetterReplayer = deadLetterReplayer;
+    }
+
+    /**
+     * @return How many dead-lettered events are waiting to be replayed, as last measured.
+     */
+    @ReadOperation
+    public Map<String, Object> depth() {
+        return Map.of("remaining", deadLetterReplayer.depth());
+    }
+
+    /**
+     * Republishes dead-lettered issuance events to the main topic.
+     *
+     * @param max Maximum number of events to replay, 1000 if omitted.
+     * @return How many events were replayed and how many are still waiting.
+     */
+    @WriteOperation
+    public Map<String, Object> replay(@Nullable Integer max) {
+        int replayed = deadLetterReplayer.replay(max != null ? max : DEFAULT_MAX);
+        return Map.of("replayed", replayed, "remaining", deadLetterReplayer.depth());
+    }
+}
@@ -28,11 +28,15 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @Builder
 public class Policy {
+    // Sequence ids let Hibernate batch inserts; allocationSize must match INCREMENT BY of policies_id_seq
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "policy_id_seq")
+    @SequenceGenerator(name = "policy_id_seq", sequenceName = "policies_id_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
     
+    // One policy per quote; makes redelivered issuance events idempotent
+    @Column(unique = true)
     private Long quoteId;
     
     @Column(unique = true)
@@ -0,0 +1,33 @@
+package com.pacifico.issuance.model;
+
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import jakarta.persistence.*;
+
+/**
+ * Next unleased policy number of a year.
+ * <p>
+ * Instances lease blocks of policy numbers by advancing {@code nextValue} under a row
+ * lock, then hand the numbers of their block out in memory.
+ */
+@Entity
+@Table(name = "policy_number_blocks")
+@Getter
+@Setter
+@ToString
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@NoArgsConstructor
+@AllArgsConstructor
+public class PolicyNumberBlock {
+    @Id
+    @EqualsAndHashCode.Include
+    private Integer policyYear;
+
+    @Column(nullable = false)
+    private Long nextValue;
+}
@@ -0,0 +1,23 @@
+package com.pacifico.issuance.repository;
+
+import com.pacifico.issuance.model.PolicyNumberBlock;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+/**
+ * Repository interface for {@link PolicyNumberBlock} entities.
+ */
+public interface PolicyNumberBlockRepository extends JpaRepository<PolicyNumberBlock, Integer> {
+
+    /**
+     * Locks a year's row ({@code FOR UPDATE}) until the leasing transaction commits.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select b from PolicyNumberBlock b where b.policyYear = :policyYear")
+    Optional<PolicyNumberBlock> findForUpdate(@Param("policyYear") int policyYear);
+}
@@ -0,0 +1,86 @@
+package com.pacifico.issuance.repository;
+
+import com.pacifico.issuance.model.Policy;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Inserts a whole Kafka poll worth of policies in one transaction.
+ * <p>
+ * The session's JDBC batch size is raised to the number of policies, so the inserts go to
+ * PostgreSQL as a single JDBC batch instead of {@code hibernate.jdbc.batch_size} chunks.
+ * Ids still come from the pooled {@code policies_id_seq}, one sequence call per 50 rows.
+ * <p>
+ * Constraint violations surface as {@link org.springframework.dao.DataIntegrityViolationException},
+ * as from the Spring Data repositories.
+ */
+@Repository
+public class PolicyWriter {
+
+    // Each row takes a whole sequence value for its id. Hibernate's pooled optimizer only uses
+    // the 50 ids ending at values it fetched itself, so these ids never collide with its own
+    private static final String INSERT_IGNORING_ISSUED_QUOTES =
+            "INSERT INTO policies (id, quote_id, policy_number, dni, final_premium, issued_at) "
+                    + "VALUES (nextval('policies_id_seq'), ?, ?, ?, ?, ?) ON CONFLICT (quote_id) DO NOTHING";
+
+    private final EntityManager entityManager;
+    private final JdbcTemplate jdbcTemplate;
+
+    public PolicyWriter(EntityManager entityManager, JdbcTemplate jdbcTemplate) {
+        this.entityManager = entityManager;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param policies New policies.
+     * @return The same policies with their ids assigned, once the transaction commits.
+     */
+    @Transactional
+    public List<Policy> insertAll(List<Policy> policies) {
+        Session session = entityManager.unwrap(Session.class);
+        session.setJdbcBatchSize(Math.max(policies.size(), 1));
+        policies.forEach(session::persist);
+        session.flush();
+        return policies;
+    }
+
+    /**
+     * Inserts policies whose quote may already have been issued, skipping those
+     * ({@code ON CONFLICT DO NOTHING}) instead of failing the whole batch.
+     * <p>
+     * Only used once a plain insert has hit the {@code policies.quote_id} constraint, so the
+     * common path never pays for conflict handling. Ids are not set on the returned policies.
+     *
+     * @param policies New policies.
+     * @return The policies actually inserted, in order.
+     */
+    @Transactional
+    public List<Policy> insertIgnoringIssuedQuotes(List<Policy> policies) {
+        int[][] counts = jdbcTemplate.batchUpdate(INSERT_IGNORING_ISSUED_QUOTES, policies, Math.max(policies.size(), 1),
+                (statement, policy) -> {
+                    statement.setLong(1, policy.getQuoteId());
+                    statement.setString(2, policy.getPolicyNumber());
+                    statement.setString(3, policy.getDni());
+                    statement.setBigDecimal(4, policy.getFinalPremium());
+                    statement.setTimestamp(5, Timestamp.valueOf(policy.getIssuedAt()));
+                });
+        List<Policy> inserted = new ArrayList<>(policies.size());
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                if (count != 0) {
+                    inserted.add(policies.get(index));
+                }
+                index++;
+            }
+        }
+        return inserted;
+    }
+}
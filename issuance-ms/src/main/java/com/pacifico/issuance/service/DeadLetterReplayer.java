@@ -0,0 +1,190 @@
+package com.pacifico.issuance.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.Consumer;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.consumer.OffsetAndMetadata;
+import org.apache.kafka.common.PartitionInfo;
+import org.apache.kafka.common.TopicPartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.ConsumerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays the issuance dead-letter topic in bulk.
+ * <p>
+ * Dead-lettered events stay in {@link IssuanceRetryRouter#DEAD_LETTER_TOPIC} until replayed.
+ * A replay reads them with its own consumer group, republishes them to the main topic
+ * (where they start over, retries included) and commits the replay group's offsets once the
+ * broker has acknowledged every republished event. Replaying an event whose policy was
+ * issued in the meantime is harmless, since issuance is idempotent per quote.
+ * <p>
+ * {@code issuance.dlq.depth} is the number of events waiting to be replayed, refreshed
+ * every {@code issuance.retry.dlq-depth-refresh} and after each replay;
+ * {@code issuance.dlq.replayed} counts replayed events.
+ */
+@Component
+public class DeadLetterReplayer {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeadLetterReplayer.class);
+
+    static final String REPLAY_GROUP = "issuance-dlq-replay";
+
+    private final ConsumerFactory<Object, Object> consumerFactory;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final Duration sendTimeout;
+    private final Duration depthRefresh;
+    private final Counter replayedEvents;
+    private final AtomicLong depth = new AtomicLong();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("dlq-depth").daemon().factory());
+
+    public DeadLetterReplayer(ConsumerFactory<Object, Object> consumerFactory,
+                              KafkaTemplate<String, Object> kafkaTemplate,
+                              @Value("${issuance.retry.send-timeout:10s}") Duration sendTimeout,
+                              @Value("${issuance.retry.dlq-depth-refresh:30s}") Duration depthRefresh,
+                              MeterRegistry meterRegistry) {
+        this.consumerFactory = consumerFactory;
+        this.kafkaTemplate = kafkaTemplate;
+        this.sendTimeout = sendTimeout;
+        this.depthRefresh = depthRefresh;
+        this.replayedEvents = Counter.builder("issuance.dlq.replayed")
+                .description("Dead-lettered issuance events republished to the main topic")
+                .register(meterRegistry);
+        Gauge.builder("issuance.dlq.depth", depth, AtomicLong::get)
+                .description("Dead-lettered issuance events waiting to be replayed")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        scheduler.scheduleWithFixedDelay(this::refreshDepthQuietly, 0, depthRefresh.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Republishes dead-lettered events to the main topic, oldest first.
+     *
+     * @param max Maximum number of events to replay.
+     * @return The number of events replayed.
+     */
+    public synchronized int replay(int max) {
+        try (Consumer<Object, Object> consumer = createConsumer()) {
+            List<TopicPartition> partitions = partitions(consumer);
+            if (partitions.isEmpty()) {
+                return 0;
+            }
+            consumer.assign(partitions);
+            Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+            Map<TopicPartition, OffsetAndMetadata> replayedUpTo = new HashMap<>();
+            List<CompletableFuture<?>> sends = new ArrayList<>();
+            while (sends.size() < max && !caughtUp(consumer, endOffsets)) {
+                for (ConsumerRecord<Object, Object> record : consumer.poll(Duration.ofMillis(500))) {
+                    if (sends.size() == max) {
+                        break;
+                    }
+                    sends.add(kafkaTemplate.send(IssuanceService.KAFKA_TOPIC, (String) record.key(), record.value()));
+                    replayedUpTo.put(new TopicPartition(record.topic(), record.partition()),
+                            new OffsetAndMetadata(record.offset() + 1));
+                }
+            }
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                    .get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+            consumer.commitSync(replayedUpTo);
+            replayedEvents.increment(sends.size());
+            depth.set(depth(consumer, partitions));
+            logger.info("Replayed {} dead-lettered issuance events, {} left", sends.size(), depth.get());
+            return sends.size();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while replaying " + IssuanceRetryRouter.DEAD_LETTER_TOPIC, e);
+        } catch (ExecutionException | TimeoutException e) {
+            // Nothing was committed; the whole range is replayed again next time
+            throw new KafkaException("Could not republish dead-lettered issuance events", e);
+        }
+    }
+
+    /**
+     * @return The number of dead-lettered events waiting to be replayed, as last measured.
+     */
+    public long depth() {
+        return depth.get();
+    }
+
+    synchronized long refreshDepth() {
+        try (Consumer<Object, Object> consumer = createConsumer()) {
+            depth.set(depth(consumer, partitions(consumer)));
+            return depth.get();
+        }
+    }
+
+    private void refreshDepthQuietly() {
+        try {
+            refreshDepth();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to measure the issuance dead-letter topic: {}", e.getMessage());
+        }
+    }
+
+    private Consumer<Object, Object> createConsumer() {
+        Properties overrides = new Properties();
+        overrides.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        overrides.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        return consumerFactory.createConsumer(REPLAY_GROUP, null, "-replay", overrides);
+    }
+
+    private static List<TopicPartition> partitions(Consumer<?, ?> consumer) {
+        List<PartitionInfo> infos = consumer.partitionsFor(IssuanceRetryRouter.DEAD_LETTER_TOPIC);
+        return infos == null ? List.of() : infos.stream()
+                .map(info -> new TopicPartition(info.topic(), info.partition()))
+                .toList();
+    }
+
+    private static boolean caughtUp(Consumer<?, ?> consumer, Map<TopicPartition, Long> endOffsets) {
+        return endOffsets.entrySet().stream().allMatch(end -> consumer.position(end.getKey()) >= end.getValue());
+    }
+
+    private static long depth(Consumer<?, ?> consumer, List<TopicPartition> partitions) {
+        if (partitions.isEmpty()) {
+            return 0;
+        }
+        Map<TopicPartition, Long> endOffsets = consumer.endOffsets(partitions);
+        Map<TopicPartition, Long> beginningOffsets = consumer.beginningOffsets(partitions);
+        Map<TopicPartition, OffsetAndMetadata> committed = consumer.committed(new HashSet<>(partitions));
+        long waiting = 0;
+        for (TopicPartition partition : partitions) {
+            OffsetAndMetadata replayed = committed.get(partition);
+            long from = Math.max(beginningOffsets.get(partition), replayed == null ? 0 : replayed.offset());
+            waiting += endOffsets.get(partition) - from;
+        }
+        return waiting;
+    }
+}
@@ -0,0 +1,130 @@
+package com.pacifico.issuance.service;
+
+import com.pacifico.insurance.event.InsurancePolicyEvent;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.common.header.Header;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Moves failed issuances off the main topic and tracks them through the retry topics.
+ * <p>
+ * An event that could not be issued is published to {@link #FAILED_TOPIC}, stamped with
+ * the time it failed, and the main listener moves on. The retry listener consumes it from
+ * there and, while it keeps failing, through retry topics with exponentially growing
+ * delays and finally into the dead-letter topic {@link #DEAD_LETTER_TOPIC}. Each tier
+ * waits by pausing its own partitions, so neither the main topic nor the other tiers are
+ * held up.
+ * <p>
+ * Metrics: {@code issuance.retry.diverted} counts events moved off the main topic,
+ * {@code issuance.retry.attempts} counts retries by {@code topic} and {@code outcome},
+ * {@code issuance.retry.added.latency} is the time between the first failure and the
+ * final outcome ({@code issued} or {@code dead_lettered}), and
+ * {@code issuance.dlq.events} counts events parked in the dead-letter topic.
+ */
+@Component
+public class IssuanceRetryRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(IssuanceRetryRouter.class);
+
+    /** Entry of the retry chain. */
+    public static final String FAILED_TOPIC = "insurance.policy.issuance.failed";
+    /** Events that exhausted every retry, kept until replayed. */
+    public static final String DEAD_LETTER_TOPIC = FAILED_TOPIC + "-dlt";
+
+    static final String FAILED_AT_HEADER = "issuance-failed-at";
+
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final Duration sendTimeout;
+    private final MeterRegistry meterRegistry;
+    private final Counter diverted;
+    private final Counter deadLettered;
+
+    public IssuanceRetryRouter(KafkaTemplate<String, Object> kafkaTemplate,
+                               @Value("${issuance.retry.send-timeout:10s}") Duration sendTimeout,
+                               MeterRegistry meterRegistry) {
+        this.kafkaTemplate = kafkaTemplate;
+        this.sendTimeout = sendTimeout;
+        this.meterRegistry = meterRegistry;
+        this.diverted = Counter.builder("issuance.retry.diverted")
+                .description("Issuance events moved off the main topic after failing")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("issuance.dlq.events")
+                .description("Issuance events parked in the dead-letter topic")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Publishes a failed event to the retry chain and waits for the broker to acknowledge it.
+     *
+     * @param event The event that could not be issued.
+     * @param cause Why it failed.
+     * @throws KafkaException If the event could not be published; the caller must not
+     *         commit its offset then.
+     */
+    public void divert(InsurancePolicyEvent event, Exception cause) {
+        logger.warn("Issuance of quote {} failed, retrying it off the main topic: {}", event.getQuoteId(), cause.toString());
+        ProducerRecord<String, Object> record = new ProducerRecord<>(FAILED_TOPIC, event.getDni().toString(), event);
+        record.headers().add(FAILED_AT_HEADER, ByteBuffer.allocate(Long.BYTES).putLong(System.currentTimeMillis()).array());
+        try {
+            kafkaTemplate.send(record).get(sendTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new KafkaException("Interrupted while diverting quote " + event.getQuoteId(), e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new KafkaException("Could not divert quote " + event.getQuoteId() + " to " + FAILED_TOPIC, e);
+        }
+        diverted.increment();
+    }
+
+    /**
+     * Records a retry of a diverted event.
+     *
+     * @param record The retried record.
+     * @param issued Whether the retry issued the policy (or found it already issued).
+     */
+    public void recordAttempt(ConsumerRecord<?, ?> record, boolean issued) {
+        Counter.builder("issuance.retry.attempts")
+                .description("Retries of failed issuance events")
+                .tag("topic", record.topic())
+                .tag("outcome", issued ? "issued" : "failed")
+                .register(meterRegistry)
+                .increment();
+        if (issued) {
+            recordAddedLatency(record, "issued");
+        }
+    }
+
+    /**
+     * Records an event that exhausted its retries.
+     */
+    public void recordDeadLetter(ConsumerRecord<?, ?> record) {
+        deadLettered.increment();
+        recordAddedLatency(record, "dead_lettered");
+        Header error = record.headers().lastHeader("kafka_dlt-exception-message");
+        logger.error("Issuance event parked in {} at offset {}: {} ({})", record.topic(), record.offset(), record.value(),
+                error == null ? "unknown error" : new String(error.value()));
+    }
+
+    private void recordAddedLatency(ConsumerRecord<?, ?> record, String outcome) {
+        Header failedAt = record.headers().lastHeader(FAILED_AT_HEADER);
+        if (failedAt == null) {
+            return;
+        }
+        meterRegistry.timer("issuance.retry.added.latency", "outcome", outcome)
+                .record(Duration.ofMillis(System.currentTimeMillis() - ByteBuffer.wrap(failedAt.value()).getLong()));
+    }
+}
@@ -4,16 +4,28 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pacifico.insurance.event.InsurancePolicyEvent;
 import com.pacifico.issuance.model.Policy;
 import com.pacifico.issuance.repository.PolicyRepository;
+import com.pacifico.issuance.repository.PolicyWriter;
 import com.pacifico.issuance.websocket.IssuanceWebSocketHandler;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.annotation.DltHandler;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.RetryableTopic;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.retry.annotation.Backoff;
 import org.springframework.stereotype.Service;
+import org.springframework.util.backoff.BackOff;
+import org.springframework.util.backoff.BackOffExecution;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
-import java.util.Random;
+import java.util.Set;
 
 /**
  * Service responsible for the final issuance of insurance policies.
@@ -21,21 +33,60 @@ import java.util.Random;
  * This service consumes {@link InsurancePolicyEvent} from Kafka,
  * persists the policy data to PostgreSQL, and pushes real-time updates 
  * to the customer via WebSockets.
+ * <p>
+ * {@code issuance.listener.mode} selects the listener: {@code batch} (default) issues a
+ * whole poll per transaction, {@code parallel} issues each customer's events in order on
+ * virtual threads, {@code record} issues one event at a time.
+ * <p>
+ * Consumption is idempotent: at most one policy is issued per quote. Redelivered events
+ * are mostly dropped by the {@link IssuedQuoteIndex}; the remaining ones hit the unique
+ * constraint on {@code policies.quote_id} and are retried with
+ * {@code INSERT ... ON CONFLICT DO NOTHING}, which skips the quotes already issued.
+ * Customers are only notified of policies actually inserted.
+ * <p>
+ * An event that fails to issue is not dropped: the {@link IssuanceRetryRouter} moves it to
+ * the retry topics, so the main listener keeps its pace while the event is retried with
+ * exponential backoff and, once {@code issuance.retry.attempts} are spent, parked in the
+ * dead-letter topic for {@link DeadLetterReplayer replay}.
  */
 @Service
 public class IssuanceService {
 
     private static final Logger logger = LoggerFactory.getLogger(IssuanceService.class);
+
+    static final String KAFKA_TOPIC = "insurance.policy.issuance";
+    static final String RECORD_LISTENER_ID = "issuance-record";
+    static final String BATCH_LISTENER_ID = "issuance-batch";
+    static final String PARALLEL_LISTENER_ID = "issuance-parallel";
+    static final String RETRY_LISTENER_ID = "issuance-retry";
+
     private final PolicyRepository policyRepository;
+    private final PolicyWriter policyWriter;
+    private final KeyOrderedExecutor issuanceExecutor;
     private final IssuanceWebSocketHandler webSocketHandler;
+    private final PolicyNumberAllocator policyNumberAllocator;
+    private final IssuedQuoteIndex issuedQuotes;
+    private final IssuanceRetryRouter retryRouter;
+    private final BackOff redeliveryBackOff;
     private final ObjectMapper objectMapper;
-    private final Random random = new Random();
 
-    public IssuanceService(PolicyRepository policyRepository, 
+    public IssuanceService(PolicyRepository policyRepository,
+                           PolicyWriter policyWriter,
+                           KeyOrderedExecutor issuanceExecutor,
                            IssuanceWebSocketHandler webSocketHandler,
+                           PolicyNumberAllocator policyNumberAllocator,
+                           IssuedQuoteIndex issuedQuotes,
+                           IssuanceRetryRouter retryRouter,
+                           BackOff issuanceRedeliveryBackOff,
                            ObjectMapper objectMapper) {
         this.policyRepository = policyRepository;
+        this.policyWriter = policyWriter;
+        this.issuanceExecutor = issuanceExecutor;
         this.webSocketHandler = webSocketHandler;
+        this.policyNumberAllocator = policyNumberAllocator;
+        this.issuedQuotes = issuedQuotes;
+        this.retryRouter = retryRouter;
+        this.redeliveryBackOff = issuanceRedeliveryBackOff;
         this.objectMapper = objectMapper;
     }
 
@@ -48,40 +99,259 @@ public class IssuanceService {
      *
      * @param event The event containing quotation and premium data.
      */
-    @KafkaListener(topics = "insurance.policy.issuance", groupId = "issuance-group")
+    @KafkaListener(id = RECORD_LISTENER_ID, topics = KAFKA_TOPIC, groupId = "issuance-group",
+            autoStartup = "#{'${issuance.listener.mode:batch}' == 'record'}")
     public void consume(InsurancePolicyEvent event) {
         logger.info("Received Kafka event for DNI: {}", event.getDni());
+        Policy policy = issue(event);
+        if (policy != null) {
+            push(policy);
+        }
+    }
+
+    /**
+     * Consumes a whole poll of policy issuance events.
+     * <p>
+     * All policies are inserted as one JDBC batch in one transaction; the offsets are
+     * committed once that transaction has committed, and only then are the customers
+     * notified, so a push never announces a policy that could still be rolled back.
+     * If the batch insert fails, the events are issued one at a time so a single bad event
+     * does not hold back the rest of the poll; the ones that still fail are diverted to the
+     * retry topics. If an event cannot even be diverted the poll is not acknowledged, and the
+     * container's error handler redelivers it after {@code issuance.retry.redelivery-*} backoff.
+     * The policies issued one at a time before that event are committed and already in the
+     * {@link IssuedQuoteIndex}, so redelivery skips them; their customers are notified before
+     * the poll fails.
+     *
+     * @param events The polled events, in partition order.
+     * @param acknowledgment Commits the offsets of the poll.
+     */
+    @KafkaListener(id = BATCH_LISTENER_ID, topics = KAFKA_TOPIC, groupId = "issuance-group",
+            containerFactory = "batchListenerContainerFactory",
+            autoStartup = "#{'${issuance.listener.mode:batch}' == 'batch'}")
+    public void consumeBatch(List<InsurancePolicyEvent> events, Acknowledgment acknowledgment) {
+        logger.info("Received {} Kafka events", events.size());
+        Set<Long> polled = new HashSet<>();
+        List<InsurancePolicyEvent> fresh = events.stream()
+                .filter(event -> polled.add(event.getQuoteId()) && !issuedQuotes.isIssued(event.getQuoteId()))
+                .toList();
+        List<Policy> issued;
+        try {
+            issued = insertAll(fresh.stream().map(this::toPolicy).toList());
+        } catch (RuntimeException e) {
+            logger.warn("Batch insert of {} policies failed, issuing them one at a time: {}", fresh.size(), e.getMessage());
+            issued = new ArrayList<>(fresh.size());
+            for (InsurancePolicyEvent event : fresh) {
+                Policy policy;
+                try {
+                    policy = issue(event);
+                } catch (RuntimeException undivertable) {
+                    issued.forEach(this::push);
+                    throw undivertable;
+                }
+                if (policy != null) {
+                    issued.add(policy);
+                }
+            }
+        }
+        acknowledgment.acknowledge();
+        issued.forEach(this::push);
+    }
+
+    /**
+     * Inserts a poll in one batch, falling back to the conflict-tolerant insert when one of
+     * its quotes turns out to be issued already.
+     *
+     * @return The policies actually inserted.
+     */
+    private List<Policy> insertAll(List<Policy> policies) {
+        if (policies.isEmpty()) {
+            return policies;
+        }
+        List<Policy> inserted;
+        try {
+            inserted = policyWriter.insertAll(policies);
+        } catch (DataIntegrityViolationException e) {
+            logger.info("Poll holds already issued quotes, inserting {} policies with ON CONFLICT DO NOTHING", policies.size());
+            inserted = policyWriter.insertIgnoringIssuedQuotes(policies);
+        }
+        markIssued(policies, inserted);
+        return inserted;
+    }
+
+    /**
+     * Consumes policy issuance events without waiting for them.
+     * <p>
+     * Each event is issued on a virtual thread, after every earlier event with the same
+     * record key (the customer DNI) and in parallel with everyone else's, so a slow write
+     * only delays its own customer. Each policy is saved in its own transaction; only the
+     * batch listener groups inserts into JDBC batches. Each record is acknowledged once its
+     * policy is saved and pushed (or diverted to the retry topics), and offsets are committed
+     * only up to the lowest record still in flight, so a crash never skips an unfinished
+     * event. A record that can neither be issued nor diverted is retried on its virtual
+     * thread after {@code issuance.retry.redelivery-*} backoff, holding back only that
+     * customer's later events, until one of the two succeeds.
+     *
+     * @param record The record holding the event, keyed by DNI.
+     * @param acknowledgment Acknowledges this record, from any thread.
+     */
+    @KafkaListener(id = PARALLEL_LISTENER_ID, topics = KAFKA_TOPIC, groupId = "issuance-group",
+            containerFactory = "parallelListenerContainerFactory",
+            autoStartup = "#{'${issuance.listener.mode:batch}' == 'parallel'}")
+    public void consumeParallel(ConsumerRecord<String, InsurancePolicyEvent> record, Acknowledgment acknowledgment) {
+        InsurancePolicyEvent event = record.value();
+        String key = record.key() != null ? record.key() : event.getDni().toString();
+        issuanceExecutor.submit(key, () -> {
+            Policy policy = issueUntilDiverted(event);
+            if (policy != null) {
+                push(policy);
+            }
+            acknowledgment.acknowledge();
+        });
+    }
+
+    /**
+     * Retries events that failed to issue on the main topic.
+     * <p>
+     * A failed retry is republished to the next retry topic, each one delaying it
+     * {@code issuance.retry.multiplier} times longer than the previous one (from
+     * {@code issuance.retry.initial-delay}, up to {@code issuance.retry.max-delay}); after
+     * {@code issuance.retry.attempts} the event goes to the dead-letter topic.
+     *
+     * @param record The failed event, keyed by DNI.
+     */
+    @RetryableTopic(attempts = "${issuance.retry.attempts:4}",
+            backoff = @Backoff(delayExpression = "${issuance.retry.initial-delay:1000}",
+                    multiplierExpression = "${issuance.retry.multiplier:10}",
+                    maxDelayExpression = "${issuance.retry.max-delay:300000}"),
+            kafkaTemplate = "kafkaTemplate", dltTopicSuffix = "-dlt")
+    @KafkaListener(id = RETRY_LISTENER_ID, topics = IssuanceRetryRouter.FAILED_TOPIC, groupId = "issuance-group")
+    public void consumeRetry(ConsumerRecord<String, InsurancePolicyEvent> record) {
+        Policy policy;
+        try {
+            policy = insert(record.value());
+        } catch (RuntimeException e) {
+            retryRouter.recordAttempt(record, false);
+            throw e;
+        }
+        retryRouter.recordAttempt(record, true);
+        if (policy != null) {
+            push(policy);
+        }
+    }
+
+    /**
+     * Records an event that exhausted its retries; it stays in the dead-letter topic until replayed.
+     */
+    @DltHandler
+    public void deadLetter(ConsumerRecord<String, InsurancePolicyEvent> record) {
+        retryRouter.recordDeadLetter(record);
+    }
+
+    /**
+     * Persists a single policy, diverting the event to the retry topics if that fails.
+     *
+     * @return The saved policy, or {@code null} if its quote was already issued or it was diverted.
+     */
+    private Policy issue(InsurancePolicyEvent event) {
+        try {
+            return insert(event);
+        } catch (RuntimeException e) {
+            retryRouter.divert(event, e);
+            return null;
+        }
+    }
+
+    /**
+     * Issues an event, retrying with the redelivery backoff for as long as it can neither be
+     * issued nor diverted.
+     */
+    private Policy issueUntilDiverted(InsurancePolicyEvent event) {
+        BackOffExecution backOff = redeliveryBackOff.start();
+        while (true) {
+            try {
+                return issue(event);
+            } catch (RuntimeException e) {
+                long interval = backOff.nextBackOff();
+                if (interval == BackOffExecution.STOP) {
+                    throw e;
+                }
+                logger.error("Quote {} could not be issued nor diverted, retrying in {} ms", event.getQuoteId(), interval, e);
+                try {
+                    Thread.sleep(interval);
+                } catch (InterruptedException interrupted) {
+                    // Shutting down: the record stays unacknowledged and is redelivered on restart
+                    Thread.currentThread().interrupt();
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * Persists a single policy.
+     *
+     * @return The saved policy, or {@code null} if its quote was already issued.
+     */
+    private Policy insert(InsurancePolicyEvent event) {
+        if (issuedQuotes.isIssued(event.getQuoteId())) {
+            logger.info("Quote {} already issued, skipping redelivered event", event.getQuoteId());
+            return null;
+        }
+        Policy policy = toPolicy(event);
         try {
-            Long quoteId = event.getQuoteId();
-            String dni = event.getDni().toString();
-            Double finalPremium = event.getFinalPremium();
-
-            // 1. Generate Policy Number PAC-2026-XXXX
-            String policyNumber = "PAC-2026-" + (1000 + this.random.nextInt(9000));
-
-            // 2. Persist to DB
-            Policy policy = Policy.builder()
-                    .quoteId(quoteId)
-                    .policyNumber(policyNumber)
-                    .dni(dni)
-                    .finalPremium(BigDecimal.valueOf(finalPremium))
-                    .issuedAt(LocalDateTime.now())
-                    .build();
-            
             policyRepository.save(policy);
-            logger.info("Policy {} saved for DNI: {}", policyNumber, dni);
+        } catch (DataIntegrityViolationException e) {
+            // The quote may be issued already; any other violation fails again here
+            List<Policy> inserted = policyWriter.insertIgnoringIssuedQuotes(List.of(policy));
+            markIssued(List.of(policy), inserted);
+            if (inserted.isEmpty()) {
+                logger.info("Quote {} already issued, skipping redelivered event", event.getQuoteId());
+                return null;
+            }
+        }
+        issuedQuotes.markIssued(policy.getQuoteId());
+        logger.info("Policy {} saved for DNI: {}", policy.getPolicyNumber(), policy.getDni());
+        return policy;
+    }
 
-            // 3. Push to WebSocket
+    /**
+     * Records committed quotes in the index; quotes attempted but not inserted were
+     * issued before.
+     */
+    private void markIssued(List<Policy> attempted, List<Policy> inserted) {
+        Set<Long> insertedQuotes = new HashSet<>();
+        inserted.forEach(policy -> insertedQuotes.add(policy.getQuoteId()));
+        for (Policy policy : attempted) {
+            if (insertedQuotes.contains(policy.getQuoteId())) {
+                issuedQuotes.markIssued(policy.getQuoteId());
+            } else {
+                issuedQuotes.markDuplicate(policy.getQuoteId());
+            }
+        }
+    }
+
+    private Policy toPolicy(InsurancePolicyEvent event) {
+        return Policy.builder()
+                .quoteId(event.getQuoteId())
+                .policyNumber(policyNumberAllocator.next())
+                .dni(event.getDni().toString())
+                .finalPremium(BigDecimal.valueOf(event.getFinalPremium()))
+                .issuedAt(LocalDateTime.now())
+                .build();
+    }
+
+    private void push(Policy policy) {
+        try {
             String pushPayload = objectMapper.writeValueAsString(Map.of(
-                "policyNumber", policyNumber,
-                "dni", dni,
-                "finalPremium", finalPremium,
+                "policyNumber", policy.getPolicyNumber(),
+                "dni", policy.getDni(),
+                "finalPremium", policy.getFinalPremium(),
                 "status", "ISSUED"
             ));
-            webSocketHandler.sendToUser(dni, pushPayload);
-
+            webSocketHandler.sendToUser(policy.getDni(), pushPayload);
         } catch (Exception e) {
-            logger.error("Error processing issuance event", e);
+            logger.error("Error pushing issuance of policy {}", policy.getPolicyNumber(), e);
         }
     }
 }
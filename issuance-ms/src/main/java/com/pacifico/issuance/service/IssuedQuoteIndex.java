@@ -0,0 +1,74 @@
+package com.pacifico.issuance.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Bounded in-memory index of quotes this instance has recently issued a policy for.
+ * <p>
+ * Kafka redelivers records after a rebalance or a failed offset commit, almost always
+ * shortly after they were first processed and usually to the same instance, so most
+ * duplicates are found here without a database round trip. A miss is not proof that the
+ * quote is new (the index is per instance, bounded and lost on restart); the unique
+ * constraint on {@code policies.quote_id} settles those cases.
+ * <p>
+ * Duplicates are counted in {@code issuance.duplicates}, tagged with where they were
+ * detected ({@code memory} or {@code database}).
+ */
+@Component
+public class IssuedQuoteIndex {
+
+    private final Cache<Long, Boolean> issued;
+    private final Counter memoryDuplicates;
+    private final Counter databaseDuplicates;
+
+    public IssuedQuoteIndex(@Value("${issuance.idempotency.index-size:100000}") long maxSize,
+                            MeterRegistry meterRegistry) {
+        this.issued = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, issued, "issued.quotes");
+        this.memoryDuplicates = duplicateCounter(meterRegistry, "memory");
+        this.databaseDuplicates = duplicateCounter(meterRegistry, "database");
+    }
+
+    /**
+     * @param quoteId A quote about to be issued.
+     * @return Whether a policy was already issued for it; counted as a duplicate if so.
+     */
+    public boolean isIssued(long quoteId) {
+        if (issued.getIfPresent(quoteId) == null) {
+            return false;
+        }
+        memoryDuplicates.increment();
+        return true;
+    }
+
+    /**
+     * Records a quote whose policy has been committed.
+     */
+    public void markIssued(long quoteId) {
+        issued.put(quoteId, Boolean.TRUE);
+    }
+
+    /**
+     * Records a quote found to be already issued by the database.
+     */
+    public void markDuplicate(long quoteId) {
+        databaseDuplicates.increment();
+        markIssued(quoteId);
+    }
+
+    private static Counter duplicateCounter(MeterRegistry meterRegistry, String detectedBy) {
+        return Counter.builder("issuance.duplicates")
+                .description("Redelivered issuance events dropped because their quote was already issued")
+                .tag("detected_by", detectedBy)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,79 @@
+package com.pacifico.issuance.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs tasks on virtual threads, one at a time per key and in parallel across keys.
+ * <p>
+ * Each key keeps the future of its last submitted task; a new task for the key is chained
+ * behind it, so tasks for the same key run in submission order while tasks for other keys
+ * never wait on them. A failed task is logged and does not hold back the key's later
+ * tasks. Keys are dropped as soon as their last task completes, so memory follows the
+ * number of keys in flight rather than the number of keys ever seen.
+ */
+public class KeyOrderedExecutor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(KeyOrderedExecutor.class);
+
+    private final String name;
+    private final ExecutorService executor;
+    private final Map<Object, CompletableFuture<Void>> tails = new ConcurrentHashMap<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * @param name Executor name, used for the virtual thread names and the {@code executor} metric tag.
+     * @param meterRegistry Registry for executor metrics.
+     */
+    public KeyOrderedExecutor(String name, MeterRegistry meterRegistry) {
+        this.name = name;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 0).factory());
+        Gauge.builder("key.ordered.executor.in.flight", inFlight, AtomicInteger::get)
+                .description("Tasks submitted and not yet completed")
+                .tag("executor", name)
+                .register(meterRegistry);
+        Gauge.builder("key.ordered.executor.keys", tails, Map::size)
+                .description("Keys with at least one task in flight")
+                .tag("executor", name)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs a task once every task previously submitted for the same key has completed.
+     *
+     * @param key The ordering key.
+     * @param task The task to run.
+     * @return A future completed when the task has run, exceptionally if it failed.
+     */
+    public CompletableFuture<Void> submit(Object key, Runnable task) {
+        inFlight.incrementAndGet();
+        CompletableFuture<Void> next = tails.compute(key, (k, tail) -> tail == null
+                ? CompletableFuture.runAsync(task, executor)
+                : tail.exceptionally(e -> null).thenRunAsync(task, executor));
+        next.whenComplete((result, e) -> {
+            tails.remove(key, next);
+            inFlight.decrementAndGet();
+            if (e != null) {
+                logger.error("Executor {} task for key {} failed", name, key, e);
+            }
+        });
+        return next;
+    }
+
+    /**
+     * Stops accepting tasks and waits for the tasks in flight.
+     */
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,143 @@
+package com.pacifico.issuance.service;
+
+import com.pacifico.issuance.model.PolicyNumberBlock;
+import com.pacifico.issuance.repository.PolicyNumberBlockRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Year;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Allocates policy numbers ({@code PAC-<year>-<number>}) that are unique across instances.
+ * <p>
+ * Each instance leases a block of {@code block-size} numbers of the current year from
+ * PostgreSQL, advancing the year's {@link PolicyNumberBlock} row under a row lock in its
+ * own short transaction. Numbers of the leased block are handed out with a single atomic
+ * increment, so the database is only involved once per block and issuing threads never
+ * wait on each other. Once half of a block is used, the next one is leased in the
+ * background, so issuing threads normally do not wait on the database either. A new year
+ * starts a new sequence from 1.
+ * <p>
+ * Numbers left in a block when the instance stops are never handed out, so policy
+ * numbers are unique and increasing per instance, but not gapless. Leases are counted in
+ * {@code policy.number.leases}.
+ */
+@Component
+public class PolicyNumberAllocator {
+
+    private static final Logger logger = LoggerFactory.getLogger(PolicyNumberAllocator.class);
+
+    private static final String PREFIX = "PAC";
+
+    private final PolicyNumberBlockRepository blockRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int blockSize;
+    private final Clock clock;
+    private final Counter leases;
+    private final Executor leaseExecutor = command -> Thread.ofVirtual().name("policy-number-lease").start(command);
+    // Not synchronized: virtual threads waiting on a monitor would pin their carriers while the lease runs
+    private final ReentrantLock renewLock = new ReentrantLock();
+
+    private volatile Block block = new Block(0, 0, new AtomicLong(), 0);
+    private volatile CompletableFuture<Block> prefetched;
+
+    @Autowired
+    public PolicyNumberAllocator(PolicyNumberBlockRepository blockRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${issuance.policy-number.block-size:1000}") int blockSize,
+                                 MeterRegistry meterRegistry) {
+        this(blockRepository, transactionManager, blockSize, meterRegistry, Clock.systemDefaultZone());
+    }
+
+    PolicyNumberAllocator(PolicyNumberBlockRepository blockRepository, PlatformTransactionManager transactionManager,
+                          int blockSize, MeterRegistry meterRegistry, Clock clock) {
+        this.blockRepository = blockRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = blockSize;
+        this.clock = clock;
+        this.leases = Counter.builder("policy.number.leases")
+                .description("Blocks of policy numbers leased from the database")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return A policy number of the current year, never handed out before.
+     */
+    public String next() {
+        int year = Year.now(clock).getValue();
+        while (true) {
+            Block current = block;
+            if (current.year() == year) {
+                long number = current.next().getAndIncrement();
+                if (number < current.end()) {
+                    if (number == current.start() + blockSize / 2) {
+                        // Exactly one thread takes the middle number of a block
+                        prefetched = CompletableFuture.supplyAsync(() -> lease(year), leaseExecutor);
+                    }
+                    return String.format("%s-%d-%07d", PREFIX, year, number);
+                }
+            }
+            renew(current, year);
+        }
+    }
+
+    /**
+     * Replaces an exhausted block, with the prefetched one if it belongs to the current year,
+     * unless another thread already replaced it.
+     */
+    private void renew(Block exhausted, int year) {
+        renewLock.lock();
+        try {
+            if (block != exhausted) {
+                return;
+            }
+            CompletableFuture<Block> pending = prefetched;
+            prefetched = null;
+            Block next = pending == null ? null : pending.exceptionally(e -> null).join();
+            block = next != null && next.year() == year ? next : lease(year);
+        } finally {
+            renewLock.unlock();
+        }
+    }
+
+    private Block lease(int year) {
+        while (true) {
+            try {
+                Block leased = transactionTemplate.execute(status -> {
+                    PolicyNumberBlock row = blockRepository.findForUpdate(year)
+                            .orElseGet(() -> blockRepository.saveAndFlush(new PolicyNumberBlock(year, 1L)));
+                    long start = row.getNextValue();
+                    row.setNextValue(start + blockSize);
+                    return new Block(year, start, new AtomicLong(start), start + blockSize);
+                });
+                leases.increment();
+                logger.info("Leased policy numbers {}-{} of {}", leased.start(), leased.end() - 1, year);
+                return leased;
+            } catch (DataIntegrityViolationException e) {
+                // Another instance created the year's row first; lock it on the next attempt
+                logger.debug("Policy number row of {} created concurrently, retrying lease", year);
+            }
+        }
+    }
+
+    /**
+     * Numbers {@code [start, end)} of a year leased by this instance; {@code next} is the
+     * next one to hand out.
+     */
+    private record Block(int year, long start, AtomicLong next, long end) {}
+}
@@ -0,0 +1,84 @@
+package com.pacifico.issuance.repository;
+
+import com.pacifico.issuance.model.Policy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.dao.PersistenceExceptionTranslationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the PostgreSQL-only {@code ON CONFLICT (quote_id) DO NOTHING} insert against a real
+ * PostgreSQL, started in Docker; skipped where Docker is not available.
+ */
+@DataJpaTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.jpa.hibernate.ddl-auto=create-drop"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(PersistenceExceptionTranslationAutoConfiguration.class)
+@Import(PolicyWriter.class)
+@Testcontainers(disabledWithoutDocker = true)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PolicyWriterPostgresTest {
+
+    @Container
+    @ServiceConnection
+    static final PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15-alpine");
+
+    @Autowired
+    private PolicyWriter policyWriter;
+
+    @Autowired
+    private PolicyRepository policyRepository;
+
+    @BeforeEach
+    void setUp() {
+        policyRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should insert only the policies of a poll whose quote is not issued yet, and report which")
+    void shouldSkipIssuedQuotesOnConflict() {
+        // GIVEN
+        policyWriter.insertAll(List.of(policy(1L, "PAC-2026-0000001")));
+
+        // WHEN: quote 1 was issued by an earlier poll, quote 2 is redelivered within this one
+        List<Policy> inserted = policyWriter.insertIgnoringIssuedQuotes(List.of(
+                policy(2L, "PAC-2026-0000002"),
+                policy(1L, "PAC-2026-0000003"),
+                policy(2L, "PAC-2026-0000004"),
+                policy(3L, "PAC-2026-0000005")));
+
+        // THEN
+        assertThat(inserted).extracting(Policy::getPolicyNumber).containsExactly("PAC-2026-0000002", "PAC-2026-0000005");
+        assertThat(policyRepository.findAll()).extracting(Policy::getPolicyNumber)
+                .containsExactlyInAnyOrder("PAC-2026-0000001", "PAC-2026-0000002", "PAC-2026-0000005");
+    }
+
+    private static Policy policy(long quoteId, String policyNumber) {
+        return Policy.builder()
+                .quoteId(quoteId)
+                .policyNumber(policyNumber)
+                .dni("11223344")
+                .finalPremium(BigDecimal.valueOf(500.50))
+                .issuedAt(LocalDateTime.now())
+                .build();
+    }
+}
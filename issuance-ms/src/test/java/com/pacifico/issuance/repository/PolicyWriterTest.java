@@ -0,0 +1,70 @@
+package com.pacifico.issuance.repository;
+
+import com.pacifico.issuance.model.Policy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.dao.PersistenceExceptionTranslationAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Runs the writer against H2 without a surrounding test transaction, so constraint
+ * violations roll back exactly as they do in production.
+ * <p>
+ * {@link PolicyWriter#insertIgnoringIssuedQuotes} is PostgreSQL-only (H2 2.x does not
+ * parse {@code ON CONFLICT}); {@link PolicyWriterPostgresTest} covers it.
+ */
+@DataJpaTest(properties = "spring.cloud.config.enabled=false")
+@ImportAutoConfiguration(PersistenceExceptionTranslationAutoConfiguration.class)
+@ActiveProfiles("test")
+@Import(PolicyWriter.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PolicyWriterTest {
+
+    @Autowired
+    private PolicyWriter policyWriter;
+
+    @Autowired
+    private PolicyRepository policyRepository;
+
+    @BeforeEach
+    void setUp() {
+        policyRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should reject a whole batch holding a quote that already has a policy")
+    void shouldRejectSecondPolicyForQuote() {
+        // GIVEN
+        policyWriter.insertAll(List.of(policy(1L, "PAC-2026-0000001")));
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> policyWriter.insertAll(List.of(policy(2L, "PAC-2026-0000002"), policy(1L, "PAC-2026-0000003"))))
+                .isInstanceOf(DataIntegrityViolationException.class);
+        assertThat(policyRepository.count()).isEqualTo(1);
+    }
+
+    private static Policy policy(long quoteId, String policyNumber) {
+        return Policy.builder()
+                .quoteId(quoteId)
+                .policyNumber(policyNumber)
+                .dni("11223344")
+                .finalPremium(BigDecimal.valueOf(500.50))
+                .issuedAt(LocalDateTime.now())
+                .build();
+    }
+}
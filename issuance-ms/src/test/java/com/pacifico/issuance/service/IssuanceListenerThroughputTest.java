@@ -0,0 +1,170 @@
+package com.pacifico.issuance.service;
+
+import com.pacifico.insurance.event.InsurancePolicyEvent;
+import com.pacifico.issuance.repository.PolicyRepository;
+import com.pacifico.issuance.websocket.IssuanceWebSocketHandler;
+import jakarta.persistence.EntityManagerFactory;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.apache.kafka.common.serialization.Serializer;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.kafka.config.KafkaListenerEndpointRegistry;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.MessageListenerContainer;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+/**
+ * Issues the same load through the single-record, batch and parallel listeners, against an
+ * embedded broker and H2. The listeners share the consumer group, so each one picks up
+ * exactly where the previous one stopped.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "issuance.listener.mode=none",
+        "spring.kafka.listener.concurrency=1",
+        "spring.kafka.producer.key-serializer=org.apache.kafka.common.serialization.StringSerializer",
+        "spring.kafka.producer.value-serializer=com.pacifico.issuance.service.IssuanceListenerThroughputTest$EventSerializer",
+        "spring.kafka.consumer.value-deserializer=com.pacifico.issuance.service.IssuanceListenerThroughputTest$EventDeserializer",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1, topics = IssuanceService.KAFKA_TOPIC)
+class IssuanceListenerThroughputTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(IssuanceListenerThroughputTest.class);
+
+    private static final int EVENTS = 2_000;
+
+    @Autowired
+    private KafkaTemplate<String, InsurancePolicyEvent> kafkaTemplate;
+
+    @Autowired
+    private KafkaListenerEndpointRegistry listenerRegistry;
+
+    @Autowired
+    private PolicyRepository policyRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private IssuanceWebSocketHandler webSocketHandler;
+
+    /** Row counts run by the last {@link #drain}, excluded from the statements it measured. */
+    private long drainQueries;
+
+    @Test
+    @DisplayName("Should issue a poll per JDBC batch and outperform the single-record listener")
+    void shouldIssueBatchesFasterThanRecords() throws Exception {
+        // GIVEN
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        // WHEN
+        publish(0);
+        statistics.clear();
+        long recordNanos = drain(IssuanceService.RECORD_LISTENER_ID, EVENTS);
+        long recordStatements = statistics.getPrepareStatementCount() - drainQueries;
+
+        publish(EVENTS);
+        statistics.clear();
+        long batchNanos = drain(IssuanceService.BATCH_LISTENER_ID, 2 * EVENTS);
+        long batchStatements = statistics.getPrepareStatementCount() - drainQueries;
+
+        publish(2 * EVENTS);
+        statistics.clear();
+        long parallelNanos = drain(IssuanceService.PARALLEL_LISTENER_ID, 3 * EVENTS);
+        long parallelStatements = statistics.getPrepareStatementCount() - drainQueries;
+
+        // THEN
+        logger.info("Issued {} events: record listener {} events/s ({} statements), batch listener {} events/s ({} statements), "
+                        + "parallel listener {} events/s ({} statements)",
+                EVENTS, eventsPerSecond(recordNanos), recordStatements, eventsPerSecond(batchNanos), batchStatements,
+                eventsPerSecond(parallelNanos), parallelStatements);
+        assertThat(recordStatements).isGreaterThanOrEqualTo(EVENTS);
+        assertThat(batchStatements).isLessThan(EVENTS / 10);
+        verify(webSocketHandler, timeout(5000).times(3 * EVENTS)).sendToUser(anyString(), anyString());
+    }
+
+    private void publish(int firstQuoteId) throws Exception {
+        for (int i = firstQuoteId; i < firstQuoteId + EVENTS; i++) {
+            String dni = String.format("%08d", i);
+            kafkaTemplate.send(IssuanceService.KAFKA_TOPIC, dni, InsurancePolicyEvent.newBuilder()
+                    .setQuoteId(i)
+                    .setDni(dni)
+                    .setApprovedRiskScore(0.25)
+                    .setFinalPremium(500.50)
+                    .build());
+        }
+        kafkaTemplate.flush();
+    }
+
+    /**
+     * Runs a listener until the policies table holds {@code expected} rows, counting the
+     * rows with {@link #drainQueries} queries.
+     *
+     * @return Elapsed time, including the consumer joining the group.
+     */
+    private long drain(String listenerId, long expected) throws InterruptedException {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(listenerId);
+        long start = System.nanoTime();
+        container.start();
+        long deadline = start + TimeUnit.SECONDS.toNanos(60);
+        drainQueries = 1;
+        while (policyRepository.count() < expected) {
+            assertThat(System.nanoTime()).as("%s issued all events in time", listenerId).isLessThan(deadline);
+            Thread.sleep(10);
+            drainQueries++;
+        }
+        long elapsed = System.nanoTime() - start;
+        container.stop();
+        return elapsed;
+    }
+
+    private static long eventsPerSecond(long nanos) {
+        return EVENTS * TimeUnit.SECONDS.toNanos(1) / nanos;
+    }
+
+    public static class EventSerializer implements Serializer<InsurancePolicyEvent> {
+
+        @Override
+        public byte[] serialize(String topic, InsurancePolicyEvent event) {
+            try {
+                ByteBuffer buffer = event.toByteBuffer();
+                byte[] bytes = new byte[buffer.remaining()];
+                buffer.get(bytes);
+                return bytes;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    public static class EventDeserializer implements Deserializer<InsurancePolicyEvent> {
+
+        @Override
+        public InsurancePolicyEvent deserialize(String topic, byte[] data) {
+            try {
+                return InsurancePolicyEvent.fromByteBuffer(ByteBuffer.wrap(data));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.pacifico.issuance.service;
+
+import com.pacifico.insurance.event.InsurancePolicyEvent;
+import com.pacifico.issuance.management.DeadLetterEndpoint;
+import com.pacifico.issuance.repository.PolicyRepository;
+import com.pacifico.issuance.websocket.IssuanceWebSocketHandler;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.context.EmbeddedKafka;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs failed issuances through the retry topics, the dead-letter topic and a replay,
+ * against an embedded broker and H2, with short retry delays.
+ */
+@SpringBootTest(properties = {
+        "spring.cloud.config.enabled=false",
+        "spring.kafka.listener.concurrency=1",
+        "spring.kafka.producer.key-serializer=org.apache.kafka.common.serialization.StringSerializer",
+        "spring.kafka.producer.value-serializer=com.pacifico.issuance.service.IssuanceListenerThroughputTest$EventSerializer",
+        "spring.kafka.consumer.value-deserializer=com.pacifico.issuance.service.IssuanceListenerThroughputTest$EventDeserializer",
+        "issuance.retry.attempts=3",
+        "issuance.retry.initial-delay=100",
+        "issuance.retry.multiplier=2",
+        "issuance.retry.max-delay=1000",
+        "issuance.retry.dlq-depth-refresh=1h",
+        "issuance.retry.redelivery-initial-interval=20",
+        "issuance.retry.redelivery-max-interval=200"
+})
+@ActiveProfiles("test")
+@EmbeddedKafka(partitions = 1, topics = IssuanceService.KAFKA_TOPIC)
+class IssuanceRetryTopicTest {
+
+    @Autowired
+    private KafkaTemplate<String, InsurancePolicyEvent> kafkaTemplate;
+
+    @Autowired
+    private PolicyRepository policyRepository;
+
+    @Autowired
+    private DeadLetterReplayer deadLetterReplayer;
+
+    @Autowired
+    private DeadLetterEndpoint deadLetterEndpoint;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @SpyBean
+    private PolicyNumberAllocator policyNumberAllocator;
+
+    @SpyBean
+    private IssuanceRetryRouter retryRouter;
+
+    @MockBean
+    private IssuanceWebSocketHandler webSocketHandler;
+
+    @Test
+    @DisplayName("Should retry a failed issuance off the main topic and park a poison event in the DLT until replayed")
+    void shouldRetryFailuresAndDeadLetterPoisonEvents() throws Exception {
+        // GIVEN: the allocator fails for both the batch insert and its one-at-a-time fallback
+        doThrow(new IllegalStateException("lease timed out"))
+                .doThrow(new IllegalStateException("lease timed out"))
+                .doCallRealMethod()
+                .when(policyNumberAllocator).next();
+
+        // WHEN
+        publish(event(1L, "11223344", 500.50));
+
+        // THEN
+        await("the transient failure to be retried", () -> isIssued(1L));
+        verify(webSocketHandler, timeout(5000)).sendToUser(eq("11223344"), anyString());
+        assertThat(counter("issuance.retry.diverted")).isEqualTo(1);
+        assertThat(meterRegistry.get("issuance.retry.attempts").tag("outcome", "issued").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("issuance.retry.added.latency").tag("outcome", "issued").timer().count()).isEqualTo(1);
+
+        // WHEN: a premium that cannot be converted fails every attempt
+        publish(event(2L, "55667788", Double.NaN));
+
+        // THEN
+        await("the poison event to reach the DLT", () -> counter("issuance.dlq.events") == 1);
+        // One failed attempt on the entry topic and on each of the two retry topics
+        assertThat(meterRegistry.get("issuance.retry.attempts").tag("outcome", "failed").counters())
+                .extracting(Counter::count).containsExactlyInAnyOrder(1.0, 1.0, 1.0);
+        assertThat(deadLetterReplayer.refreshDepth()).isEqualTo(1);
+
+        // WHEN
+        Map<String, Object> replay = deadLetterEndpoint.replay(10);
+
+        // THEN: the event is back on the main topic, failing and being diverted again
+        assertThat(replay).containsEntry("replayed", 1).containsEntry("remaining", 0L);
+        assertThat(counter("issuance.dlq.replayed")).isEqualTo(1);
+        await("the replayed event to be consumed", () -> counter("issuance.retry.diverted") == 3);
+        assertThat(deadLetterEndpoint.replay(10)).containsEntry("replayed", 0);
+        assertThat(isIssued(2L)).isFalse();
+    }
+
+    @Test
+    @DisplayName("Should redeliver an event that could be neither issued nor diverted instead of committing it")
+    void shouldRedeliverEventThatCannotBeDiverted() throws Exception {
+        // GIVEN: for more deliveries than Spring Kafka's default error handler makes, the batch
+        // insert and its fallback fail, and so does the broker holding the retry topics
+        int failedDeliveries = 12;
+        AtomicInteger allocations = new AtomicInteger();
+        doAnswer(invocation -> {
+            if (allocations.incrementAndGet() <= 2 * failedDeliveries) {
+                throw new IllegalStateException("lease timed out");
+            }
+            return invocation.callRealMethod();
+        }).when(policyNumberAllocator).next();
+        doThrow(new KafkaException("broker unavailable")).when(retryRouter).divert(any(), any());
+
+        // WHEN
+        publish(event(3L, "99887766", 500.50));
+
+        // THEN: the poll is handed over again, and issued this time
+        await("the event to be redelivered", () -> isIssued(3L));
+        verify(retryRouter, times(failedDeliveries)).divert(argThat(event -> event.getQuoteId() == 3L), any(Exception.class));
+        verify(webSocketHandler, timeout(5000)).sendToUser(eq("99887766"), anyString());
+    }
+
+    private boolean isIssued(long quoteId) {
+        return policyRepository.findAll().stream().anyMatch(policy -> policy.getQuoteId() == quoteId);
+    }
+
+    private void publish(InsurancePolicyEvent event) throws Exception {
+        kafkaTemplate.send(IssuanceService.KAFKA_TOPIC, event.getDni().toString(), event).get(10, TimeUnit.SECONDS);
+    }
+
+    private double counter(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    private static void await(String description, BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(60);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("waiting for %s", description).isLessThan(deadline);
+            Thread.sleep(50);
+        }
+    }
+
+    private static InsurancePolicyEvent event(long quoteId, String dni, double finalPremium) {
+        return InsurancePolicyEvent.newBuilder()
+                .setQuoteId(quoteId)
+                .setDni(dni)
+                .setApprovedRiskScore(0.25)
+                .setFinalPremium(finalPremium)
+                .build();
+    }
+}
@@ -4,20 +4,32 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.pacifico.insurance.event.InsurancePolicyEvent;
 import com.pacifico.issuance.model.Policy;
 import com.pacifico.issuance.repository.PolicyRepository;
+import com.pacifico.issuance.repository.PolicyWriter;
 import com.pacifico.issuance.websocket.IssuanceWebSocketHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
-import org.mockito.InjectMocks;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.support.Acknowledgment;
+import org.springframework.util.backoff.FixedBackOff;
 
 import java.math.BigDecimal;
+import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
@@ -33,9 +45,35 @@ class IssuanceServiceTest {
     @Mock
     private ObjectMapper objectMapper;
 
-    @InjectMocks
+    @Mock
+    private PolicyWriter policyWriter;
+
+    @Mock
+    private Acknowledgment acknowledgment;
+
+    @Mock
+    private PolicyNumberAllocator policyNumberAllocator;
+
+    @Mock
+    private IssuanceRetryRouter retryRouter;
+
+    private KeyOrderedExecutor issuanceExecutor;
     private IssuanceService issuanceService;
 
+    @BeforeEach
+    void setUp() {
+        issuanceExecutor = new KeyOrderedExecutor("test", new SimpleMeterRegistry());
+        issuanceService = new IssuanceService(policyRepository, policyWriter, issuanceExecutor, webSocketHandler,
+                policyNumberAllocator, new IssuedQuoteIndex(1000, new SimpleMeterRegistry()), retryRouter, new FixedBackOff(10, FixedBackOff.UNLIMITED_ATTEMPTS),
+                objectMapper);
+        when(policyNumberAllocator.next()).thenReturn("PAC-2026-0000001", "PAC-2026-0000002");
+    }
+
+    @AfterEach
+    void tearDown() {
+        issuanceExecutor.close();
+    }
+
     @Test
     @DisplayName("Should process Kafka event and issue policy")
     void shouldProcessEventAndIssuePolicy() throws Exception {
@@ -64,4 +102,235 @@ class IssuanceServiceTest {
 
         verify(webSocketHandler, times(1)).sendToUser(eq("11223344"), anyString());
     }
+
+    @Test
+    @DisplayName("Should insert a poll in one batch and push only after committing its offsets")
+    void shouldIssueBatchThenCommitThenPush() throws Exception {
+        // GIVEN
+        when(policyWriter.insertAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{\"status\":\"ISSUED\"}");
+
+        // WHEN
+        issuanceService.consumeBatch(List.of(event(1L, "11223344"), event(2L, "55667788")), acknowledgment);
+
+        // THEN
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Policy>> policies = ArgumentCaptor.forClass(List.class);
+        InOrder inOrder = inOrder(policyWriter, acknowledgment, webSocketHandler);
+        inOrder.verify(policyWriter).insertAll(policies.capture());
+        inOrder.verify(acknowledgment).acknowledge();
+        inOrder.verify(webSocketHandler).sendToUser(eq("11223344"), anyString());
+        inOrder.verify(webSocketHandler).sendToUser(eq("55667788"), anyString());
+        assertThat(policies.getValue()).extracting(Policy::getQuoteId).containsExactly(1L, 2L);
+        verifyNoInteractions(policyRepository);
+    }
+
+    @Test
+    @DisplayName("Should issue a poll one event at a time when its batch insert fails and divert the events that still fail")
+    void shouldFallBackToSingleInsertsWhenBatchFails() throws Exception {
+        // GIVEN
+        when(policyWriter.insertAll(anyList())).thenThrow(new IllegalStateException("duplicate policy number"));
+        when(policyRepository.save(any(Policy.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new IllegalStateException("duplicate policy number"));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{\"status\":\"ISSUED\"}");
+
+        // WHEN
+        issuanceService.consumeBatch(List.of(event(1L, "11223344"), event(2L, "55667788")), acknowledgment);
+
+        // THEN
+        verify(policyRepository, times(2)).save(any(Policy.class));
+        verify(retryRouter).divert(argThat(event -> event.getQuoteId() == 2L), any(Exception.class));
+        verify(acknowledgment).acknowledge();
+        verify(webSocketHandler).sendToUser(eq("11223344"), anyString());
+        verify(webSocketHandler, never()).sendToUser(eq("55667788"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should not acknowledge a poll holding an event that could neither be issued nor diverted")
+    void shouldNotAcknowledgePollWhenDivertFails() {
+        // GIVEN
+        when(policyWriter.insertAll(anyList())).thenThrow(new IllegalStateException("connection reset"));
+        when(policyRepository.save(any(Policy.class))).thenThrow(new IllegalStateException("connection reset"));
+        doThrow(new KafkaException("broker unavailable")).when(retryRouter).divert(any(), any());
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> issuanceService.consumeBatch(List.of(event(1L, "11223344")), acknowledgment))
+                .isInstanceOf(KafkaException.class);
+        verify(acknowledgment, never()).acknowledge();
+        verifyNoInteractions(webSocketHandler);
+    }
+
+    @Test
+    @DisplayName("Should notify policies issued before an event that could neither be issued nor diverted")
+    void shouldPushIssuedPoliciesWhenLaterEventCannotBeDiverted() {
+        // GIVEN
+        when(policyWriter.insertAll(anyList())).thenThrow(new IllegalStateException("connection reset"));
+        when(policyRepository.save(any(Policy.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0))
+                .thenThrow(new IllegalStateException("connection reset"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        doThrow(new KafkaException("broker unavailable")).doNothing().when(retryRouter).divert(any(), any());
+        List<InsurancePolicyEvent> poll = List.of(event(1L, "12345678"), event(2L, "87654321"));
+
+        // WHEN
+        assertThatThrownBy(() -> issuanceService.consumeBatch(poll, acknowledgment))
+                .isInstanceOf(KafkaException.class);
+        verify(acknowledgment, never()).acknowledge();
+        // The container redelivers the whole poll
+        issuanceService.consumeBatch(poll, acknowledgment);
+
+        // THEN
+        verify(webSocketHandler, times(1)).sendToUser(eq("12345678"), any());
+        verify(webSocketHandler, times(1)).sendToUser(eq("87654321"), any());
+        verify(policyRepository, times(3)).save(any(Policy.class));
+        verify(acknowledgment, times(1)).acknowledge();
+    }
+
+    @Test
+    @DisplayName("Should divert a failed event off the listener thread and still acknowledge it")
+    void shouldDivertFailedParallelEventAndAcknowledge() {
+        // GIVEN
+        when(policyRepository.save(any(Policy.class))).thenThrow(new IllegalStateException("connection reset"));
+
+        // WHEN
+        issuanceService.consumeParallel(record(0, "11223344", event(1L, "11223344")), acknowledgment);
+
+        // THEN
+        verify(retryRouter, timeout(5000)).divert(argThat(event -> event.getQuoteId() == 1L), any(Exception.class));
+        verify(acknowledgment, timeout(5000)).acknowledge();
+        verifyNoInteractions(webSocketHandler);
+    }
+
+    @Test
+    @DisplayName("Should keep retrying a parallel event that cannot be diverted instead of leaving it unacknowledged")
+    void shouldRetryParallelEventUntilDiverted() {
+        // GIVEN
+        when(policyRepository.save(any(Policy.class))).thenThrow(new IllegalStateException("connection reset"));
+        doThrow(new KafkaException("broker unavailable"))
+                .doThrow(new KafkaException("broker unavailable"))
+                .doNothing()
+                .when(retryRouter).divert(any(), any());
+
+        // WHEN
+        issuanceService.consumeParallel(record(0, "11223344", event(1L, "11223344")), acknowledgment);
+
+        // THEN
+        verify(acknowledgment, timeout(5000)).acknowledge();
+        verify(retryRouter, times(3)).divert(argThat(event -> event.getQuoteId() == 1L), any(Exception.class));
+        verifyNoInteractions(webSocketHandler);
+    }
+
+    @Test
+    @DisplayName("Should rethrow a failed retry so it moves on to the next retry topic, and push once a retry succeeds")
+    void shouldRethrowFailedRetryAndPushSuccessfulOne() throws Exception {
+        // GIVEN
+        when(policyRepository.save(any(Policy.class)))
+                .thenThrow(new IllegalStateException("connection reset"))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{\"status\":\"ISSUED\"}");
+        ConsumerRecord<String, InsurancePolicyEvent> retry =
+                new ConsumerRecord<>(IssuanceRetryRouter.FAILED_TOPIC, 0, 0, "11223344", event(1L, "11223344"));
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> issuanceService.consumeRetry(retry)).isInstanceOf(IllegalStateException.class).hasMessage("connection reset");
+        verify(retryRouter).recordAttempt(retry, false);
+        verifyNoInteractions(webSocketHandler);
+
+        issuanceService.consumeRetry(retry);
+        verify(retryRouter).recordAttempt(retry, true);
+        verify(webSocketHandler).sendToUser(eq("11223344"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should issue records off the listener thread and acknowledge each once saved")
+    void shouldIssueRecordsInParallelAndAcknowledgeEach() throws Exception {
+        // GIVEN
+        when(policyRepository.save(any(Policy.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{\"status\":\"ISSUED\"}");
+
+        // WHEN
+        issuanceService.consumeParallel(record(0, "11223344", event(1L, "11223344")), acknowledgment);
+        issuanceService.consumeParallel(record(1, "55667788", event(2L, "55667788")), acknowledgment);
+
+        // THEN
+        verify(acknowledgment, timeout(5000).times(2)).acknowledge();
+        verify(webSocketHandler, timeout(5000)).sendToUser(eq("11223344"), anyString());
+        verify(webSocketHandler, timeout(5000)).sendToUser(eq("55667788"), anyString());
+        verify(policyRepository, times(2)).save(any(Policy.class));
+    }
+
+    @Test
+    @DisplayName("Should drop a redelivered event for an issued quote without touching the database")
+    void shouldDropRedeliveredEvent() throws Exception {
+        // GIVEN
+        when(policyRepository.save(any(Policy.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{\"status\":\"ISSUED\"}");
+        issuanceService.consume(event(1L, "11223344"));
+
+        // WHEN
+        issuanceService.consume(event(1L, "11223344"));
+        issuanceService.consumeBatch(List.of(event(1L, "11223344")), acknowledgment);
+
+        // THEN
+        verify(policyRepository, times(1)).save(any(Policy.class));
+        verifyNoInteractions(policyWriter);
+        verify(acknowledgment).acknowledge();
+        verify(webSocketHandler, times(1)).sendToUser(eq("11223344"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should insert a poll holding already issued quotes with ON CONFLICT DO NOTHING and push only new policies")
+    void shouldSkipQuotesIssuedBeforeWithinABatch() throws Exception {
+        // GIVEN
+        when(policyWriter.insertAll(anyList())).thenThrow(new DataIntegrityViolationException("policies_quote_id_key"));
+        when(policyWriter.insertIgnoringIssuedQuotes(anyList()))
+                .thenAnswer(invocation -> List.of(invocation.<List<Policy>>getArgument(0).get(1)));
+        when(objectMapper.writeValueAsString(any())).thenReturn("{\"status\":\"ISSUED\"}");
+        List<InsurancePolicyEvent> poll = List.of(event(1L, "11223344"), event(2L, "55667788"), event(2L, "55667788"));
+
+        // WHEN
+        issuanceService.consumeBatch(poll, acknowledgment);
+        issuanceService.consumeBatch(poll, acknowledgment);
+
+        // THEN
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Policy>> policies = ArgumentCaptor.forClass(List.class);
+        verify(policyWriter, times(1)).insertIgnoringIssuedQuotes(policies.capture());
+        assertThat(policies.getValue()).extracting(Policy::getQuoteId).containsExactly(1L, 2L);
+        verify(policyWriter, times(1)).insertAll(anyList());
+        verify(acknowledgment, times(2)).acknowledge();
+        verify(webSocketHandler, never()).sendToUser(eq("11223344"), anyString());
+        verify(webSocketHandler, times(1)).sendToUser(eq("55667788"), anyString());
+    }
+
+    @Test
+    @DisplayName("Should not push a single event whose quote the database reports as issued")
+    void shouldSkipSingleEventIssuedBefore() {
+        // GIVEN
+        when(policyRepository.save(any(Policy.class))).thenThrow(new DataIntegrityViolationException("policies_quote_id_key"));
+        when(policyWriter.insertIgnoringIssuedQuotes(anyList())).thenReturn(List.of());
+
+        // WHEN
+        issuanceService.consume(event(1L, "11223344"));
+        issuanceService.consume(event(1L, "11223344"));
+
+        // THEN
+        verify(policyRepository, times(1)).save(any(Policy.class));
+        verify(policyWriter, times(1)).insertIgnoringIssuedQuotes(anyList());
+        verifyNoInteractions(webSocketHandler);
+    }
+
+    private static ConsumerRecord<String, InsurancePolicyEvent> record(long offset, String key, InsurancePolicyEvent event) {
+        return new ConsumerRecord<>(IssuanceService.KAFKA_TOPIC, 0, offset, key, event);
+    }
+
+    private static InsurancePolicyEvent event(long quoteId, String dni) {
+        return InsurancePolicyEvent.newBuilder()
+                .setQuoteId(quoteId)
+                .setDni(dni)
+                .setApprovedRiskScore(0.25)
+                .setFinalPremium(500.50)
+                .build();
+    }
 }
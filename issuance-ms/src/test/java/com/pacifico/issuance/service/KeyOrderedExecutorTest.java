@@ -0,0 +1,103 @@
+package com.pacifico.issuance.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KeyOrderedExecutorTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final KeyOrderedExecutor executor = new KeyOrderedExecutor("test", meterRegistry);
+
+    @AfterEach
+    void tearDown() {
+        executor.close();
+    }
+
+    @Test
+    @DisplayName("Should run tasks of the same key in submission order")
+    void shouldKeepOrderPerKey() throws Exception {
+        // GIVEN
+        List<Integer> completed = new CopyOnWriteArrayList<>();
+
+        // WHEN
+        CompletableFuture<?>[] tasks = IntStream.range(0, 100)
+                .mapToObj(i -> executor.submit("11223344", () -> {
+                    // Earlier tasks take longer, so any reordering would show
+                    sleep(i < 5 ? 20 : 0);
+                    completed.add(i);
+                }))
+                .toArray(CompletableFuture[]::new);
+        CompletableFuture.allOf(tasks).get(5, TimeUnit.SECONDS);
+
+        // THEN
+        assertThat(completed).containsExactlyElementsOf(IntStream.range(0, 100).boxed().toList());
+    }
+
+    @Test
+    @DisplayName("Should not hold other keys behind a blocked key")
+    void shouldRunKeysInParallel() throws Exception {
+        // GIVEN
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> blocked = executor.submit("11223344", () -> await(release));
+        CompletableFuture<Void> queuedBehind = executor.submit("11223344", () -> {});
+
+        // WHEN
+        CompletableFuture<Void> other = executor.submit("55667788", () -> {});
+
+        // THEN
+        other.get(5, TimeUnit.SECONDS);
+        assertThat(blocked).isNotDone();
+        assertThat(queuedBehind).isNotDone();
+        assertThat(meterRegistry.get("key.ordered.executor.in.flight").gauge().value()).isEqualTo(2.0);
+        release.countDown();
+        queuedBehind.get(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should keep running a key's tasks after one of them fails")
+    void shouldContinueAfterFailure() throws Exception {
+        // GIVEN
+        CompletableFuture<Void> failed = executor.submit("11223344", () -> {
+            throw new IllegalStateException("write failed");
+        });
+
+        // WHEN
+        CompletableFuture<Void> next = executor.submit("11223344", () -> {});
+
+        // THEN
+        next.get(5, TimeUnit.SECONDS);
+        assertThat(failed).isCompletedExceptionally();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("key.ordered.executor.keys").gauge().value() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(meterRegistry.get("key.ordered.executor.keys").gauge().value()).isZero();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.pacifico.issuance.service;
+
+import com.pacifico.issuance.repository.PolicyNumberBlockRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the allocator against H2 without a surrounding test transaction, so every lease
+ * commits and locks exactly as it does in production.
+ */
+@DataJpaTest(properties = "spring.cloud.config.enabled=false")
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PolicyNumberAllocatorTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(PolicyNumberAllocatorTest.class);
+
+    @Autowired
+    private PolicyNumberBlockRepository blockRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-06-01T12:00:00Z"));
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    void setUp() {
+        blockRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Should hand out consecutive numbers of the current year from one lease")
+    void shouldAllocateFromLeasedBlock() {
+        // GIVEN
+        PolicyNumberAllocator allocator = allocator(100);
+
+        // WHEN
+        List<String> numbers = IntStream.range(0, 3).mapToObj(i -> allocator.next()).toList();
+
+        // THEN
+        assertThat(numbers).containsExactly("PAC-2026-0000001", "PAC-2026-0000002", "PAC-2026-0000003");
+        assertThat(blockRepository.findById(2026).orElseThrow().getNextValue()).isEqualTo(101L);
+        assertThat(meterRegistry.get("policy.number.leases").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should lease the next block in the background once half of the current one is used")
+    void shouldPrefetchNextBlock() throws Exception {
+        // GIVEN
+        PolicyNumberAllocator allocator = allocator(100);
+
+        // WHEN
+        IntStream.range(0, 51).forEach(i -> allocator.next());
+
+        // THEN
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (meterRegistry.get("policy.number.leases").counter().count() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(meterRegistry.get("policy.number.leases").counter().count()).isEqualTo(2.0);
+        IntStream.range(51, 100).forEach(i -> allocator.next());
+        assertThat(allocator.next()).isEqualTo("PAC-2026-0000101");
+        assertThat(meterRegistry.get("policy.number.leases").counter().count()).isEqualTo(2.0);
+    }
+
+    @Test
+    @DisplayName("Should start a new sequence when the year changes")
+    void shouldPartitionNumbersByYear() {
+        // GIVEN
+        PolicyNumberAllocator allocator = allocator(100);
+        clock.set(Instant.parse("2026-12-31T23:59:59Z"));
+        allocator.next();
+
+        // WHEN
+        clock.set(Instant.parse("2027-01-01T00:00:00Z"));
+        String number = allocator.next();
+
+        // THEN
+        assertThat(number).isEqualTo("PAC-2027-0000001");
+        assertThat(blockRepository.findAll()).hasSize(2);
+    }
+
+    @Test
+    @DisplayName("Should never hand out the same number twice across instances under concurrent load")
+    void shouldAllocateUniqueNumbersUnderConcurrency() throws Exception {
+        // GIVEN
+        // Small blocks force frequent, contended leases between the two instances
+        List<PolicyNumberAllocator> instances = List.of(allocator(100), allocator(100));
+        int threads = 64;
+        int perThread = 2_000;
+        Set<String> numbers = ConcurrentHashMap.newKeySet();
+
+        // WHEN
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> tasks = IntStream.range(0, threads)
+                    .<Future<?>>mapToObj(t -> executor.submit(() -> {
+                        PolicyNumberAllocator allocator = instances.get(t % instances.size());
+                        for (int i = 0; i < perThread; i++) {
+                            numbers.add(allocator.next());
+                        }
+                    }))
+                    .toList();
+            for (Future<?> task : tasks) {
+                task.get(60, TimeUnit.SECONDS);
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+
+        // THEN
+        int total = threads * perThread;
+        logger.info("Allocated {} policy numbers in {} ms ({} numbers/s, {} leases)", total,
+                TimeUnit.NANOSECONDS.toMillis(elapsed), total * TimeUnit.SECONDS.toNanos(1) / elapsed,
+                (long) meterRegistry.get("policy.number.leases").counter().count());
+        assertThat(numbers).hasSize(total);
+        assertThat(blockRepository.findById(2026).orElseThrow().getNextValue()).isGreaterThan(total);
+    }
+
+    private PolicyNumberAllocator allocator(int blockSize) {
+        return new PolicyNumberAllocator(blockRepository, transactionManager, blockSize, meterRegistry, clock);
+    }
+
+    private static class MutableClock extends Clock {
+
+        private volatile Instant instant;
+
+        MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void set(Instant instant) {
+            this.instant = instant;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
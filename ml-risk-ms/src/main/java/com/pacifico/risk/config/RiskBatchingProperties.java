@@ -0,0 +1,22 @@
+package com.pacifico.risk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Micro-batching settings bound from the {@code risk.batching} namespace.
+ *
+ * @param enabled Whether concurrent {@code EvaluateRisk} calls are coalesced into batched inferences.
+ * @param maxBatchSize Maximum number of requests scored in a single inference.
+ * @param maxWait Upper bound of the collection window under load; the window is zero when idle.
+ * @param maxQueued Maximum number of requests waiting for a batch; beyond it requests fail with {@code RESOURCE_EXHAUSTED}.
+ */
+@ConfigurationProperties(prefix = "risk.batching")
+public record RiskBatchingProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("64") int maxBatchSize,
+        @DefaultValue("2ms") Duration maxWait,
+        @DefaultValue("1024") int maxQueued
+) {}
@@ -0,0 +1,42 @@
+package com.pacifico.risk.config;
+
+import com.pacifico.risk.inference.ScoringMode;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.core.io.Resource;
+
+/**
+ * Risk model settings bound from the {@code risk.model} namespace.
+ *
+ * @param path Location of the serialized ONNX model.
+ * @param scoringMode Scoring engine used by this deployment.
+ * @param inputPoolSize Number of preallocated input tensors shared by concurrent calls.
+ * @param warmupIterations Inferences executed at startup, before the gRPC server accepts traffic.
+ * @param lookupTable Grid used when {@code scoringMode} is {@code LOOKUP_TABLE}.
+ */
+@ConfigurationProperties(prefix = "risk.model")
+public record RiskModelProperties(
+        @DefaultValue("classpath:models/risk-model.onnx") Resource path,
+        @DefaultValue("ONNX") ScoringMode scoringMode,
+        @DefaultValue("64") int inputPoolSize,
+        @DefaultValue("200") int warmupIterations,
+        @DefaultValue LookupTable lookupTable
+) {
+
+    /**
+     * Quantized feature grid compiled from the model.
+     *
+     * @param minAge Lowest age covered; younger customers fall back to full inference.
+     * @param maxAge Highest age covered; older customers fall back to full inference.
+     * @param minCarValue Lowest car value covered.
+     * @param maxCarValue Highest car value covered.
+     * @param carValueStep Bucket width along the car value axis.
+     */
+    public record LookupTable(
+            @DefaultValue("18") int minAge,
+            @DefaultValue("99") int maxAge,
+            @DefaultValue("0") double minCarValue,
+            @DefaultValue("200000") double maxCarValue,
+            @DefaultValue("250") double carValueStep
+    ) {}
+}
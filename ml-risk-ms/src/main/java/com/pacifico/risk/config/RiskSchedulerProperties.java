@@ -0,0 +1,16 @@
+package com.pacifico.risk.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Admission control settings bound from the {@code risk.scheduler} namespace.
+ *
+ * @param maxConcurrency Maximum number of inference tasks running at once.
+ * @param queueCapacity Maximum number of tasks waiting; beyond it requests fail with {@code RESOURCE_EXHAUSTED}.
+ */
+@ConfigurationProperties(prefix = "risk.scheduler")
+public record RiskSchedulerProperties(
+        @DefaultValue("64") int maxConcurrency,
+        @DefaultValue("1000") int queueCapacity
+) {}
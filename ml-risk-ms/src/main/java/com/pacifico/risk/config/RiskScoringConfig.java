@@ -0,0 +1,79 @@
+package com.pacifico.risk.config;
+
+import ai.onnxruntime.OrtException;
+import com.pacifico.risk.inference.HeuristicRiskScorer;
+import com.pacifico.risk.inference.LookupTableRiskScorer;
+import com.pacifico.risk.inference.OnnxRiskScorer;
+import com.pacifico.risk.inference.RiskMicroBatcher;
+import com.pacifico.risk.inference.RiskScorer;
+import com.pacifico.risk.service.InferenceScheduler;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Wires the {@link RiskScorer} selected by {@code risk.model.scoring-mode}.
+ * <p>
+ * The scorer is a singleton created during context refresh, so model loading and
+ * warm-up complete before the gRPC server lifecycle starts listening.
+ */
+@Configuration
+@EnableConfigurationProperties({RiskModelProperties.class, RiskBatchingProperties.class,
+        RiskSchedulerProperties.class})
+public class RiskScoringConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(RiskScoringConfig.class);
+
+    @Bean
+    public RiskScorer riskScorer(RiskModelProperties properties, MeterRegistry meterRegistry)
+            throws IOException, OrtException {
+        logger.info("Initializing risk scorer in {} mode", properties.scoringMode());
+        return switch (properties.scoringMode()) {
+            case ONNX -> onnxScorer(properties);
+            case LOOKUP_TABLE -> lookupTableScorer(properties, meterRegistry);
+            case HEURISTIC -> new HeuristicRiskScorer();
+        };
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "risk.batching", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public RiskMicroBatcher riskMicroBatcher(RiskScorer riskScorer, RiskBatchingProperties properties,
+                                             MeterRegistry meterRegistry) {
+        return new RiskMicroBatcher(riskScorer, properties.maxBatchSize(), properties.maxWait(),
+                properties.maxQueued(), meterRegistry);
+    }
+
+    @Bean
+    public InferenceScheduler inferenceScheduler(RiskSchedulerProperties properties, MeterRegistry meterRegistry) {
+        return new InferenceScheduler(properties.maxConcurrency(), properties.queueCapacity(), meterRegistry);
+    }
+
+    private OnnxRiskScorer onnxScorer(RiskModelProperties properties) throws IOException, OrtException {
+        return new OnnxRiskScorer(readModel(properties), properties.inputPoolSize(), properties.warmupIterations());
+    }
+
+    private LookupTableRiskScorer lookupTableScorer(RiskModelProperties properties, MeterRegistry meterRegistry)
+            throws IOException, OrtException {
+        RiskModelProperties.LookupTable grid = properties.lookupTable();
+        LookupTableRiskScorer scorer = new LookupTableRiskScorer(onnxScorer(properties),
+                grid.minAge(), grid.maxAge(), grid.minCarValue(), grid.maxCarValue(), grid.carValueStep());
+        Gauge.builder("risk.lookup.table.max.error", scorer, LookupTableRiskScorer::maxQuantizationError)
+                .description("Largest difference between the lookup table and the full model")
+                .register(meterRegistry);
+        return scorer;
+    }
+
+    private byte[] readModel(RiskModelProperties properties) throws IOException {
+        try (InputStream in = properties.path().getInputStream()) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.pacifico.risk.inference;
+
+/**
+ * Rule-based scorer kept as a lightweight baseline for the ONNX model.
+ * <p>
+ * Age and car value each add a fixed risk contribution. It carries no model
+ * state, so it is mainly useful for local development and latency comparisons.
+ */
+public class HeuristicRiskScorer implements RiskScorer {
+
+    @Override
+    public double score(int age, double carValue) {
+        double score = (age < 25 ? 0.4 : 0.1) + (carValue > 50000 ? 0.4 : 0.1);
+        return Math.min(score, 1.0);
+    }
+}
@@ -0,0 +1,128 @@
+package com.pacifico.risk.inference;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * {@link RiskScorer} "compiled" from another scorer into a dense lookup table.
+ * <p>
+ * At construction the source model is evaluated once over a quantized grid of
+ * {@code age x car_value} and the results are stored in a flat {@code double[]}:
+ * ages are integers and map to exact rows, car values are bucketed with a fixed step
+ * and linearly interpolated between the two surrounding grid nodes. Scoring inside the
+ * grid is a couple of array reads with no allocation; inputs outside the grid fall back
+ * to the source model, so the table never extrapolates.
+ * <p>
+ * The maximum quantization error is measured at build time by comparing the table with
+ * the source model at interior points of every cell.
+ */
+public class LookupTableRiskScorer implements RiskScorer {
+
+    private static final Logger logger = LoggerFactory.getLogger(LookupTableRiskScorer.class);
+
+    /** Interior positions of each cell probed to measure the quantization error. */
+    private static final double[] PROBE_FRACTIONS = {0.25, 0.5, 0.75};
+
+    private final RiskScorer source;
+    private final int minAge;
+    private final int maxAge;
+    private final double minCarValue;
+    private final double maxCarValue;
+    private final double inverseCarValueStep;
+    private final int carValueNodes;
+    private final double[] table;
+    private final double maxQuantizationError;
+
+    /**
+     * Builds the table by evaluating {@code source} on every grid node.
+     *
+     * @param source The model to compile; also used for inputs outside the grid.
+     * @param minAge Lowest age covered by the table.
+     * @param maxAge Highest age covered by the table.
+     * @param minCarValue Lowest car value covered by the table.
+     * @param maxCarValue Highest car value covered by the table.
+     * @param carValueStep Distance between two car value grid nodes.
+     */
+    public LookupTableRiskScorer(RiskScorer source, int minAge, int maxAge,
+                                 double minCarValue, double maxCarValue, double carValueStep) {
+        if (maxAge < minAge || maxCarValue <= minCarValue || carValueStep <= 0) {
+            throw new IllegalArgumentException("Invalid lookup table grid");
+        }
+        this.source = source;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+        this.minCarValue = minCarValue;
+        this.carValueNodes = (int) Math.ceil((maxCarValue - minCarValue) / carValueStep) + 1;
+        this.maxCarValue = minCarValue + (carValueNodes - 1) * carValueStep;
+        this.inverseCarValueStep = 1.0 / carValueStep;
+
+        long start = System.nanoTime();
+        this.table = compile(carValueStep);
+        this.maxQuantizationError = measureError(carValueStep);
+
+        logger.info("Compiled risk lookup table: {} ages x {} car value nodes ({} KB) in {} ms, max quantization error {}",
+                maxAge - minAge + 1, carValueNodes, table.length * Double.BYTES / 1024,
+                (System.nanoTime() - start) / 1_000_000, maxQuantizationError);
+    }
+
+    @Override
+    public double score(int age, double carValue) {
+        if (age < minAge || age > maxAge || !(carValue >= minCarValue && carValue <= maxCarValue)) {
+            return source.score(age, carValue);
+        }
+        double position = (carValue - minCarValue) * inverseCarValueStep;
+        int cell = Math.min((int) position, carValueNodes - 2);
+        double fraction = position - cell;
+        int index = (age - minAge) * carValueNodes + cell;
+        double lower = table[index];
+        return lower + (table[index + 1] - lower) * fraction;
+    }
+
+    /**
+     * @return The largest absolute difference observed between the table and the source model.
+     */
+    public double maxQuantizationError() {
+        return maxQuantizationError;
+    }
+
+    @Override
+    public void close() {
+        source.close();
+    }
+
+    private double[] compile(double carValueStep) {
+        int rows = (maxAge - minAge + 1) * carValueNodes;
+        int[] ages = new int[rows];
+        double[] carValues = new double[rows];
+        for (int age = minAge, row = 0; age <= maxAge; age++) {
+            for (int node = 0; node < carValueNodes; node++, row++) {
+                ages[row] = age;
+                carValues[row] = minCarValue + node * carValueStep;
+            }
+        }
+        return source.scoreBatch(ages, carValues);
+    }
+
+    private double measureError(double carValueStep) {
+        int rows = (maxAge - minAge + 1) * (carValueNodes - 1) * PROBE_FRACTIONS.length;
+        int[] ages = new int[rows];
+        double[] carValues = new double[rows];
+        int row = 0;
+        for (int age = minAge; age <= maxAge; age++) {
+            for (int cell = 0; cell < carValueNodes - 1; cell++) {
+                for (double fraction : PROBE_FRACTIONS) {
+                    ages[row] = age;
+                    carValues[row] = minCarValue + (cell + fraction) * carValueStep;
+                    row++;
+                }
+            }
+        }
+
+        double[] expected = source.scoreBatch(ages, carValues);
+        double maxError = 0;
+        for (int i = 0; i < rows; i++) {
+            maxError = Math.max(maxError, Math.abs(score(ages[i], carValues[i]) - expected[i]));
+        }
+        return maxError;
+    }
+}
@@ -0,0 +1,156 @@
+package com.pacifico.risk.inference;
+
+import ai.onnxruntime.OnnxTensor;
+import ai.onnxruntime.OrtEnvironment;
+import ai.onnxruntime.OrtException;
+import ai.onnxruntime.OrtSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * {@link RiskScorer} backed by a real ONNX model running on ONNX Runtime (CPU only).
+ * <p>
+ * The model is loaded once and served through a single thread-safe {@link OrtSession}.
+ * Input tensors are preallocated over direct buffers and pooled, so a request only
+ * writes its two features into native memory before calling {@code run}.
+ * <p>
+ * Model contract: input {@code features} of shape {@code [N, 2]} holding
+ * {@code (age, car_value)} as floats, output {@code probability} of shape {@code [N, 1]}.
+ */
+public class OnnxRiskScorer implements RiskScorer {
+
+    private static final Logger logger = LoggerFactory.getLogger(OnnxRiskScorer.class);
+
+    static final String INPUT_NAME = "features";
+    static final int FEATURE_COUNT = 2;
+
+    private final OrtEnvironment environment;
+    private final OrtSession session;
+    private final BlockingQueue<InputSlot> inputSlots;
+
+    /**
+     * Loads the model, preallocates the input pool and runs the warm-up inferences.
+     *
+     * @param modelBytes The serialized ONNX model.
+     * @param inputPoolSize Number of preallocated single-row input tensors.
+     * @param warmupIterations Inferences executed before the scorer is handed out.
+     * @throws OrtException if the model cannot be loaded by ONNX Runtime.
+     */
+    public OnnxRiskScorer(byte[] modelBytes, int inputPoolSize, int warmupIterations) throws OrtException {
+        this.environment = OrtEnvironment.getEnvironment();
+        try (OrtSession.SessionOptions options = new OrtSession.SessionOptions()) {
+            options.setOptimizationLevel(OrtSession.SessionOptions.OptLevel.ALL_OPT);
+            options.setExecutionMode(OrtSession.SessionOptions.ExecutionMode.SEQUENTIAL);
+            // Tiny model: intra-op parallelism costs more in hand-offs than it saves.
+            options.setIntraOpNumThreads(1);
+            this.session = environment.createSession(modelBytes, options);
+        }
+
+        this.inputSlots = new ArrayBlockingQueue<>(inputPoolSize);
+        for (int i = 0; i < inputPoolSize; i++) {
+            inputSlots.add(new InputSlot(environment));
+        }
+
+        warmUp(warmupIterations);
+    }
+
+    @Override
+    public double score(int age, double carValue) {
+        InputSlot slot = acquire();
+        try {
+            slot.buffer.put(0, age);
+            slot.buffer.put(1, (float) carValue);
+            try (OrtSession.Result result = session.run(slot.inputs)) {
+                return ((OnnxTensor) result.get(0)).getFloatBuffer().get(0);
+            }
+        } catch (OrtException e) {
+            throw new IllegalStateException("ONNX inference failed", e);
+        } finally {
+            inputSlots.offer(slot);
+        }
+    }
+
+    /**
+     * Scores all rows with one {@code run} over an {@code [N, 2]} feature matrix.
+     */
+    @Override
+    public double[] scoreBatch(int[] ages, double[] carValues) {
+        int rows = ages.length;
+        float[] features = new float[rows * FEATURE_COUNT];
+        for (int i = 0; i < rows; i++) {
+            features[i * FEATURE_COUNT] = ages[i];
+            features[i * FEATURE_COUNT + 1] = (float) carValues[i];
+        }
+
+        try (OnnxTensor input = OnnxTensor.createTensor(environment, FloatBuffer.wrap(features), new long[]{rows, FEATURE_COUNT});
+             OrtSession.Result result = session.run(Map.of(INPUT_NAME, input))) {
+            FloatBuffer output = ((OnnxTensor) result.get(0)).getFloatBuffer();
+            double[] scores = new double[rows];
+            for (int i = 0; i < rows; i++) {
+                scores[i] = output.get(i);
+            }
+            return scores;
+        } catch (OrtException e) {
+            throw new IllegalStateException("ONNX batch inference failed", e);
+        }
+    }
+
+    @Override
+    public void close() {
+        InputSlot slot;
+        while ((slot = inputSlots.poll()) != null) {
+            slot.tensor.close();
+        }
+        try {
+            session.close();
+        } catch (OrtException e) {
+            logger.warn("Error closing ONNX session", e);
+        }
+    }
+
+    /**
+     * Runs inferences across the feature range so that JIT compilation and the
+     * native allocator are settled before the first production request.
+     */
+    private void warmUp(int iterations) {
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            score(18 + (i % 82), 5_000.0 + (i * 997.0) % 95_000.0);
+        }
+        logger.info("ONNX risk model warmed up with {} inferences in {} ms",
+                iterations, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private InputSlot acquire() {
+        try {
+            return inputSlots.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for an input tensor", e);
+        }
+    }
+
+    /**
+     * Single-row input tensor whose native memory is shared with {@code buffer}.
+     */
+    private static final class InputSlot {
+        private final FloatBuffer buffer;
+        private final OnnxTensor tensor;
+        private final Map<String, OnnxTensor> inputs;
+
+        private InputSlot(OrtEnvironment environment) throws OrtException {
+            this.buffer = ByteBuffer.allocateDirect(FEATURE_COUNT * Float.BYTES)
+                    .order(ByteOrder.nativeOrder())
+                    .asFloatBuffer();
+            this.tensor = OnnxTensor.createTensor(environment, buffer, new long[]{1, FEATURE_COUNT});
+            this.inputs = Map.of(INPUT_NAME, tensor);
+        }
+    }
+}
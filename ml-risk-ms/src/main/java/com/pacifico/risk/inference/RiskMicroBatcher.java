@@ -0,0 +1,181 @@
+package com.pacifico.risk.inference;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coalesces concurrent single-row scoring requests into batched {@link RiskScorer#scoreBatch} runs.
+ * <p>
+ * A collector thread takes the first pending request and keeps gathering arrivals until
+ * the batch is full or the collection window elapses. The window adapts to traffic:
+ * while recent batches hold a single request (idle traffic) it shrinks to zero, so a lone
+ * request is dispatched immediately; once batches start filling up it grows back to the
+ * configured maximum. Each batch is scored on a virtual thread and the results are fanned
+ * back out to the per-request futures.
+ * <p>
+ * At most {@code maxQueued} requests wait for a batch; beyond that they fail with a
+ * {@link RejectedExecutionException} and are counted in {@code risk.batch.rejected}.
+ */
+public class RiskMicroBatcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(RiskMicroBatcher.class);
+
+    /** Smoothing factor of the average batch size used to detect idle traffic. */
+    private static final double EWMA_ALPHA = 0.2;
+    /** Below this average batch size the traffic is considered idle and the window is zero. */
+    private static final double IDLE_BATCH_SIZE = 1.5;
+
+    private final RiskScorer riskScorer;
+    private final int maxBatchSize;
+    private final long maxWaitNanos;
+    private final BlockingQueue<PendingScore> queue;
+    private final ExecutorService batchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final DistributionSummary batchSizeSummary;
+    private final Timer queueWaitTimer;
+    private final Counter rejectedCounter;
+    private final Thread collector;
+
+    private volatile boolean running = true;
+    /** Only read and written by the collector thread. */
+    private double averageBatchSize = 1.0;
+
+    public RiskMicroBatcher(RiskScorer riskScorer, int maxBatchSize, Duration maxWait, int maxQueued,
+                            MeterRegistry meterRegistry) {
+        this.riskScorer = riskScorer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxWaitNanos = maxWait.toNanos();
+        this.queue = new LinkedBlockingQueue<>(maxQueued);
+        this.batchSizeSummary = DistributionSummary.builder("risk.batch.size")
+                .description("Number of requests scored per batched inference")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("risk.batch.queue.wait")
+                .description("Time a request waits in the micro-batch queue before scoring")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("risk.batch.rejected")
+                .description("Requests rejected because the micro-batch queue was full")
+                .register(meterRegistry);
+        this.collector = Thread.ofVirtual().name("risk-micro-batcher").start(this::collect);
+    }
+
+    /**
+     * Enqueues a scoring request for the next batch.
+     *
+     * @param age The age of the customer.
+     * @param carValue The appraised value of the vehicle.
+     * @return A future completed with the probability score once its batch is scored, or
+     *         failed with a {@link RejectedExecutionException} when the queue is full.
+     */
+    public CompletableFuture<Double> submit(int age, double carValue) {
+        PendingScore pending = new PendingScore(age, carValue, System.nanoTime(), new CompletableFuture<>());
+        if (!running) {
+            pending.result().completeExceptionally(new IllegalStateException("Micro-batcher is shut down"));
+            return pending.result();
+        }
+        if (!queue.offer(pending)) {
+            rejectedCounter.increment();
+            pending.result().completeExceptionally(new RejectedExecutionException("Micro-batch queue is full"));
+            return pending.result();
+        }
+        // A close() racing this call may have drained the queue before the add: whoever
+        // removes the request from the queue fails it, so it is never left pending
+        if (!running && queue.remove(pending)) {
+            pending.result().completeExceptionally(new IllegalStateException("Micro-batcher is shut down"));
+        }
+        return pending.result();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        collector.interrupt();
+        List<PendingScore> abandoned = new ArrayList<>();
+        queue.drainTo(abandoned);
+        abandoned.forEach(p -> p.result().completeExceptionally(new IllegalStateException("Micro-batcher is shut down")));
+        batchExecutor.shutdown();
+    }
+
+    private void collect() {
+        List<PendingScore> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                PendingScore first = queue.take();
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - batch.size());
+
+                long windowNanos = averageBatchSize < IDLE_BATCH_SIZE ? 0 : maxWaitNanos;
+                long deadline = first.enqueuedAt() + windowNanos;
+                while (batch.size() < maxBatchSize) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    PendingScore next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                }
+
+                averageBatchSize += EWMA_ALPHA * (batch.size() - averageBatchSize);
+                List<PendingScore> ready = List.copyOf(batch);
+                batch.clear();
+                try {
+                    batchExecutor.execute(() -> score(ready));
+                } catch (RejectedExecutionException e) {
+                    // Closed while this batch was being collected
+                    ready.forEach(p -> p.result().completeExceptionally(new IllegalStateException("Micro-batcher is shut down")));
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                batch.forEach(p -> p.result().completeExceptionally(new IllegalStateException("Micro-batcher is shut down")));
+                return;
+            }
+        }
+    }
+
+    private void score(List<PendingScore> batch) {
+        long dispatchedAt = System.nanoTime();
+        int size = batch.size();
+        int[] ages = new int[size];
+        double[] carValues = new double[size];
+        for (int i = 0; i < size; i++) {
+            PendingScore pending = batch.get(i);
+            ages[i] = pending.age();
+            carValues[i] = pending.carValue();
+            queueWaitTimer.record(dispatchedAt - pending.enqueuedAt(), TimeUnit.NANOSECONDS);
+        }
+        batchSizeSummary.record(size);
+
+        try {
+            double[] scores = riskScorer.scoreBatch(ages, carValues);
+            for (int i = 0; i < size; i++) {
+                batch.get(i).result().complete(scores[i]);
+            }
+        } catch (Exception e) {
+            logger.error("Error during batched inference of {} requests", size, e);
+            batch.forEach(p -> p.result().completeExceptionally(e));
+        }
+    }
+
+    private record PendingScore(int age, double carValue, long enqueuedAt, CompletableFuture<Double> result) {
+    }
+}
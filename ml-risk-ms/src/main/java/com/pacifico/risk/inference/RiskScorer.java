@@ -0,0 +1,44 @@
+package com.pacifico.risk.inference;
+
+/**
+ * Contract for the risk scoring engines backing {@code RiskInferenceService}.
+ * <p>
+ * Implementations must be thread-safe: a single instance is shared by every
+ * concurrent gRPC call handled by the server.
+ */
+public interface RiskScorer extends AutoCloseable {
+
+    /**
+     * Computes the probability of risk for a single customer profile.
+     *
+     * @param age The age of the customer.
+     * @param carValue The appraised value of the vehicle.
+     * @return A probability score between 0.0 and 1.0.
+     */
+    double score(int age, double carValue);
+
+    /**
+     * Computes risk probabilities for a batch of customer profiles in a single pass.
+     * <p>
+     * The default implementation scores row by row; engines with a vectorised
+     * path should override it.
+     *
+     * @param ages Customer ages, one per row.
+     * @param carValues Vehicle values, positionally matched with {@code ages}.
+     * @return Probability scores in the same order as the input rows.
+     */
+    default double[] scoreBatch(int[] ages, double[] carValues) {
+        double[] scores = new double[ages.length];
+        for (int i = 0; i < ages.length; i++) {
+            scores[i] = score(ages[i], carValues[i]);
+        }
+        return scores;
+    }
+
+    /**
+     * Releases any native resources held by the scorer. No-op by default.
+     */
+    @Override
+    default void close() {
+    }
+}
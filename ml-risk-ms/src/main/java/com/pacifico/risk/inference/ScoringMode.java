@@ -0,0 +1,13 @@
+package com.pacifico.risk.inference;
+
+/**
+ * Scoring engine selectable per deployment through {@code risk.model.scoring-mode}.
+ */
+public enum ScoringMode {
+    /** Full inference through ONNX Runtime on CPU. */
+    ONNX,
+    /** ONNX model compiled into a quantized {@code age x car_value} lookup table at load time. */
+    LOOKUP_TABLE,
+    /** Rule-based baseline, no model required. */
+    HEURISTIC
+}
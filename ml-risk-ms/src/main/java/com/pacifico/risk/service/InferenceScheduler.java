@@ -0,0 +1,132 @@
+package com.pacifico.risk.service;
+
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Bounded, deadline-aware executor for inference work with load shedding.
+ * <p>
+ * At most {@code maxConcurrency} tasks run at once on virtual threads and at most
+ * {@code queueCapacity} wait behind them. Work is shed instead of queued without limit:
+ * <ul>
+ *     <li>{@code DEADLINE_EXCEEDED} when the caller's gRPC {@link Context} deadline has already
+ *     passed, checked both on submission and again when the task leaves the queue;</li>
+ *     <li>{@code CANCELLED} when the client went away while the task was queued;</li>
+ *     <li>{@code RESOURCE_EXHAUSTED} when the queue is full.</li>
+ * </ul>
+ * In every case no compute is spent on the shed request.
+ */
+public class InferenceScheduler implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(InferenceScheduler.class);
+
+    private final ThreadPoolExecutor executor;
+    private final Timer queueWaitTimer;
+    private final Counter expiredCounter;
+    private final Counter cancelledCounter;
+    private final Counter queueFullCounter;
+
+    public InferenceScheduler(int maxConcurrency, int queueCapacity, MeterRegistry meterRegistry) {
+        this.executor = new ThreadPoolExecutor(maxConcurrency, maxConcurrency,
+                30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                Thread.ofVirtual().name("inference-", 0).factory(),
+                new ThreadPoolExecutor.AbortPolicy());
+        this.executor.allowCoreThreadTimeOut(true);
+
+        Gauge.builder("risk.scheduler.queue.depth", executor, e -> e.getQueue().size())
+                .description("Inference tasks waiting for a free slot")
+                .register(meterRegistry);
+        this.queueWaitTimer = Timer.builder("risk.scheduler.queue.wait")
+                .description("Time an inference task spends queued before running")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.expiredCounter = shedCounter(meterRegistry, "deadline_exceeded");
+        this.cancelledCounter = shedCounter(meterRegistry, "cancelled");
+        this.queueFullCounter = shedCounter(meterRegistry, "queue_full");
+    }
+
+    /**
+     * Schedules an inference task on behalf of the current gRPC call.
+     *
+     * @param task The inference work.
+     * @return A future with the task result, or failed with a {@link io.grpc.StatusRuntimeException}
+     *         when the request is shed.
+     */
+    public <T> CompletableFuture<T> submit(Supplier<T> task) {
+        Context context = Context.current();
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        if (isExpired(context)) {
+            expiredCounter.increment();
+            result.completeExceptionally(Status.DEADLINE_EXCEEDED
+                    .withDescription("Deadline expired before inference was scheduled").asRuntimeException());
+            return result;
+        }
+
+        long enqueuedAt = System.nanoTime();
+        try {
+            executor.execute(() -> run(context, enqueuedAt, task, result));
+        } catch (RejectedExecutionException e) {
+            queueFullCounter.increment();
+            logger.warn("Inference queue full ({} waiting), shedding request", executor.getQueue().size());
+            result.completeExceptionally(Status.RESOURCE_EXHAUSTED
+                    .withDescription("Inference queue is full").asRuntimeException());
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private <T> void run(Context context, long enqueuedAt, Supplier<T> task, CompletableFuture<T> result) {
+        queueWaitTimer.record(System.nanoTime() - enqueuedAt, TimeUnit.NANOSECONDS);
+
+        if (isExpired(context)) {
+            expiredCounter.increment();
+            result.completeExceptionally(Status.DEADLINE_EXCEEDED
+                    .withDescription("Deadline expired while queued for inference").asRuntimeException());
+            return;
+        }
+        if (context.isCancelled()) {
+            cancelledCounter.increment();
+            result.completeExceptionally(Status.CANCELLED
+                    .withDescription("Call cancelled while queued for inference").asRuntimeException());
+            return;
+        }
+
+        try {
+            result.complete(task.get());
+        } catch (Throwable t) {
+            result.completeExceptionally(t);
+        }
+    }
+
+    private static boolean isExpired(Context context) {
+        Deadline deadline = context.getDeadline();
+        return deadline != null && deadline.isExpired();
+    }
+
+    private static Counter shedCounter(MeterRegistry meterRegistry, String reason) {
+        return Counter.builder("risk.scheduler.shed")
+                .description("Inference requests rejected without spending compute")
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+}
@@ -1,71 +1,184 @@
 package com.pacifico.risk.service;
 
+import com.pacifico.risk.RiskBatchRequest;
+import com.pacifico.risk.RiskBatchResponse;
 import com.pacifico.risk.RiskInferenceServiceGrpc;
 import com.pacifico.risk.RiskRequest;
 import com.pacifico.risk.RiskResponse;
+import com.pacifico.risk.inference.RiskMicroBatcher;
+import com.pacifico.risk.inference.RiskScorer;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import net.devh.boot.grpc.server.service.GrpcService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
 
 /**
  * Implementation of the {@link RiskInferenceServiceGrpc} for high-performance risk scoring.
  * <p>
- * This service acts as a mock for a Machine Learning model (e.g., ONNX, TensorFlow).
- * It uses Project Loom's Virtual Threads to provide non-blocking execution for 
- * inference tasks, ensuring that the gRPC server threads are not held up during 
- * computation-heavy operations.
+ * Scoring is delegated to the configured {@link RiskScorer}, by default an ONNX model
+ * loaded and warmed up at startup. It uses Project Loom's Virtual Threads to provide
+ * non-blocking execution for inference tasks, ensuring that the gRPC server threads are
+ * not held up during computation-heavy operations. All inference work passes through the
+ * {@link InferenceScheduler}, which sheds expired or excess requests before any compute is spent.
  */
 @GrpcService
 public class RiskInferenceServiceImpl extends RiskInferenceServiceGrpc.RiskInferenceServiceImplBase {
 
     private static final Logger logger = LoggerFactory.getLogger(RiskInferenceServiceImpl.class);
+
+    /**
+     * Maximum number of {@code StreamRisk} requests pulled from a client but not yet answered.
+     */
+    static final int STREAM_MAX_IN_FLIGHT = 64;
     
     /**
-     * Dedicated executor for inference tasks using Virtual Threads.
-     * This allows scaling highly concurrent risk assessment requests with minimal resource overhead.
+     * Bounded executor for inference tasks using Virtual Threads.
+     * This allows scaling highly concurrent risk assessment requests while shedding overload early.
+     */
+    private final InferenceScheduler inferenceScheduler;
+
+    private final RiskScorer riskScorer;
+
+    /**
+     * Coalesces concurrent calls into batched inferences when {@code risk.batching.enabled} is set.
      */
-    private final ExecutorService inferenceExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Optional<RiskMicroBatcher> microBatcher;
+
+    public RiskInferenceServiceImpl(RiskScorer riskScorer, Optional<RiskMicroBatcher> microBatcher,
+                                    InferenceScheduler inferenceScheduler) {
+        this.riskScorer = riskScorer;
+        this.microBatcher = microBatcher;
+        this.inferenceScheduler = inferenceScheduler;
+    }
 
     /**
      * Evaluates the risk score for a specific customer based on automotive profile data.
      * <p>
-     * The processing is offloaded to the {@code inferenceExecutor} to maintain gRPC responsiveness.
+     * The processing is admitted by the {@code inferenceScheduler} and then handed to the
+     * micro-batcher when enabled, so gRPC threads are never held by inference.
      *
      * @param request The risk evaluation request containing customer DNI and vehicle data.
      * @param responseObserver Observer for the risk inference results.
      */
     @Override
     public void evaluateRisk(RiskRequest request, StreamObserver<RiskResponse> responseObserver) {
-        inferenceExecutor.submit(() -> {
-            try {
-                logger.info("Evaluating risk for DNI: {}", request.getDni());
-                
-                // MOCK ML Logic (Simulating ONNX Runtime)
-                double score = calculateMockScore(request);
-                String riskLevel = determineRiskLevel(score);
-
-                RiskResponse response = RiskResponse.newBuilder()
-                        .setProbabilityScore(score)
-                        .setRiskLevel(riskLevel)
-                        .build();
-
-                responseObserver.onNext(response);
-                responseObserver.onCompleted();
-            } catch (Exception e) {
-                logger.error("Error during inference", e);
-                responseObserver.onError(e);
+        logger.info("Evaluating risk for DNI: {}", request.getDni());
+
+        scoreAsync(request).whenComplete((score, error) -> respond(responseObserver, score, error));
+    }
+
+    /**
+     * Scores a whole batch of customer profiles with a single vectorised inference.
+     * <p>
+     * Responses are positionally matched with {@code request.getRequestsList()}. The
+     * batch bypasses the micro-batcher since it is already a full feature matrix.
+     *
+     * @param request The batch of risk evaluation requests.
+     * @param responseObserver Observer for the batched risk inference results.
+     */
+    @Override
+    public void evaluateRiskBatch(RiskBatchRequest request, StreamObserver<RiskBatchResponse> responseObserver) {
+        int size = request.getRequestsCount();
+        logger.info("Evaluating risk batch of {} requests", size);
+
+        inferenceScheduler.submit(() -> {
+            int[] ages = new int[size];
+            double[] carValues = new double[size];
+            for (int i = 0; i < size; i++) {
+                RiskRequest item = request.getRequests(i);
+                ages[i] = item.getAge();
+                carValues[i] = item.getCarValue();
             }
+
+            double[] scores = size == 0 ? new double[0] : riskScorer.scoreBatch(ages, carValues);
+
+            RiskBatchResponse.Builder response = RiskBatchResponse.newBuilder();
+            for (double score : scores) {
+                response.addResponses(responseBuilder(score));
+            }
+            return response.build();
+        }).whenComplete((response, error) -> {
+            if (error != null) {
+                onInferenceError(responseObserver, error);
+                return;
+            }
+            responseObserver.onNext(response);
+            responseObserver.onCompleted();
         });
     }
 
-    private double calculateMockScore(RiskRequest request) {
-        // Simple mock logic: age and car value impact risk
-        double score = (request.getAge() < 25 ? 0.4 : 0.1) + (request.getCarValue() > 50000 ? 0.4 : 0.1);
-        return Math.min(score, 1.0);
+    /**
+     * Scores a continuous stream of requests over a single long-lived HTTP/2 stream.
+     * <p>
+     * Each response echoes the {@code request_id} of its request and may be emitted out of
+     * order. Inbound flow control is handled by {@link RiskStreamHandler}, which never holds
+     * more than {@link #STREAM_MAX_IN_FLIGHT} unanswered requests per stream.
+     *
+     * @param responseObserver Observer for the streamed risk inference results.
+     * @return The observer receiving the client's risk requests.
+     */
+    @Override
+    public StreamObserver<RiskRequest> streamRisk(StreamObserver<RiskResponse> responseObserver) {
+        return new RiskStreamHandler((ServerCallStreamObserver<RiskResponse>) responseObserver,
+                request -> scoreAsync(request).thenApply(score -> responseBuilder(score)
+                        .setRequestId(request.getRequestId())
+                        .build()),
+                STREAM_MAX_IN_FLIGHT);
+    }
+
+    /**
+     * Admits a single-row scoring through the {@code inferenceScheduler}, then scores it via the
+     * micro-batcher when enabled or directly otherwise.
+     * <p>
+     * A batched request holds its scheduler slot only while it is handed to the micro-batcher,
+     * not while its batch collects and runs, so the scheduler's concurrency limit does not cap
+     * the batch size.
+     */
+    private CompletableFuture<Double> scoreAsync(RiskRequest request) {
+        if (microBatcher.isEmpty()) {
+            return inferenceScheduler.submit(() -> riskScorer.score(request.getAge(), request.getCarValue()));
+        }
+        RiskMicroBatcher batcher = microBatcher.get();
+        return inferenceScheduler.submit(() -> batcher.submit(request.getAge(), request.getCarValue()))
+                .thenCompose(Function.identity());
+    }
+
+    private void respond(StreamObserver<RiskResponse> responseObserver, Double score, Throwable error) {
+        if (error != null) {
+            onInferenceError(responseObserver, error);
+            return;
+        }
+
+        responseObserver.onNext(responseBuilder(score).build());
+        responseObserver.onCompleted();
+    }
+
+    private void onInferenceError(StreamObserver<?> responseObserver, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (cause instanceof RejectedExecutionException) {
+            cause = Status.RESOURCE_EXHAUSTED.withDescription(cause.getMessage()).asRuntimeException();
+        }
+        if (cause instanceof StatusRuntimeException shed) {
+            logger.warn("Inference request shed: {}", shed.getStatus());
+        } else {
+            logger.error("Error during inference", cause);
+        }
+        responseObserver.onError(cause);
+    }
+
+    private RiskResponse.Builder responseBuilder(double score) {
+        return RiskResponse.newBuilder()
+                .setProbabilityScore(score)
+                .setRiskLevel(determineRiskLevel(score));
     }
 
     private String determineRiskLevel(double score) {
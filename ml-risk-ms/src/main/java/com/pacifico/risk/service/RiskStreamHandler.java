@@ -0,0 +1,146 @@
+package com.pacifico.risk.service;
+
+import com.pacifico.risk.RiskRequest;
+import com.pacifico.risk.RiskResponse;
+import io.grpc.Status;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Inbound side of a {@code StreamRisk} call with manual gRPC flow control.
+ * <p>
+ * Automatic inbound requests are disabled: the handler pulls {@code maxInFlight}
+ * requests up front and then exactly one more for every response the transport
+ * accepts. When the client stops reading, {@code isReady()} turns false, responses
+ * stay in a queue bounded by {@code maxInFlight} and no further requests are pulled,
+ * so a slow consumer cannot make the server buffer without limit. The
+ * {@code onReadyHandler} resumes draining once the client catches up.
+ */
+class RiskStreamHandler implements StreamObserver<RiskRequest> {
+
+    private static final Logger logger = LoggerFactory.getLogger(RiskStreamHandler.class);
+
+    private final ServerCallStreamObserver<RiskResponse> responseObserver;
+    private final Function<RiskRequest, CompletableFuture<RiskResponse>> scorer;
+
+    /** Guards the fields below; a lock rather than {@code synchronized} so virtual threads do not pin. */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Queue<RiskResponse> readyResponses = new ArrayDeque<>();
+    private int outstanding;
+    private boolean halfClosed;
+    private boolean terminated;
+
+    RiskStreamHandler(ServerCallStreamObserver<RiskResponse> responseObserver,
+                      Function<RiskRequest, CompletableFuture<RiskResponse>> scorer,
+                      int maxInFlight) {
+        this.responseObserver = responseObserver;
+        this.scorer = scorer;
+        responseObserver.disableAutoRequest();
+        responseObserver.setOnReadyHandler(this::drain);
+        responseObserver.setOnCancelHandler(this::cancel);
+        responseObserver.request(maxInFlight);
+    }
+
+    @Override
+    public void onNext(RiskRequest request) {
+        lock.lock();
+        try {
+            outstanding++;
+        } finally {
+            lock.unlock();
+        }
+
+        scorer.apply(request).whenComplete((response, error) -> {
+            if (error != null) {
+                fail(error);
+                return;
+            }
+            lock.lock();
+            try {
+                readyResponses.add(response);
+            } finally {
+                lock.unlock();
+            }
+            drain();
+        });
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        logger.warn("Risk stream aborted by client: {}", Status.fromThrowable(t));
+        cancel();
+    }
+
+    @Override
+    public void onCompleted() {
+        lock.lock();
+        try {
+            halfClosed = true;
+        } finally {
+            lock.unlock();
+        }
+        drain();
+    }
+
+    /**
+     * Writes as many queued responses as the transport accepts, pulling one request per write.
+     */
+    private void drain() {
+        lock.lock();
+        try {
+            if (terminated) {
+                return;
+            }
+            while (!readyResponses.isEmpty() && responseObserver.isReady()) {
+                responseObserver.onNext(readyResponses.poll());
+                outstanding--;
+                if (!halfClosed) {
+                    responseObserver.request(1);
+                }
+            }
+            if (halfClosed && outstanding == 0) {
+                terminated = true;
+                responseObserver.onCompleted();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void fail(Throwable error) {
+        lock.lock();
+        try {
+            if (terminated) {
+                return;
+            }
+            terminated = true;
+            readyResponses.clear();
+            Status status = Status.fromThrowable(error);
+            if (status.getCode() == Status.Code.UNKNOWN) {
+                logger.error("Error during streamed inference", error);
+                status = Status.INTERNAL.withDescription("Streamed inference failed").withCause(error);
+            }
+            responseObserver.onError(status.asRuntimeException());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void cancel() {
+        lock.lock();
+        try {
+            terminated = true;
+            readyResponses.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
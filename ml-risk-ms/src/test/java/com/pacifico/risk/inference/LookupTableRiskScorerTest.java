@@ -0,0 +1,84 @@
+package com.pacifico.risk.inference;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LookupTableRiskScorerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(LookupTableRiskScorerTest.class);
+
+    private static OnnxRiskScorer onnxScorer;
+    private static LookupTableRiskScorer lookupTable;
+
+    @BeforeAll
+    static void compileModel() throws Exception {
+        try (InputStream in = LookupTableRiskScorerTest.class.getResourceAsStream("/models/risk-model.onnx")) {
+            onnxScorer = new OnnxRiskScorer(in.readAllBytes(), 8, 200);
+        }
+        lookupTable = new LookupTableRiskScorer(onnxScorer, 18, 99, 0, 200_000, 250);
+    }
+
+    @AfterAll
+    static void close() {
+        lookupTable.close();
+    }
+
+    @Test
+    @DisplayName("Should report a small quantization error for the checked-in model")
+    void shouldReportQuantizationError() {
+        assertThat(lookupTable.maxQuantizationError()).isPositive().isLessThan(1e-3);
+    }
+
+    @Test
+    @DisplayName("Should match the full model inside the grid within the reported error")
+    void shouldMatchModelInsideGrid() {
+        double tolerance = lookupTable.maxQuantizationError() + 1e-6;
+        for (int age = 18; age <= 99; age += 7) {
+            for (double carValue = 0; carValue <= 200_000; carValue += 3_333.3) {
+                assertThat(lookupTable.score(age, carValue))
+                        .isCloseTo(onnxScorer.score(age, carValue), within(tolerance));
+            }
+        }
+        // Grid nodes are exact
+        assertThat(lookupTable.score(30, 10_000.0)).isCloseTo(onnxScorer.score(30, 10_000.0), within(1e-9));
+    }
+
+    @Test
+    @DisplayName("Should fall back to the full model outside the grid")
+    void shouldFallBackOutsideGrid() {
+        assertThat(lookupTable.score(17, 20_000.0)).isEqualTo(onnxScorer.score(17, 20_000.0));
+        assertThat(lookupTable.score(40, 250_000.0)).isEqualTo(onnxScorer.score(40, 250_000.0));
+        assertThat(lookupTable.score(40, -1.0)).isEqualTo(onnxScorer.score(40, -1.0));
+    }
+
+    @Test
+    @DisplayName("Should score faster than full inference")
+    void shouldScoreFasterThanInference() {
+        int iterations = 50_000;
+        long lookupNanos = measure(lookupTable, iterations);
+        long onnxNanos = measure(onnxScorer, iterations);
+
+        logger.info("Mean latency per score: lookup table={} ns, onnx={} ns", lookupNanos, onnxNanos);
+        assertThat(lookupNanos).isLessThan(onnxNanos);
+    }
+
+    private static long measure(RiskScorer scorer, int iterations) {
+        double sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += scorer.score(18 + (i % 80), 1_000.0 + (i * 37.0) % 150_000.0);
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(sink).isPositive();
+        return elapsed / iterations;
+    }
+}
@@ -0,0 +1,111 @@
+package com.pacifico.risk.inference;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class OnnxRiskScorerTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(OnnxRiskScorerTest.class);
+
+    private static OnnxRiskScorer onnxScorer;
+
+    @BeforeAll
+    static void loadModel() throws Exception {
+        try (InputStream in = OnnxRiskScorerTest.class.getResourceAsStream("/models/risk-model.onnx")) {
+            onnxScorer = new OnnxRiskScorer(in.readAllBytes(), 8, 200);
+        }
+    }
+
+    @AfterAll
+    static void closeModel() {
+        onnxScorer.close();
+    }
+
+    @Test
+    @DisplayName("Should score with the checked-in logistic model")
+    void shouldScoreWithCheckedInModel() {
+        // The test model is sigmoid(-0.1 * age + 0.00008 * carValue + 0.1)
+        assertThat(onnxScorer.score(30, 10000.0)).isCloseTo(expected(30, 10000.0), within(1e-4));
+        assertThat(onnxScorer.score(20, 60000.0)).isCloseTo(expected(20, 60000.0), within(1e-4));
+        assertThat(onnxScorer.score(30, 10000.0)).isLessThan(0.3);
+        assertThat(onnxScorer.score(20, 60000.0)).isGreaterThanOrEqualTo(0.8);
+    }
+
+    @Test
+    @DisplayName("Should score a feature matrix in one run, positionally matched")
+    void shouldScoreBatch() {
+        int[] ages = {20, 30, 45, 70};
+        double[] carValues = {60000.0, 10000.0, 35000.0, 90000.0};
+
+        double[] scores = onnxScorer.scoreBatch(ages, carValues);
+
+        assertThat(scores).hasSize(4);
+        for (int i = 0; i < ages.length; i++) {
+            assertThat(scores[i]).isCloseTo(onnxScorer.score(ages[i], carValues[i]), within(1e-6));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reuse pooled input tensors safely across concurrent virtual threads")
+    void shouldScoreConcurrently() throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+
+        for (int i = 0; i < 500; i++) {
+            int age = 18 + (i % 80);
+            double carValue = 5000.0 + i * 100.0;
+            futures.add(CompletableFuture.supplyAsync(
+                    () -> Math.abs(onnxScorer.score(age, carValue) - expected(age, carValue)) < 1e-4, executor));
+        }
+
+        for (CompletableFuture<Boolean> future : futures) {
+            assertThat(future.get()).isTrue();
+        }
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Smoke test: warm ONNX inference should stay under 1 ms per score")
+    void shouldKeepWarmOnnxLatencyUnderOneMillisecond() {
+        HeuristicRiskScorer heuristicScorer = new HeuristicRiskScorer();
+        int iterations = 20_000;
+
+        long heuristicNanos = measure(heuristicScorer, iterations);
+        long onnxNanos = measure(onnxScorer, iterations);
+
+        // Only a smoke test: the heuristic is a couple of arithmetic operations, so it is
+        // logged as a reference point rather than compared against
+        logger.info("Mean latency per score: heuristic={} ns, onnx={} ns", heuristicNanos, onnxNanos);
+        // Generous bound so the assertion holds on shared CI runners.
+        assertThat(onnxNanos).isLessThan(1_000_000L);
+    }
+
+    private static long measure(RiskScorer scorer, int iterations) {
+        double sink = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += scorer.score(18 + (i % 80), 5000.0 + i);
+        }
+        long elapsed = System.nanoTime() - start;
+        assertThat(sink).isPositive();
+        return elapsed / iterations;
+    }
+
+    private static double expected(int age, double carValue) {
+        return 1.0 / (1.0 + Math.exp(-(-0.1 * age + 0.00008 * carValue + 0.1)));
+    }
+}
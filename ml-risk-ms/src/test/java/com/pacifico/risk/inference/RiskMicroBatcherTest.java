@@ -0,0 +1,142 @@
+package com.pacifico.risk.inference;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RiskMicroBatcherTest {
+
+    private final CountingScorer scorer = new CountingScorer();
+    private SimpleMeterRegistry meterRegistry;
+    private RiskMicroBatcher batcher;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        batcher = new RiskMicroBatcher(scorer, 32, Duration.ofMillis(20), 1024, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batcher.close();
+    }
+
+    @Test
+    @DisplayName("Should dispatch a lone request immediately when traffic is idle")
+    void shouldNotWaitWhenIdle() throws Exception {
+        // A window far longer than the wait below: the request can only complete if it skips collection
+        batcher.close();
+        batcher = new RiskMicroBatcher(scorer, 32, Duration.ofMinutes(5), 1024, meterRegistry);
+
+        double score = batcher.submit(30, 10000.0).get(5, TimeUnit.SECONDS);
+
+        assertThat(score).isEqualTo(new HeuristicRiskScorer().score(30, 10000.0));
+        assertThat(scorer.batches.get()).isEqualTo(1);
+        assertThat(meterRegistry.get("risk.batch.size").summary().max()).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should coalesce concurrent requests into fewer batched inferences")
+    void shouldCoalesceConcurrentRequests() throws Exception {
+        int concurrentRequests = 256;
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<CompletableFuture<Double>> futures = new ArrayList<>();
+        HeuristicRiskScorer reference = new HeuristicRiskScorer();
+
+        for (int i = 0; i < concurrentRequests; i++) {
+            int age = 18 + (i % 40);
+            double carValue = 20000.0 + i * 200.0;
+            futures.add(CompletableFuture.supplyAsync(() -> {
+                await(startGate);
+                return batcher.submit(age, carValue).join();
+            }, executor));
+        }
+        startGate.countDown();
+
+        for (int i = 0; i < concurrentRequests; i++) {
+            assertThat(futures.get(i).get(5, TimeUnit.SECONDS))
+                    .isEqualTo(reference.score(18 + (i % 40), 20000.0 + i * 200.0));
+        }
+        executor.shutdown();
+
+        assertThat(scorer.rows.get()).isEqualTo(concurrentRequests);
+        assertThat(scorer.batches.get()).isLessThan(concurrentRequests);
+
+        DistributionSummary batchSize = meterRegistry.get("risk.batch.size").summary();
+        assertThat(batchSize.count()).isEqualTo(scorer.batches.get());
+        assertThat(batchSize.max()).isGreaterThan(1.0).isLessThanOrEqualTo(32.0);
+        assertThat(meterRegistry.get("risk.batch.queue.wait").timer().count()).isEqualTo(concurrentRequests);
+    }
+
+    @Test
+    @DisplayName("Should fail pending futures when the batcher is closed")
+    void shouldRejectAfterClose() {
+        batcher.close();
+
+        assertThatThrownBy(() -> batcher.submit(30, 10000.0).join())
+                .hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    @DisplayName("Should complete every request submitted while the batcher is closing")
+    void shouldNotStrandRequestsRacingClose() throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CountDownLatch startGate = new CountDownLatch(1);
+        List<CompletableFuture<CompletableFuture<Double>>> submissions = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            submissions.add(CompletableFuture.supplyAsync(() -> {
+                await(startGate);
+                return batcher.submit(30, 10000.0);
+            }, executor));
+        }
+
+        startGate.countDown();
+        batcher.close();
+
+        for (CompletableFuture<CompletableFuture<Double>> submission : submissions) {
+            CompletableFuture<Double> result = submission.get(5, TimeUnit.SECONDS);
+            assertThat(result.handle((score, error) -> true).get(5, TimeUnit.SECONDS)).isTrue();
+        }
+        executor.shutdown();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Heuristic scorer that records how many batched calls were made.
+     */
+    private static final class CountingScorer extends HeuristicRiskScorer {
+        private final AtomicInteger batches = new AtomicInteger();
+        private final AtomicInteger rows = new AtomicInteger();
+
+        @Override
+        public double[] scoreBatch(int[] ages, double[] carValues) {
+            batches.incrementAndGet();
+            rows.addAndGet(ages.length);
+            return super.scoreBatch(ages, carValues);
+        }
+    }
+}
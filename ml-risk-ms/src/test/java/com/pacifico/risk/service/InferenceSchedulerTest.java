@@ -0,0 +1,126 @@
+package com.pacifico.risk.service;
+
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class InferenceSchedulerTest {
+
+    private static final ScheduledExecutorService DEADLINE_TIMER = Executors.newSingleThreadScheduledExecutor();
+
+    private SimpleMeterRegistry meterRegistry;
+    private InferenceScheduler scheduler;
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scheduler = new InferenceScheduler(1, 1, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        scheduler.close();
+    }
+
+    @Test
+    @DisplayName("Should shed an already expired request with DEADLINE_EXCEEDED without running it")
+    void shouldShedExpiredRequest() throws Exception {
+        // GIVEN
+        Context.CancellableContext expired = Context.current()
+                .withDeadline(Deadline.after(-1, TimeUnit.MILLISECONDS), DEADLINE_TIMER);
+
+        // WHEN
+        CompletableFuture<Integer> result = expired.call(() -> scheduler.submit(executions::incrementAndGet));
+        expired.cancel(null);
+
+        // THEN
+        assertStatus(result, Status.Code.DEADLINE_EXCEEDED);
+        assertThat(executions.get()).isZero();
+        assertThat(shedCount("deadline_exceeded")).isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should reject fast with RESOURCE_EXHAUSTED when the queue is full")
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        // GIVEN - one task running, one queued
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Integer> running = scheduler.submit(() -> {
+            await(release);
+            return executions.incrementAndGet();
+        });
+        CompletableFuture<Integer> queued = scheduler.submit(executions::incrementAndGet);
+
+        // WHEN
+        CompletableFuture<Integer> rejected = scheduler.submit(executions::incrementAndGet);
+
+        // THEN
+        assertStatus(rejected, Status.Code.RESOURCE_EXHAUSTED);
+        assertThat(meterRegistry.get("risk.scheduler.queue.depth").gauge().value()).isEqualTo(1.0);
+        assertThat(shedCount("queue_full")).isEqualTo(1.0);
+
+        release.countDown();
+        assertThat(running.get(1, TimeUnit.SECONDS)).isPositive();
+        assertThat(queued.get(1, TimeUnit.SECONDS)).isPositive();
+        assertThat(executions.get()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should drop a request whose deadline expires while it is queued")
+    void shouldDropRequestExpiredInQueue() throws Exception {
+        // GIVEN - the only slot is busy
+        CountDownLatch release = new CountDownLatch(1);
+        scheduler.submit(() -> {
+            await(release);
+            return 0;
+        });
+        Context.CancellableContext shortDeadline = Context.current()
+                .withDeadline(Deadline.after(20, TimeUnit.MILLISECONDS), DEADLINE_TIMER);
+        CompletableFuture<Integer> queued = shortDeadline.call(() -> scheduler.submit(executions::incrementAndGet));
+
+        // WHEN - the deadline passes before the slot frees up
+        Thread.sleep(50);
+        release.countDown();
+
+        // THEN
+        assertStatus(queued, Status.Code.DEADLINE_EXCEEDED);
+        assertThat(executions.get()).isZero();
+        assertThat(meterRegistry.get("risk.scheduler.queue.wait").timer().count()).isEqualTo(2);
+        shortDeadline.cancel(null);
+    }
+
+    private double shedCount(String reason) {
+        return meterRegistry.get("risk.scheduler.shed").tag("reason", reason).counter().count();
+    }
+
+    private static void assertStatus(CompletableFuture<?> future, Status.Code code) {
+        assertThatThrownBy(() -> future.get(1, TimeUnit.SECONDS))
+                .cause()
+                .isInstanceOfSatisfying(StatusRuntimeException.class,
+                        e -> assertThat(e.getStatus().getCode()).isEqualTo(code));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
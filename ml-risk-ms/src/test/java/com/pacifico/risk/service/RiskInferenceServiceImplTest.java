@@ -1,13 +1,24 @@
 package com.pacifico.risk.service;
 
+import com.pacifico.risk.RiskBatchRequest;
+import com.pacifico.risk.RiskBatchResponse;
 import com.pacifico.risk.RiskRequest;
 import com.pacifico.risk.RiskResponse;
+import com.pacifico.risk.inference.HeuristicRiskScorer;
+import com.pacifico.risk.inference.RiskMicroBatcher;
 import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
 
@@ -17,7 +28,8 @@ class RiskInferenceServiceImplTest {
 
     @BeforeEach
     void setUp() {
-        riskService = new RiskInferenceServiceImpl();
+        riskService = new RiskInferenceServiceImpl(new HeuristicRiskScorer(), Optional.empty(),
+                new InferenceScheduler(64, 1000, new SimpleMeterRegistry()));
     }
 
     @Test
@@ -68,4 +80,72 @@ class RiskInferenceServiceImplTest {
         assertThat(response.getProbabilityScore()).isGreaterThanOrEqualTo(0.8);
         assertThat(response.getRiskLevel()).isEqualTo("HIGH");
     }
+
+    @Test
+    @DisplayName("Should score a batch with positionally matched responses")
+    void shouldScoreBatchPositionally() {
+        // GIVEN
+        RiskBatchRequest request = RiskBatchRequest.newBuilder()
+                .addRequests(RiskRequest.newBuilder().setDni("87654321").setAge(20).setCarValue(60000.0))
+                .addRequests(RiskRequest.newBuilder().setDni("12345678").setAge(30).setCarValue(10000.0))
+                .addRequests(RiskRequest.newBuilder().setDni("11223344").setAge(22).setCarValue(20000.0))
+                .build();
+        StreamObserver<RiskBatchResponse> responseObserver = mock(StreamObserver.class);
+
+        // WHEN
+        riskService.evaluateRiskBatch(request, responseObserver);
+
+        // THEN
+        ArgumentCaptor<RiskBatchResponse> responseCaptor = ArgumentCaptor.forClass(RiskBatchResponse.class);
+        verify(responseObserver, timeout(1000)).onNext(responseCaptor.capture());
+        verify(responseObserver, timeout(1000)).onCompleted();
+
+        RiskBatchResponse response = responseCaptor.getValue();
+        assertThat(response.getResponsesList())
+                .extracting(RiskResponse::getRiskLevel)
+                .containsExactly("HIGH", "LOW", "MEDIUM");
+    }
+
+    @Test
+    @DisplayName("Should release the scheduler slot once a request is handed to the micro-batcher")
+    void shouldNotHoldSchedulerSlotWhileBatching() throws Exception {
+        // GIVEN: a single scheduler slot, and batches that block until released
+        BlockingScorer scorer = new BlockingScorer();
+        RiskMicroBatcher batcher = new RiskMicroBatcher(scorer, 8, Duration.ZERO, 1024, new SimpleMeterRegistry());
+        riskService = new RiskInferenceServiceImpl(scorer, Optional.of(batcher),
+                new InferenceScheduler(1, 1, new SimpleMeterRegistry()));
+        StreamObserver<RiskResponse> responseObserver = mock(StreamObserver.class);
+
+        // WHEN: each request reaches the scorer while the previous ones are still being scored
+        for (int i = 0; i < 3; i++) {
+            riskService.evaluateRisk(RiskRequest.newBuilder().setDni("12345678").setAge(30).setCarValue(10000.0).build(),
+                    responseObserver);
+            assertThat(scorer.entered.tryAcquire(5, TimeUnit.SECONDS)).as("request %d reached the scorer", i).isTrue();
+        }
+        scorer.release.countDown();
+
+        // THEN
+        verify(responseObserver, timeout(5000).times(3)).onNext(any(RiskResponse.class));
+        verify(responseObserver, never()).onError(any());
+        batcher.close();
+    }
+
+    /**
+     * Heuristic scorer whose batches block until {@link #release} opens.
+     */
+    private static final class BlockingScorer extends HeuristicRiskScorer {
+        private final Semaphore entered = new Semaphore(0);
+        private final CountDownLatch release = new CountDownLatch(1);
+
+        @Override
+        public double[] scoreBatch(int[] ages, double[] carValues) {
+            entered.release();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return super.scoreBatch(ages, carValues);
+        }
+    }
 }
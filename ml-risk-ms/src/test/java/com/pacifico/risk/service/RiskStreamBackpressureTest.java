@@ -0,0 +1,133 @@
+package com.pacifico.risk.service;
+
+import com.pacifico.risk.RiskInferenceServiceGrpc;
+import com.pacifico.risk.RiskRequest;
+import com.pacifico.risk.RiskResponse;
+import com.pacifico.risk.inference.HeuristicRiskScorer;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Exercises {@code StreamRisk} end to end over an in-process gRPC transport.
+ */
+class RiskStreamBackpressureTest {
+
+    private static final int TOTAL_REQUESTS = 1_000;
+
+    private final CountingScorer scorer = new CountingScorer();
+    private Server server;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String serverName = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(serverName)
+                .directExecutor()
+                .addService(new RiskInferenceServiceImpl(scorer, Optional.empty(),
+                        new InferenceScheduler(64, 1000, new SimpleMeterRegistry())))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(serverName).directExecutor().build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    @DisplayName("Should stop pulling requests while the client is not reading responses")
+    void shouldApplyBackpressureToSlowConsumer() throws Exception {
+        // GIVEN - a client that does not request any response yet
+        SlowConsumer consumer = new SlowConsumer();
+        RiskInferenceServiceGrpc.newStub(channel).streamRisk(consumer);
+        for (int i = 0; i < TOTAL_REQUESTS; i++) {
+            consumer.requestStream.onNext(RiskRequest.newBuilder()
+                    .setRequestId("req-" + i)
+                    .setDni(String.format("%08d", i))
+                    .setAge(18 + (i % 60))
+                    .setCarValue(10000.0 + i * 50.0)
+                    .build());
+        }
+        consumer.requestStream.onCompleted();
+
+        // WHEN - the server has had time to drain whatever it is allowed to
+        Thread.sleep(300);
+
+        // THEN - only the in-flight window was pulled and scored
+        assertThat(scorer.calls.get()).isEqualTo(RiskInferenceServiceImpl.STREAM_MAX_IN_FLIGHT);
+        assertThat(consumer.responses).isEmpty();
+
+        // WHEN - the client starts reading
+        consumer.requestStream.request(TOTAL_REQUESTS);
+
+        // THEN - every request is answered and correlated by its id
+        assertThat(consumer.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(scorer.calls.get()).isEqualTo(TOTAL_REQUESTS);
+        assertThat(consumer.responses).hasSize(TOTAL_REQUESTS);
+        HeuristicRiskScorer reference = new HeuristicRiskScorer();
+        for (int i = 0; i < TOTAL_REQUESTS; i++) {
+            assertThat(consumer.responses.get("req-" + i).getProbabilityScore())
+                    .isEqualTo(reference.score(18 + (i % 60), 10000.0 + i * 50.0));
+        }
+    }
+
+    /**
+     * Client observer with automatic response requests disabled.
+     */
+    private static final class SlowConsumer implements ClientResponseObserver<RiskRequest, RiskResponse> {
+        private final Map<String, RiskResponse> responses = new ConcurrentHashMap<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private ClientCallStreamObserver<RiskRequest> requestStream;
+
+        @Override
+        public void beforeStart(ClientCallStreamObserver<RiskRequest> requestStream) {
+            this.requestStream = requestStream;
+            requestStream.disableAutoRequestWithInitial(0);
+        }
+
+        @Override
+        public void onNext(RiskResponse response) {
+            responses.put(response.getRequestId(), response);
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            completed.countDown();
+        }
+
+        @Override
+        public void onCompleted() {
+            completed.countDown();
+        }
+    }
+
+    private static final class CountingScorer extends HeuristicRiskScorer {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @Override
+        public double score(int age, double carValue) {
+            calls.incrementAndGet();
+            return super.score(age, carValue);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.pacifico.quotation.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.pacifico.quotation.config.RejectionFilterProperties;
+import com.pacifico.quotation.dto.RiskCacheEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-process memory of recently rejected risk keys, so a high-risk applicant retrying the
+ * same quote is turned away without touching Redis or ml-risk-ms.
+ * <p>
+ * Membership is tracked by a Bloom filter over the full risk cache key (model version
+ * included). Filters are kept in two generations: writes go to the current one, reads
+ * check both, and every {@code window} the previous generation is dropped and a fresh,
+ * empty one takes over. A rejection is therefore remembered for one to two windows and the
+ * filter never saturates with stale keys.
+ * <p>
+ * A filter hit is only a candidate: it is confirmed against an exact, size-bounded store of
+ * recent rejected scores. Unconfirmed hits (false positives, or rejections already
+ * evicted from the exact store) go through the regular scoring path, so an applicant is
+ * never rejected on a hash collision. Misses, the common case for approved applicants,
+ * cost a few hash probes and never reach the exact store.
+ * <p>
+ * Checks are counted in {@code risk.rejection.filter.checks}, tagged with the
+ * {@code result} ({@code miss}, {@code rejected}, {@code false_positive}); the measured false
+ * positive rate follows from those. The filters' memory footprint and expected false
+ * positive rate are exposed as {@code risk.rejection.filter.memory} and
+ * {@code risk.rejection.filter.fpp}.
+ */
+@Component
+public class RejectedRiskFilter {
+
+    private final RejectionFilterProperties properties;
+    private final Ticker ticker;
+    private final long windowNanos;
+    private final Cache<String, RiskCacheEntry> exact;
+    private final Counter misses;
+    private final Counter rejections;
+    private final Counter falsePositives;
+    // Not synchronized: rotation allocates filters on request threads, and virtual threads waiting on a monitor would pin their carriers
+    private final ReentrantLock rotationLock = new ReentrantLock();
+
+    private volatile Generations generations;
+
+    @Autowired
+    public RejectedRiskFilter(RejectionFilterProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Ticker.systemTicker());
+    }
+
+    RejectedRiskFilter(RejectionFilterProperties properties, MeterRegistry meterRegistry, Ticker ticker) {
+        this.properties = properties;
+        this.ticker = ticker;
+        this.windowNanos = properties.window().toNanos();
+        this.exact = Caffeine.newBuilder()
+                .maximumSize(properties.exactMaxSize())
+                .expireAfterWrite(properties.window().multipliedBy(2))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, exact, "risk.rejections");
+        this.generations = new Generations(newFilter(), newFilter(), ticker.read() + windowNanos);
+
+        this.misses = checkCounter(meterRegistry, "miss");
+        this.rejections = checkCounter(meterRegistry, "rejected");
+        this.falsePositives = checkCounter(meterRegistry, "false_positive");
+        long bitsPerFilter = optimalBits(properties.expectedInsertions(), properties.falsePositiveRate());
+        Gauge.builder("risk.rejection.filter.memory", () -> 2 * bitsPerFilter / Byte.SIZE)
+                .description("Memory used by both Bloom filter generations")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        Gauge.builder("risk.rejection.filter.fpp", this, filter -> filter.current().current().expectedFpp())
+                .description("Expected false positive probability of the current Bloom filter generation")
+                .register(meterRegistry);
+        Gauge.builder("risk.rejection.filter.elements", this, filter -> filter.current().current().approximateElementCount())
+                .description("Approximate number of rejections in the current Bloom filter generation")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Checks whether a risk key was recently rejected.
+     *
+     * @param key The full risk cache key.
+     * @return The rejected assessment when the filter hit is confirmed, {@code null} otherwise.
+     */
+    public RiskCacheEntry confirmedRejection(String key) {
+        if (!properties.enabled()) {
+            return null;
+        }
+        Generations current = current();
+        if (!current.current().mightContain(key) && !current.previous().mightContain(key)) {
+            misses.increment();
+            return null;
+        }
+        RiskCacheEntry rejected = exact.getIfPresent(key);
+        if (rejected == null) {
+            falsePositives.increment();
+            return null;
+        }
+        rejections.increment();
+        return rejected;
+    }
+
+    /**
+     * Remembers a rejected risk key for the current window.
+     *
+     * @param key The full risk cache key.
+     * @param entry The assessment that caused the rejection.
+     */
+    public void recordRejection(String key, RiskCacheEntry entry) {
+        if (!properties.enabled()) {
+            return;
+        }
+        exact.put(key, entry);
+        current().current().put(key);
+    }
+
+    private Generations current() {
+        Generations current = generations;
+        if (ticker.read() - current.rotateAt() < 0) {
+            return current;
+        }
+        rotationLock.lock();
+        try {
+            current = generations;
+            long now = ticker.read();
+            if (now - current.rotateAt() >= 0) {
+                // Skipping idle windows: a filter older than two windows holds nothing worth keeping
+                BloomFilter<String> previous = now - current.rotateAt() < windowNanos ? current.current() : newFilter();
+                current = new Generations(newFilter(), previous, now + windowNanos);
+                generations = current;
+            }
+            return current;
+        } finally {
+            rotationLock.unlock();
+        }
+    }
+
+    private BloomFilter<String> newFilter() {
+        return BloomFilter.create(Funnels.stringFunnel(StandardCharsets.UTF_8),
+                properties.expectedInsertions(), properties.falsePositiveRate());
+    }
+
+    /**
+     * Bit count Guava allocates for {@code n} insertions at false positive rate {@code p}.
+     */
+    private static long optimalBits(long n, double p) {
+        return (long) (-n * Math.log(p) / (Math.log(2) * Math.log(2)));
+    }
+
+    private static Counter checkCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("risk.rejection.filter.checks")
+                .description("High-risk fast path lookups")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private record Generations(BloomFilter<String> current, BloomFilter<String> previous, long rotateAt) {}
+}
@@ -0,0 +1,438 @@
+package com.pacifico.quotation.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pacifico.quotation.config.RiskCacheProperties;
+import com.pacifico.quotation.dto.RiskCacheEntry;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier cache for risk assessments: an in-process L1 in front of Redis (L2).
+ * <p>
+ * L1 is a size-bounded Caffeine cache (W-TinyLFU admission) with a TTL shorter than
+ * the Redis one, so hot DNIs are served without a network round trip. Writes and
+ * evictions are broadcast on {@link #INVALIDATION_CHANNEL} so other replicas drop
+ * their L1 copy; each message carries the publishing instance id so a replica does
+ * not invalidate the entry it just wrote.
+ * <p>
+ * Multi-key lookups and writes use a single {@code MGET} and a pipelined batch of
+ * {@code SET}s respectively, so bulk quoting costs one round trip per tier.
+ * <p>
+ * Concurrent misses on the same key are coalesced through {@link #getOrLoad}, so a
+ * burst of retries for one DNI triggers a single load instead of a stampede.
+ * <p>
+ * Hot entries are refreshed ahead of expiry: every entry carries its Redis expiry, and a
+ * hit through {@link #getOrLoad} or {@link #getOrLoadAsync} re-scores it in the background
+ * with probability {@code exp(-remaining / refresh-ahead)} (probabilistic early expiration).
+ * The probability rises as expiry approaches, and each read draws independently, so
+ * replicas do not refresh in lockstep and an actively quoted customer is re-scored before
+ * the entry expires; at most one refresh per key runs on each replica. Redis TTLs are
+ * jittered by {@code ttl-jitter} so a burst of writes does not expire as a burst.
+ * <p>
+ * Per-tier hits and misses are counted in {@code risk.cache.gets}, tagged with the key
+ * strategy in use; coalesced misses in
+ * {@code risk.cache.coalesced}; background refreshes in {@code risk.cache.refreshes}, tagged
+ * with the {@code result}; L1 evictions and size are exposed through the Caffeine
+ * binder under the {@code risk.l1} cache name.
+ */
+@Component
+public class RiskCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RiskCache.class);
+
+    public static final String INVALIDATION_CHANNEL = "risk_cache:invalidation";
+    private static final String SEPARATOR = "|";
+
+    private final RedisTemplate<String, RiskCacheEntry> redisTemplate;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final Cache<String, RiskCacheEntry> localCache;
+    private final Duration ttl;
+    private final double ttlJitter;
+    private final double refreshAheadMillis;
+    private final String modelVersion;
+    private final SingleFlight<String, RiskCacheEntry> loads = new SingleFlight<>();
+    /** Runs Redis calls off the caller's thread: non-blocking lookups, write-backs and refreshes. */
+    private final ExecutorService redisExecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final String instanceId = UUID.randomUUID().toString();
+    private final Set<String> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final Counter l1Hits;
+    private final Counter l1Misses;
+    private final Counter l2Hits;
+    private final Counter l2Misses;
+    private final Counter coalesced;
+    private final Counter refreshSuccesses;
+    private final Counter refreshFailures;
+
+    public RiskCache(RedisTemplate<String, RiskCacheEntry> redisTemplate,
+                     StringRedisTemplate stringRedisTemplate,
+                     RiskCacheProperties properties,
+                     MeterRegistry meterRegistry) {
+        this.redisTemplate = redisTemplate;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.ttl = properties.ttl();
+        this.ttlJitter = properties.ttlJitter();
+        this.refreshAheadMillis = properties.refreshAhead().toMillis();
+        this.modelVersion = properties.modelVersion();
+        this.localCache = Caffeine.newBuilder()
+                .maximumSize(properties.localMaxSize())
+                .expireAfterWrite(properties.localTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, localCache, "risk.l1");
+
+        String strategy = properties.keyStrategy().name().toLowerCase();
+        this.l1Hits = tierCounter(meterRegistry, strategy, "l1", "hit");
+        this.l1Misses = tierCounter(meterRegistry, strategy, "l1", "miss");
+        this.l2Hits = tierCounter(meterRegistry, strategy, "l2", "hit");
+        this.l2Misses = tierCounter(meterRegistry, strategy, "l2", "miss");
+        this.coalesced = Counter.builder("risk.cache.coalesced")
+                .description("Cache misses that joined an in-flight load instead of loading")
+                .register(meterRegistry);
+        this.refreshSuccesses = refreshCounter(meterRegistry, "success");
+        this.refreshFailures = refreshCounter(meterRegistry, "failure");
+        meterRegistry.gauge("risk.cache.loads.in.flight", loads, SingleFlight::inFlight);
+    }
+
+    /**
+     * Looks up a risk assessment, first in L1 and then in Redis.
+     * <p>
+     * A Redis hit is promoted to L1. An entry written by a different model version is
+     * reported as a miss.
+     *
+     * @param key The full cache key.
+     * @return The cached entry, or {@code null} when neither tier has it.
+     */
+    public RiskCacheEntry get(String key) {
+        RiskCacheEntry local = localCache.getIfPresent(key);
+        if (local != null) {
+            l1Hits.increment();
+            return local;
+        }
+        l1Misses.increment();
+        return getRemote(key);
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #get}: L1 is read on the calling thread, while a
+     * Redis lookup runs on a virtual thread, so the caller never waits on the network.
+     *
+     * @param key The full cache key.
+     * @return A future completed with the cached entry, or {@code null} when neither tier has it.
+     */
+    public CompletableFuture<RiskCacheEntry> getAsync(String key) {
+        RiskCacheEntry local = localCache.getIfPresent(key);
+        if (local != null) {
+            l1Hits.increment();
+            return CompletableFuture.completedFuture(local);
+        }
+        l1Misses.increment();
+        return CompletableFuture.supplyAsync(() -> getRemote(key), redisExecutor);
+    }
+
+    private RiskCacheEntry getRemote(String key) {
+        RiskCacheEntry remote = redisTemplate.opsForValue().get(key);
+        if (!isCurrent(remote)) {
+            l2Misses.increment();
+            return null;
+        }
+        l2Hits.increment();
+        localCache.put(key, remote);
+        return remote;
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #getOrLoad}.
+     * <p>
+     * An L1 miss is looked up in Redis through {@link #getAsync}. The loaded entry is stored
+     * in L1 before the waiting callers are released; the Redis write and invalidation broadcast
+     * run in the background so they overlap with whatever the caller does next.
+     *
+     * @param key The full cache key.
+     * @param loader Starts the load on a miss or a refresh, typically an asynchronous gRPC call to ml-risk-ms.
+     * @return A future completed with the cached or freshly loaded entry.
+     */
+    public CompletableFuture<RiskCacheEntry> getOrLoadAsync(String key, Supplier<CompletableFuture<RiskCacheEntry>> loader) {
+        return getAsync(key).thenCompose(cached -> {
+            if (cached != null) {
+                refreshIfDue(key, cached, loader);
+                return CompletableFuture.completedFuture(cached);
+            }
+            return loadAsync(key, loader);
+        });
+    }
+
+    private CompletableFuture<RiskCacheEntry> loadAsync(String key, Supplier<CompletableFuture<RiskCacheEntry>> loader) {
+        return loads.executeAsync(key, () -> {
+            RiskCacheEntry loaded = localCache.getIfPresent(key);
+            if (loaded != null) {
+                return CompletableFuture.completedFuture(loaded);
+            }
+            return loader.get().thenApply(entry -> {
+                Duration entryTtl = jitteredTtl();
+                RiskCacheEntry stamped = entry.withExpiresAt(System.currentTimeMillis() + entryTtl.toMillis());
+                localCache.put(key, stamped);
+                CompletableFuture.runAsync(() -> {
+                    redisTemplate.opsForValue().set(key, stamped, entryTtl);
+                    publishInvalidation(key);
+                }, redisExecutor).exceptionally(e -> {
+                    logger.warn("Could not write risk assessment {} to Redis", key, e);
+                    return null;
+                });
+                return stamped;
+            });
+        }, coalesced::increment);
+    }
+
+    /**
+     * Looks up many risk assessments: L1 first, then one {@code MGET} for the remainder.
+     *
+     * @param keys The full cache keys.
+     * @return The entries found, keyed by cache key; missing keys are absent.
+     */
+    public Map<String, RiskCacheEntry> getAll(Collection<String> keys) {
+        Map<String, RiskCacheEntry> found = new HashMap<>(localCache.getAllPresent(keys));
+        List<String> missing = keys.stream().distinct().filter(key -> !found.containsKey(key)).toList();
+        l1Hits.increment(found.size());
+        l1Misses.increment(missing.size());
+        if (missing.isEmpty()) {
+            return found;
+        }
+
+        List<RiskCacheEntry> remote = redisTemplate.opsForValue().multiGet(missing);
+        for (int i = 0; i < missing.size(); i++) {
+            RiskCacheEntry entry = remote == null ? null : remote.get(i);
+            if (isCurrent(entry)) {
+                l2Hits.increment();
+                found.put(missing.get(i), entry);
+                localCache.put(missing.get(i), entry);
+            } else {
+                l2Misses.increment();
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Looks up a risk assessment and, on a miss, loads it with at most one concurrent
+     * {@code loader} execution per key.
+     * <p>
+     * The loaded entry is stored in both tiers before the waiting callers are released.
+     * A refresh triggered by a hit runs the loader on a virtual thread.
+     *
+     * @param key The full cache key.
+     * @param loader Computes the entry on a miss or a refresh, typically a gRPC call to ml-risk-ms.
+     * @return The cached or freshly loaded entry.
+     */
+    public RiskCacheEntry getOrLoad(String key, Supplier<RiskCacheEntry> loader) {
+        RiskCacheEntry cached = get(key);
+        if (cached != null) {
+            refreshIfDue(key, cached, () -> CompletableFuture.supplyAsync(loader, redisExecutor));
+            return cached;
+        }
+        return loads.execute(key, () -> {
+            // A load that completed between our miss and becoming leader is already in L1
+            RiskCacheEntry loaded = localCache.getIfPresent(key);
+            if (loaded == null) {
+                loaded = put(key, loader.get());
+            }
+            return loaded;
+        }, coalesced::increment);
+    }
+
+    /**
+     * Stores a risk assessment in both tiers and invalidates other replicas' L1 copy.
+     *
+     * @param key The full cache key.
+     * @param entry The risk assessment.
+     * @return The stored entry, carrying its expiry.
+     */
+    public RiskCacheEntry put(String key, RiskCacheEntry entry) {
+        Duration entryTtl = jitteredTtl();
+        RiskCacheEntry stamped = entry.withExpiresAt(System.currentTimeMillis() + entryTtl.toMillis());
+        redisTemplate.opsForValue().set(key, stamped, entryTtl);
+        localCache.put(key, stamped);
+        publishInvalidation(key);
+        return stamped;
+    }
+
+    /**
+     * Stores many risk assessments with one pipelined round trip to Redis.
+     *
+     * @param entries The risk assessments, keyed by cache key.
+     */
+    public void putAll(Map<String, RiskCacheEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        Map<String, Duration> ttls = new HashMap<>();
+        Map<String, RiskCacheEntry> stamped = new HashMap<>();
+        entries.forEach((key, entry) -> {
+            Duration entryTtl = jitteredTtl();
+            ttls.put(key, entryTtl);
+            stamped.put(key, entry.withExpiresAt(now + entryTtl.toMillis()));
+        });
+        redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, RiskCacheEntry> risk = (RedisOperations<String, RiskCacheEntry>) operations;
+                stamped.forEach((key, entry) -> risk.opsForValue().set(key, entry, ttls.get(key)));
+                return null;
+            }
+        });
+        localCache.putAll(stamped);
+        publishInvalidations(new ArrayList<>(entries.keySet()));
+    }
+
+    /**
+     * Removes a risk assessment from both tiers on every replica.
+     *
+     * @param key The full cache key.
+     */
+    public void evict(String key) {
+        redisTemplate.delete(key);
+        localCache.invalidate(key);
+        publishInvalidation(key);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        redisExecutor.close();
+    }
+
+    /**
+     * @return The model version entries must carry to be served.
+     */
+    public String modelVersion() {
+        return modelVersion;
+    }
+
+    /**
+     * Handles an invalidation broadcast received from the Redis channel.
+     *
+     * @param message The raw message, {@code instanceId|key}.
+     */
+    public void onInvalidation(String message) {
+        int separator = message.indexOf(SEPARATOR);
+        if (separator < 0) {
+            logger.warn("Ignoring malformed risk cache invalidation: {}", message);
+            return;
+        }
+        if (message.regionMatches(0, instanceId, 0, separator) && separator == instanceId.length()) {
+            return;
+        }
+        localCache.invalidate(message.substring(separator + 1));
+    }
+
+    private void publishInvalidation(String key) {
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATION_CHANNEL, instanceId + SEPARATOR + key);
+        } catch (Exception e) {
+            // Other replicas converge when their L1 TTL expires
+            logger.warn("Could not publish risk cache invalidation for {}", key, e);
+        }
+    }
+
+    private void publishInvalidations(List<String> keys) {
+        try {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    keys.forEach(key -> operations.convertAndSend(INVALIDATION_CHANNEL, instanceId + SEPARATOR + key));
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            logger.warn("Could not publish risk cache invalidation for {} keys", keys.size(), e);
+        }
+    }
+
+    /**
+     * Starts a background refresh of a cache hit when its early expiration draw says so.
+     * <p>
+     * XFetch: refresh when {@code -refreshAhead * ln(U) >= remaining}, with {@code U}
+     * uniform in (0, 1]. Entries without a known expiry are left to expire normally.
+     */
+    private void refreshIfDue(String key, RiskCacheEntry entry, Supplier<CompletableFuture<RiskCacheEntry>> loader) {
+        if (refreshAheadMillis <= 0 || entry.expiresAt() == 0) {
+            return;
+        }
+        long remaining = entry.expiresAt() - System.currentTimeMillis();
+        double draw = 1.0 - ThreadLocalRandom.current().nextDouble();
+        if (-refreshAheadMillis * Math.log(draw) < remaining || !refreshing.add(key)) {
+            return;
+        }
+        CompletableFuture<RiskCacheEntry> refresh;
+        try {
+            refresh = loader.get();
+        } catch (RuntimeException e) {
+            refresh = CompletableFuture.failedFuture(e);
+        }
+        refresh.thenAcceptAsync(fresh -> put(key, fresh), redisExecutor)
+                .whenComplete((ignored, error) -> {
+                    refreshing.remove(key);
+                    if (error == null) {
+                        refreshSuccesses.increment();
+                    } else {
+                        // The current entry stays until it expires; the next hit may try again
+                        refreshFailures.increment();
+                        logger.debug("Could not refresh risk assessment {} ahead of expiry", key, error);
+                    }
+                });
+    }
+
+    private Duration jitteredTtl() {
+        if (ttlJitter <= 0) {
+            return ttl;
+        }
+        double factor = 1 + ttlJitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Duration.ofMillis((long) (ttl.toMillis() * factor));
+    }
+
+    private boolean isCurrent(RiskCacheEntry entry) {
+        return entry != null && modelVersion.equals(entry.modelVersion());
+    }
+
+    private static Counter refreshCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("risk.cache.refreshes")
+                .description("Background refreshes of risk assessments ahead of expiry")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    private static Counter tierCounter(MeterRegistry meterRegistry, String strategy, String tier, String result) {
+        return Counter.builder("risk.cache.gets")
+                .description("Risk cache lookups per key strategy and tier")
+                .tag("strategy", strategy)
+                .tag("tier", tier)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,81 @@
+package com.pacifico.quotation.cache;
+
+import com.pacifico.quotation.dto.RiskCacheEntry;
+import org.springframework.data.redis.serializer.RedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Compact binary codec for risk cache values.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * byte   format version
+ * double probability score
+ * byte   risk level (0 LOW, 1 MEDIUM, 2 HIGH)
+ * long   expiry, epoch millis
+ * byte   model version length (n)
+ * n      model version, UTF-8
+ * </pre>
+ * A typical entry is 32 bytes against roughly 150 for the JSON serializer, which also
+ * embeds the class name and decodes reflectively.
+ * <p>
+ * Values in any other format are rejected; an incompatible layout change goes with a bump
+ * of {@link RiskCacheKeys#ENCODING_VERSION}, so no key ever holds a value of another format.
+ */
+public final class RiskCacheEntryCodec implements RedisSerializer<RiskCacheEntry> {
+
+    static final byte FORMAT_VERSION = 2;
+    private static final int HEADER_BYTES = Byte.BYTES + Double.BYTES + Byte.BYTES + Long.BYTES + Byte.BYTES;
+    private static final String[] RISK_LEVELS = {"LOW", "MEDIUM", "HIGH"};
+
+    @Override
+    public byte[] serialize(RiskCacheEntry entry) throws SerializationException {
+        if (entry == null) {
+            return null;
+        }
+        byte[] modelVersion = entry.modelVersion().getBytes(StandardCharsets.UTF_8);
+        if (modelVersion.length > 0xFF) {
+            throw new SerializationException("Model version too long: " + entry.modelVersion());
+        }
+        return ByteBuffer.allocate(HEADER_BYTES + modelVersion.length)
+                .put(FORMAT_VERSION)
+                .putDouble(entry.probabilityScore())
+                .put(riskLevelCode(entry.riskLevel()))
+                .putLong(entry.expiresAt())
+                .put((byte) modelVersion.length)
+                .put(modelVersion)
+                .array();
+    }
+
+    @Override
+    public RiskCacheEntry deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null) {
+            return null;
+        }
+        if (bytes.length < HEADER_BYTES || bytes[0] != FORMAT_VERSION) {
+            throw new SerializationException("Unsupported risk cache value of " + bytes.length + " bytes");
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, bytes.length - 1);
+        double probabilityScore = buffer.getDouble();
+        int riskLevel = buffer.get();
+        long expiresAt = buffer.getLong();
+        int modelVersionLength = buffer.get() & 0xFF;
+        if (riskLevel < 0 || riskLevel >= RISK_LEVELS.length || buffer.remaining() != modelVersionLength) {
+            throw new SerializationException("Corrupt risk cache value");
+        }
+        String modelVersion = new String(bytes, buffer.position(), modelVersionLength, StandardCharsets.UTF_8);
+        return new RiskCacheEntry(probabilityScore, RISK_LEVELS[riskLevel], modelVersion, expiresAt);
+    }
+
+    private static byte riskLevelCode(String riskLevel) {
+        for (int i = 0; i < RISK_LEVELS.length; i++) {
+            if (RISK_LEVELS[i].equals(riskLevel)) {
+                return (byte) i;
+            }
+        }
+        throw new SerializationException("Unknown risk level: " + riskLevel);
+    }
+}
@@ -0,0 +1,37 @@
+package com.pacifico.quotation.cache;
+
+/**
+ * Projection of the risk features used to build a risk cache key.
+ * <p>
+ * The car value is always quantized to a bucket before it reaches the key, and the
+ * bucket's representative value is what ml-risk-ms scores, so every request sharing
+ * a key gets exactly the score that is cached under it.
+ */
+public enum RiskCacheKeyStrategy {
+
+    /** Customer only. Reuses a score even if the customer quotes a different car; kept for comparison. */
+    DNI {
+        @Override
+        String featureKey(String dni, int age, long carValueBucket) {
+            return "dni:" + dni;
+        }
+    },
+
+    /** Customer and car value bucket. A new car for the same customer gets a fresh score. */
+    DNI_CAR_BUCKET {
+        @Override
+        String featureKey(String dni, int age, long carValueBucket) {
+            return "dni-car:" + dni + ":" + carValueBucket;
+        }
+    },
+
+    /** Model features only, so customers with identical risk features share an entry. */
+    FEATURES {
+        @Override
+        String featureKey(String dni, int age, long carValueBucket) {
+            return "features:" + age + ":" + carValueBucket;
+        }
+    };
+
+    abstract String featureKey(String dni, int age, long carValueBucket);
+}
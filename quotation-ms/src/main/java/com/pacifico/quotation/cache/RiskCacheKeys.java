@@ -0,0 +1,121 @@
+package com.pacifico.quotation.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pacifico.quotation.config.RiskCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Builds risk cache keys from the configured {@link RiskCacheKeyStrategy}.
+ * <p>
+ * Keys are namespaced by the cache encoding version and the model version,
+ * {@code risk_cache:v<encoding>:<model>:<features>}, so rolling out a new model or value
+ * format starts from a cold namespace instead of serving scores from the previous one.
+ * <p>
+ * Strategies listed in {@code shadow-strategies} are evaluated on the same traffic
+ * without being used: a bounded, key-only cache per strategy with the Redis TTL records whether the key
+ * would have hit, published as {@code risk.cache.shadow.gets{strategy,result}} so hit
+ * ratios can be compared before switching.
+ */
+@Component
+public class RiskCacheKeys {
+
+    /**
+     * Version of the cache key layout and value encoding; bump on any incompatible change.
+     */
+    static final int ENCODING_VERSION = 3;
+
+    private static final String RISK_CACHE_PREFIX = "risk_cache:";
+
+    private final RiskCacheKeyStrategy strategy;
+    private final double carValueBucket;
+    private final String namespace;
+    private final Map<RiskCacheKeyStrategy, ShadowStrategy> shadows = new EnumMap<>(RiskCacheKeyStrategy.class);
+
+    public RiskCacheKeys(RiskCacheProperties properties, MeterRegistry meterRegistry) {
+        if (properties.carValueBucket() <= 0) {
+            throw new IllegalArgumentException("Car value bucket must be positive: " + properties.carValueBucket());
+        }
+        this.strategy = properties.keyStrategy();
+        this.carValueBucket = properties.carValueBucket();
+        this.namespace = RISK_CACHE_PREFIX + "v" + ENCODING_VERSION + ":" + properties.modelVersion() + ":";
+
+        for (RiskCacheKeyStrategy shadow : properties.shadowStrategies()) {
+            if (shadow != strategy) {
+                shadows.put(shadow, new ShadowStrategy(shadow, properties, meterRegistry));
+            }
+        }
+    }
+
+    /**
+     * Resolves the cache key for a quotation request.
+     *
+     * @param dni The national ID of the customer.
+     * @param age The age of the customer.
+     * @param carValue The appraised value of the vehicle.
+     * @return The cache key and the quantized car value that must be scored on a miss.
+     */
+    public RiskCacheKey forRequest(String dni, int age, double carValue) {
+        long bucket = (long) Math.floor(carValue / carValueBucket);
+        for (ShadowStrategy shadow : shadows.values()) {
+            shadow.record(shadow.strategy.featureKey(dni, age, bucket));
+        }
+        // Score the bucket midpoint so the cached value does not depend on which request filled it
+        double representative = (bucket + 0.5) * carValueBucket;
+        return new RiskCacheKey(namespace + strategy.featureKey(dni, age, bucket), representative);
+    }
+
+    /**
+     * @return The key strategy in use.
+     */
+    public RiskCacheKeyStrategy strategy() {
+        return strategy;
+    }
+
+    /**
+     * A resolved risk cache key.
+     *
+     * @param key The full Redis key.
+     * @param scoredCarValue The car value sent to ml-risk-ms when the key misses.
+     */
+    public record RiskCacheKey(String key, double scoredCarValue) {}
+
+    private static final class ShadowStrategy {
+
+        private final RiskCacheKeyStrategy strategy;
+        private final Cache<String, Boolean> seen;
+        private final Counter hits;
+        private final Counter misses;
+
+        ShadowStrategy(RiskCacheKeyStrategy strategy, RiskCacheProperties properties, MeterRegistry meterRegistry) {
+            this.strategy = strategy;
+            this.seen = Caffeine.newBuilder()
+                    .maximumSize(properties.localMaxSize())
+                    .expireAfterWrite(properties.ttl())
+                    .build();
+            this.hits = shadowCounter(meterRegistry, strategy, "hit");
+            this.misses = shadowCounter(meterRegistry, strategy, "miss");
+        }
+
+        void record(String featureKey) {
+            if (seen.asMap().putIfAbsent(featureKey, Boolean.TRUE) != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
+        }
+
+        private static Counter shadowCounter(MeterRegistry meterRegistry, RiskCacheKeyStrategy strategy, String result) {
+            return Counter.builder("risk.cache.shadow.gets")
+                    .description("Estimated risk cache lookups for a key strategy that is not in use")
+                    .tag("strategy", strategy.name().toLowerCase())
+                    .tag("result", result)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.pacifico.quotation.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Collapses concurrent loads of the same key into a single execution.
+ * <p>
+ * The first caller for a key becomes the leader and runs the loader on its own thread;
+ * callers arriving while the load is in flight park on the leader's future instead of
+ * loading again. Waiting is done through {@link CompletableFuture#join()}, so virtual
+ * threads unmount rather than pin a carrier as they would inside {@code synchronized}.
+ *
+ * @param <K> Key type.
+ * @param <V> Loaded value type.
+ */
+final class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Runs {@code loader} unless a load for {@code key} is already in flight, in which case
+     * its outcome (value or exception) is shared.
+     *
+     * @param key The key being loaded.
+     * @param loader The load to run when this caller is the leader.
+     * @param onCoalesced Invoked when this caller joins an in-flight load instead of running its own.
+     * @return The loaded value.
+     */
+    V execute(K key, Supplier<V> loader, Runnable onCoalesced) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            onCoalesced.run();
+            return await(existing);
+        }
+
+        try {
+            V value = loader.get();
+            flight.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    /**
+     * Asynchronous counterpart of {@link #execute}: the leader starts {@code loader} and
+     * every caller, leader included, gets an independent view of the shared result.
+     * <p>
+     * Synchronous and asynchronous callers for the same key share one flight.
+     *
+     * @param key The key being loaded.
+     * @param loader Starts the load when this caller is the leader.
+     * @param onCoalesced Invoked when this caller joins an in-flight load instead of starting its own.
+     * @return A future completed with the loaded value.
+     */
+    CompletableFuture<V> executeAsync(K key, Supplier<CompletableFuture<V>> loader, Runnable onCoalesced) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            onCoalesced.run();
+            return existing.copy();
+        }
+
+        CompletableFuture<V> load;
+        try {
+            load = loader.get();
+        } catch (RuntimeException | Error e) {
+            load = CompletableFuture.failedFuture(e);
+        }
+        load.whenComplete((value, error) -> {
+            inFlight.remove(key, flight);
+            if (error != null) {
+                flight.completeExceptionally(error);
+            } else {
+                flight.complete(value);
+            }
+        });
+        return flight.copy();
+    }
+
+    /**
+     * @return Number of keys currently being loaded.
+     */
+    int inFlight() {
+        return inFlight.size();
+    }
+
+    private static <V> V await(CompletableFuture<V> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            // Rethrow the leader's exception as-is so callers see the same failure type
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
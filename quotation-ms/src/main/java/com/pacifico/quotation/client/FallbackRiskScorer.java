@@ -0,0 +1,201 @@
+package com.pacifico.quotation.client;
+
+import com.pacifico.quotation.config.RiskCircuitBreakerProperties;
+import com.pacifico.quotation.dto.RiskCacheEntry;
+import com.pacifico.risk.RiskBatchRequest;
+import com.pacifico.risk.RiskBatchResponse;
+import com.pacifico.risk.RiskInferenceServiceGrpc;
+import com.pacifico.risk.RiskRequest;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process risk scorer used while ml-risk-ms is unavailable or too slow.
+ * <p>
+ * While the risk circuit is closed, a background task scores a quantized
+ * {@code age x car_value} grid through {@code EvaluateRiskBatch} and swaps the result in
+ * as the current snapshot. Fallback scores interpolate linearly between the two
+ * surrounding car value nodes of the customer's age row, so a lookup is a couple of array
+ * reads. Refreshes are skipped while the circuit is not closed, so a degraded service
+ * never overwrites a good snapshot.
+ * <p>
+ * Until the first refresh succeeds, and for profiles outside the grid, scores come from
+ * the rules ml-risk-ms itself falls back to. Risk levels use the ml-risk-ms thresholds.
+ * <p>
+ * Every entry produced here carries {@link #MODEL_VERSION}, so callers can mark the quote
+ * as fallback-scored and keep the score out of the risk cache. Scores are counted in
+ * {@code risk.fallback.scores}, tagged with the {@code source} ({@code snapshot} or
+ * {@code rules}); {@code risk.fallback.snapshot.age} is the time since the last refresh.
+ */
+@Component
+public class FallbackRiskScorer {
+
+    private static final Logger logger = LoggerFactory.getLogger(FallbackRiskScorer.class);
+
+    /** Model version of every entry scored here. */
+    public static final String MODEL_VERSION = "fallback";
+
+    @GrpcClient("ml-risk-ms")
+    private RiskInferenceServiceGrpc.RiskInferenceServiceBlockingStub riskStub;
+
+    private final RiskCircuitBreakerProperties.Fallback properties;
+    private final CircuitBreaker circuitBreaker;
+    private final Counter snapshotScores;
+    private final Counter ruleScores;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("risk-fallback-sync").daemon().factory());
+
+    private volatile Snapshot snapshot;
+
+    public FallbackRiskScorer(RiskCircuitBreakerProperties properties,
+                              CircuitBreaker riskCircuitBreaker,
+                              MeterRegistry meterRegistry) {
+        this.properties = properties.fallback();
+        this.circuitBreaker = riskCircuitBreaker;
+        this.snapshotScores = scoreCounter(meterRegistry, "snapshot");
+        this.ruleScores = scoreCounter(meterRegistry, "rules");
+        meterRegistry.gauge("risk.fallback.snapshot.age", this, scorer -> {
+            Snapshot current = scorer.snapshot;
+            return current == null ? Double.NaN : (System.currentTimeMillis() - current.syncedAt()) / 1000.0;
+        });
+    }
+
+    @PostConstruct
+    void start() {
+        if (properties.syncEnabled()) {
+            scheduler.scheduleWithFixedDelay(this::syncQuietly, 0,
+                    properties.syncInterval().toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Scores a customer profile without leaving the process.
+     *
+     * @param age The age of the customer.
+     * @param carValue The appraised value of the vehicle.
+     * @return The fallback assessment, versioned {@link #MODEL_VERSION}.
+     */
+    public RiskCacheEntry score(int age, double carValue) {
+        Snapshot current = snapshot;
+        double score;
+        if (current != null && current.covers(age, carValue)) {
+            snapshotScores.increment();
+            score = current.score(age, carValue);
+        } else {
+            ruleScores.increment();
+            score = Math.min((age < 25 ? 0.4 : 0.1) + (carValue > 50000 ? 0.4 : 0.1), 1.0);
+        }
+        return new RiskCacheEntry(score, riskLevel(score), MODEL_VERSION);
+    }
+
+    /**
+     * @param entry A risk assessment.
+     * @return Whether the assessment was produced by this scorer.
+     */
+    public static boolean isFallback(RiskCacheEntry entry) {
+        return MODEL_VERSION.equals(entry.modelVersion());
+    }
+
+    /**
+     * Scores the whole grid through ml-risk-ms and replaces the current snapshot.
+     *
+     * @return Whether the snapshot was replaced; {@code false} when the circuit is not closed.
+     */
+    boolean sync() {
+        if (circuitBreaker.getState() != CircuitBreaker.State.CLOSED) {
+            logger.info("Skipping fallback snapshot refresh, risk circuit is {}", circuitBreaker.getState());
+            return false;
+        }
+        int ages = properties.maxAge() - properties.minAge() + 1;
+        int carValueNodes = (int) Math.ceil(properties.maxCarValue() / properties.carValueStep()) + 1;
+        double[] table = new double[ages * carValueNodes];
+
+        List<RiskRequest> batch = new ArrayList<>(properties.batchSize());
+        int scored = 0;
+        for (int row = 0; row < table.length; row++) {
+            batch.add(RiskRequest.newBuilder()
+                    .setAge(properties.minAge() + row / carValueNodes)
+                    .setCarValue((row % carValueNodes) * properties.carValueStep())
+                    .build());
+            if (batch.size() == properties.batchSize() || row == table.length - 1) {
+                RiskBatchResponse response = riskStub
+                        .withDeadlineAfter(properties.syncTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                        .evaluateRiskBatch(RiskBatchRequest.newBuilder().addAllRequests(batch).build());
+                if (response.getResponsesCount() != batch.size()) {
+                    throw new IllegalStateException("Risk batch size mismatch: sent " + batch.size()
+                            + ", received " + response.getResponsesCount());
+                }
+                for (int i = 0; i < batch.size(); i++) {
+                    table[scored++] = response.getResponses(i).getProbabilityScore();
+                }
+                batch.clear();
+            }
+        }
+
+        snapshot = new Snapshot(properties.minAge(), properties.maxAge(), carValueNodes,
+                properties.carValueStep(), table, System.currentTimeMillis());
+        logger.info("Refreshed fallback risk snapshot: {} ages x {} car value nodes", ages, carValueNodes);
+        return true;
+    }
+
+    private void syncQuietly() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            // The previous snapshot stays in use
+            logger.warn("Failed to refresh fallback risk snapshot: {}", e.getMessage());
+        }
+    }
+
+    private static String riskLevel(double score) {
+        if (score < 0.3) return "LOW";
+        if (score < 0.7) return "MEDIUM";
+        return "HIGH";
+    }
+
+    private static Counter scoreCounter(MeterRegistry meterRegistry, String source) {
+        return Counter.builder("risk.fallback.scores")
+                .description("Risk scores computed in-process while ml-risk-ms is degraded")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Immutable scored grid; rows are ages, columns are car value nodes starting at zero.
+     */
+    private record Snapshot(int minAge, int maxAge, int carValueNodes, double carValueStep,
+                            double[] table, long syncedAt) {
+
+        boolean covers(int age, double carValue) {
+            return age >= minAge && age <= maxAge
+                    && carValue >= 0 && carValue <= (carValueNodes - 1) * carValueStep;
+        }
+
+        double score(int age, double carValue) {
+            double position = carValue / carValueStep;
+            int cell = Math.min((int) position, carValueNodes - 2);
+            double fraction = position - cell;
+            int index = (age - minAge) * carValueNodes + cell;
+            double lower = table[index];
+            return lower + (table[index + 1] - lower) * fraction;
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.pacifico.quotation.client;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.pacifico.quotation.config.QuotationPipelineProperties;
+import com.pacifico.quotation.config.RiskHedgingProperties;
+import com.pacifico.risk.RiskInferenceServiceGrpc;
+import com.pacifico.risk.RiskRequest;
+import com.pacifico.risk.RiskResponse;
+import io.grpc.Deadline;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.annotation.PreDestroy;
+import net.devh.boot.grpc.client.inject.GrpcClient;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking risk scoring calls to ml-risk-ms, optionally hedged.
+ * <p>
+ * With hedging enabled, a second identical call is sent if the first has not completed
+ * after the configured latency percentile (never less than {@code min-delay}). The first
+ * response wins and the other call is cancelled. Both calls share one deadline, so hedging
+ * never extends the time a caller can wait. Together with the {@code least_outstanding}
+ * load balancing policy the second call lands on a different replica, the one least busy.
+ * <p>
+ * A call that fails before the hedge is sent fails the request; hedging targets slow
+ * replicas, not errors. Once both calls are out, the request fails only if both fail.
+ * <p>
+ * Latency is recorded in {@code risk.client.latency}, which also provides the percentile;
+ * hedges sent and hedges that answered first are counted in {@code risk.client.hedges}.
+ */
+@Component
+public class HedgedRiskClient {
+
+    @GrpcClient("ml-risk-ms")
+    private RiskInferenceServiceGrpc.RiskInferenceServiceFutureStub riskFutureStub;
+
+    private final RiskHedgingProperties properties;
+    private final Duration riskDeadline;
+    private final Timer latency;
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("risk-hedging").daemon().factory());
+
+    public HedgedRiskClient(RiskHedgingProperties properties,
+                            QuotationPipelineProperties pipelineProperties,
+                            MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.riskDeadline = pipelineProperties.riskDeadline();
+        this.latency = Timer.builder("risk.client.latency")
+                .description("Latency of risk scoring calls to ml-risk-ms")
+                .publishPercentiles(properties.percentile())
+                .distributionStatisticExpiry(Duration.ofMinutes(1))
+                .register(meterRegistry);
+        this.hedgesSent = hedgeCounter(meterRegistry, "sent");
+        this.hedgesWon = hedgeCounter(meterRegistry, "won");
+    }
+
+    /**
+     * Scores a customer profile.
+     *
+     * @param request The risk request.
+     * @return A future completed with the first successful response; cancelling it cancels the calls.
+     */
+    public CompletableFuture<RiskResponse> evaluateRisk(RiskRequest request) {
+        if (!properties.enabled()) {
+            CompletableFuture<RiskResponse> result = new CompletableFuture<>();
+            ListenableFuture<RiskResponse> call = riskFutureStub.evaluateRisk(request);
+            attach(call, result, new AtomicInteger(1), false);
+            result.whenComplete((response, error) -> call.cancel(true));
+            return result;
+        }
+
+        RiskInferenceServiceGrpc.RiskInferenceServiceFutureStub stub =
+                riskFutureStub.withDeadline(Deadline.after(riskDeadline.toNanos(), TimeUnit.NANOSECONDS));
+        CompletableFuture<RiskResponse> result = new CompletableFuture<>();
+        List<ListenableFuture<RiskResponse>> calls = new CopyOnWriteArrayList<>();
+        AtomicInteger running = new AtomicInteger(1);
+
+        ListenableFuture<RiskResponse> primary = stub.evaluateRisk(request);
+        calls.add(primary);
+        attach(primary, result, running, false);
+
+        ScheduledFuture<?> hedge = scheduler.schedule(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            running.incrementAndGet();
+            hedgesSent.increment();
+            ListenableFuture<RiskResponse> secondary = stub.evaluateRisk(request);
+            calls.add(secondary);
+            attach(secondary, result, running, true);
+            if (result.isDone()) {
+                // Completed while the hedge was being sent
+                secondary.cancel(true);
+            }
+        }, hedgeDelay().toNanos(), TimeUnit.NANOSECONDS);
+
+        result.whenComplete((response, error) -> {
+            hedge.cancel(false);
+            calls.forEach(call -> call.cancel(true));
+        });
+        return result;
+    }
+
+    /**
+     * @return The current hedging delay: the configured latency percentile, at least {@code min-delay}.
+     */
+    Duration hedgeDelay() {
+        for (ValueAtPercentile value : latency.takeSnapshot().percentileValues()) {
+            if (value.percentile() == properties.percentile() && value.value() > 0) {
+                long nanos = (long) value.value(TimeUnit.NANOSECONDS);
+                return nanos > properties.minDelay().toNanos() ? Duration.ofNanos(nanos) : properties.minDelay();
+            }
+        }
+        return properties.minDelay();
+    }
+
+    private void attach(ListenableFuture<RiskResponse> call, CompletableFuture<RiskResponse> result,
+                        AtomicInteger running, boolean hedged) {
+        long start = System.nanoTime();
+        Futures.addCallback(call, new FutureCallback<>() {
+            @Override
+            public void onSuccess(RiskResponse response) {
+                latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                if (result.complete(response) && hedged) {
+                    hedgesWon.increment();
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable error) {
+                if (!(error instanceof CancellationException) && running.decrementAndGet() == 0) {
+                    result.completeExceptionally(error);
+                }
+            }
+        }, MoreExecutors.directExecutor());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    private static Counter hedgeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("risk.client.hedges")
+                .description("Hedged risk scoring calls")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,217 @@
+package com.pacifico.quotation.client;
+
+import io.grpc.ClientStreamTracer;
+import io.grpc.ConnectivityState;
+import io.grpc.ConnectivityStateInfo;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.LoadBalancer;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Client-side load balancer that sends each call to the ready replica with the fewest
+ * calls in flight.
+ * <p>
+ * A replica that slows down accumulates outstanding calls and stops receiving new ones
+ * until it drains, whereas round robin keeps feeding it its full share and lets it drive
+ * the tail latency. Ties are broken by rotating the starting replica, so an idle set of
+ * replicas is used round robin.
+ * <p>
+ * In-flight calls are counted with a stream tracer attached to every pick, which also
+ * records per-replica latency in {@code grpc.client.instance.latency}; the in-flight count
+ * is exposed as {@code grpc.client.instance.outstanding}. Both are tagged with the channel
+ * {@code target} and the replica {@code instance} address, and removed when the replica
+ * leaves the resolved address list.
+ * <p>
+ * All methods except the picker run in the channel's synchronization context.
+ */
+final class LeastOutstandingLoadBalancer extends LoadBalancer {
+
+    private final Helper helper;
+    private final MeterRegistry meterRegistry;
+    private final Map<EquivalentAddressGroup, Endpoint> endpoints = new HashMap<>();
+
+    private Status lastError = Status.UNAVAILABLE.withDescription("No ready replica");
+
+    LeastOutstandingLoadBalancer(Helper helper, MeterRegistry meterRegistry) {
+        this.helper = helper;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Status acceptResolvedAddresses(ResolvedAddresses resolvedAddresses) {
+        List<EquivalentAddressGroup> groups = resolvedAddresses.getAddresses();
+        if (groups.isEmpty()) {
+            Status unavailable = Status.UNAVAILABLE.withDescription("Name resolver returned no addresses for "
+                    + helper.getAuthority());
+            handleNameResolutionError(unavailable);
+            return unavailable;
+        }
+
+        Set<EquivalentAddressGroup> resolved = new HashSet<>();
+        for (EquivalentAddressGroup group : groups) {
+            // Attributes change between resolutions; identity is the address list
+            EquivalentAddressGroup key = new EquivalentAddressGroup(group.getAddresses());
+            resolved.add(key);
+            if (!endpoints.containsKey(key)) {
+                endpoints.put(key, createEndpoint(key, group));
+            }
+        }
+        endpoints.entrySet().removeIf(entry -> {
+            if (resolved.contains(entry.getKey())) {
+                return false;
+            }
+            entry.getValue().shutdown();
+            return true;
+        });
+        updateBalancingState();
+        return Status.OK;
+    }
+
+    @Override
+    public void handleNameResolutionError(Status error) {
+        lastError = error;
+        if (endpoints.values().stream().noneMatch(endpoint -> endpoint.state == ConnectivityState.READY)) {
+            helper.updateBalancingState(ConnectivityState.TRANSIENT_FAILURE,
+                    new FixedResultPicker(PickResult.withError(error)));
+        }
+    }
+
+    @Override
+    public void requestConnection() {
+        endpoints.values().forEach(endpoint -> endpoint.subchannel.requestConnection());
+    }
+
+    @Override
+    public void shutdown() {
+        endpoints.values().forEach(Endpoint::shutdown);
+        endpoints.clear();
+    }
+
+    private Endpoint createEndpoint(EquivalentAddressGroup key, EquivalentAddressGroup group) {
+        Subchannel subchannel = helper.createSubchannel(CreateSubchannelArgs.newBuilder()
+                .setAddresses(group)
+                .build());
+        Endpoint endpoint = new Endpoint(subchannel, instanceName(group.getAddresses().get(0)));
+        subchannel.start(stateInfo -> onStateChange(key, endpoint, stateInfo));
+        subchannel.requestConnection();
+        return endpoint;
+    }
+
+    private void onStateChange(EquivalentAddressGroup key, Endpoint endpoint, ConnectivityStateInfo stateInfo) {
+        if (endpoints.get(key) != endpoint || stateInfo.getState() == ConnectivityState.SHUTDOWN) {
+            return;
+        }
+        if (stateInfo.getState() == ConnectivityState.IDLE) {
+            endpoint.subchannel.requestConnection();
+        }
+        if (stateInfo.getState() == ConnectivityState.TRANSIENT_FAILURE) {
+            lastError = stateInfo.getStatus();
+        }
+        endpoint.state = stateInfo.getState();
+        updateBalancingState();
+    }
+
+    private void updateBalancingState() {
+        List<Endpoint> ready = endpoints.values().stream()
+                .filter(endpoint -> endpoint.state == ConnectivityState.READY)
+                .toList();
+        if (!ready.isEmpty()) {
+            helper.updateBalancingState(ConnectivityState.READY, new Picker(ready));
+        } else if (endpoints.values().stream().anyMatch(endpoint -> endpoint.state != ConnectivityState.TRANSIENT_FAILURE)) {
+            helper.updateBalancingState(ConnectivityState.CONNECTING, new FixedResultPicker(PickResult.withNoResult()));
+        } else {
+            helper.updateBalancingState(ConnectivityState.TRANSIENT_FAILURE,
+                    new FixedResultPicker(PickResult.withError(lastError)));
+        }
+    }
+
+    private static String instanceName(SocketAddress address) {
+        if (address instanceof InetSocketAddress inet) {
+            return inet.getHostString() + ":" + inet.getPort();
+        }
+        return address.toString();
+    }
+
+    private final class Endpoint {
+
+        private final Subchannel subchannel;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final Timer latency;
+        private final Gauge outstandingGauge;
+        private final ClientStreamTracer.Factory tracerFactory;
+
+        private volatile ConnectivityState state = ConnectivityState.IDLE;
+
+        private Endpoint(Subchannel subchannel, String instance) {
+            this.subchannel = subchannel;
+            this.latency = Timer.builder("grpc.client.instance.latency")
+                    .description("Latency of calls per backend replica")
+                    .tag("target", helper.getAuthority())
+                    .tag("instance", instance)
+                    .register(meterRegistry);
+            this.outstandingGauge = Gauge.builder("grpc.client.instance.outstanding", outstanding, AtomicInteger::get)
+                    .description("Calls in flight per backend replica")
+                    .tag("target", helper.getAuthority())
+                    .tag("instance", instance)
+                    .register(meterRegistry);
+            this.tracerFactory = new ClientStreamTracer.Factory() {
+                @Override
+                public ClientStreamTracer newClientStreamTracer(ClientStreamTracer.StreamInfo info, Metadata headers) {
+                    outstanding.incrementAndGet();
+                    long start = System.nanoTime();
+                    return new ClientStreamTracer() {
+                        @Override
+                        public void streamClosed(Status status) {
+                            outstanding.decrementAndGet();
+                            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                        }
+                    };
+                }
+            };
+        }
+
+        private void shutdown() {
+            subchannel.shutdown();
+            meterRegistry.remove(latency);
+            meterRegistry.remove(outstandingGauge);
+        }
+    }
+
+    private static final class Picker extends SubchannelPicker {
+
+        private final List<Endpoint> ready;
+        private final AtomicInteger rotation = new AtomicInteger();
+
+        private Picker(List<Endpoint> ready) {
+            this.ready = ready;
+        }
+
+        @Override
+        public PickResult pickSubchannel(PickSubchannelArgs args) {
+            int size = ready.size();
+            int start = Math.floorMod(rotation.getAndIncrement(), size);
+            Endpoint best = ready.get(start);
+            for (int i = 1; i < size; i++) {
+                Endpoint candidate = ready.get((start + i) % size);
+                if (candidate.outstanding.get() < best.outstanding.get()) {
+                    best = candidate;
+                }
+            }
+            return PickResult.withSubchannel(best.subchannel, best.tracerFactory);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.pacifico.quotation.client;
+
+import io.grpc.LoadBalancer;
+import io.grpc.LoadBalancerProvider;
+import io.micrometer.core.instrument.Metrics;
+
+/**
+ * Registers {@link LeastOutstandingLoadBalancer} under the {@value #POLICY_NAME} policy name.
+ * <p>
+ * Loaded by gRPC through {@code META-INF/services}, so it has no access to the Spring context;
+ * metrics go to the Micrometer global registry, to which Spring Boot adds its registries.
+ */
+public final class LeastOutstandingLoadBalancerProvider extends LoadBalancerProvider {
+
+    public static final String POLICY_NAME = "least_outstanding";
+
+    @Override
+    public boolean isAvailable() {
+        return true;
+    }
+
+    @Override
+    public int getPriority() {
+        return 5;
+    }
+
+    @Override
+    public String getPolicyName() {
+        return POLICY_NAME;
+    }
+
+    @Override
+    public LoadBalancer newLoadBalancer(LoadBalancer.Helper helper) {
+        return new LeastOutstandingLoadBalancer(helper, Metrics.globalRegistry);
+    }
+}
@@ -0,0 +1,44 @@
+package com.pacifico.quotation.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.pacifico.quotation.graphql.PersistedQueryDocumentProvider;
+import com.pacifico.quotation.graphql.PersistedQueryRequestFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.graphql.GraphQlSourceBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(QuotationGraphQlProperties.class)
+public class GraphQlConfig {
+
+    /**
+     * Serves repeated and persisted documents without parsing and validating them again.
+     */
+    @Bean
+    public PersistedQueryDocumentProvider persistedQueryDocumentProvider(
+            MeterRegistry meterRegistry, QuotationGraphQlProperties properties) {
+        return new PersistedQueryDocumentProvider(properties.documentCacheSize(), meterRegistry);
+    }
+
+    @Bean
+    public GraphQlSourceBuilderCustomizer persistedQueryCustomizer(PersistedQueryDocumentProvider documentProvider) {
+        return builder -> builder.configureGraphQl(graphQl -> graphQl.preparsedDocumentProvider(documentProvider));
+    }
+
+    /**
+     * Applies {@link PersistedQueryRequestFilter} to the GraphQL endpoint only.
+     */
+    @Bean
+    public FilterRegistrationBean<PersistedQueryRequestFilter> persistedQueryRequestFilter(
+            ObjectMapper objectMapper,
+            @Value("${spring.graphql.path:/graphql}") String graphQlPath) {
+        FilterRegistrationBean<PersistedQueryRequestFilter> registration =
+                new FilterRegistrationBean<>(new PersistedQueryRequestFilter(objectMapper));
+        registration.addUrlPatterns(graphQlPath);
+        return registration;
+    }
+}
@@ -0,0 +1,32 @@
+package com.pacifico.quotation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Outbox relay settings bound from the {@code quotation.outbox} namespace.
+ *
+ * @param enabled Whether this instance relays outbox events to Kafka.
+ * @param batchSize Maximum number of events claimed and published per batch.
+ * @param pollInterval Pause after a batch smaller than {@code batchSize}; full batches are followed immediately.
+ * @param sendTimeout Maximum time to wait for the broker to acknowledge a batch; unacknowledged events count as failed.
+ * @param claimTimeout How long claimed events are reserved for the relay publishing them; events of a relay that dies mid-batch are picked up again after it.
+ * @param maxAttempts Failed publish attempts after which an event is parked.
+ * @param retryBackoff Delay before the first retry of a failed event, doubled on each further attempt.
+ * @param maxRetryBackoff Upper bound of the delay between retries.
+ * @param lagRefresh Interval between refreshes of the backlog gauges, which count the whole outbox.
+ */
+@ConfigurationProperties(prefix = "quotation.outbox")
+public record OutboxProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("500") int batchSize,
+        @DefaultValue("200ms") Duration pollInterval,
+        @DefaultValue("10s") Duration sendTimeout,
+        @DefaultValue("2m") Duration claimTimeout,
+        @DefaultValue("20") int maxAttempts,
+        @DefaultValue("1s") Duration retryBackoff,
+        @DefaultValue("5m") Duration maxRetryBackoff,
+        @DefaultValue("15s") Duration lagRefresh
+) {}
@@ -0,0 +1,47 @@
+package com.pacifico.quotation.config;
+
+import com.pacifico.quotation.model.Quote;
+import com.pacifico.quotation.repository.OutboxEventRepository;
+import com.pacifico.quotation.repository.WriteBehindBuffer;
+import com.pacifico.quotation.service.OutboxRelay;
+import com.pacifico.quotation.service.QuoteWriter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+@Configuration
+@EnableConfigurationProperties({OutboxProperties.class, QuoteCacheProperties.class})
+public class PersistenceConfig {
+
+    /**
+     * Groups concurrent quote inserts, and their outbox events, into batches sized like the JDBC batches.
+     */
+    @Bean
+    public WriteBehindBuffer<Quote> quoteWriteBuffer(QuoteWriter quoteWriter,
+                                                     MeterRegistry meterRegistry,
+                                                     @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}") int batchSize) {
+        return new WriteBehindBuffer<>("quotes", quoteWriter::saveAll, batchSize, 10_000, meterRegistry);
+    }
+
+    /**
+     * Publishes committed outbox events to Kafka in the background.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "quotation.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+    public OutboxRelay outboxRelay(OutboxEventRepository outboxEventRepository,
+                                   KafkaTemplate<String, Object> kafkaTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   OutboxProperties properties,
+                                   MeterRegistry meterRegistry) {
+        OutboxRelay relay = new OutboxRelay(outboxEventRepository, kafkaTemplate,
+                new TransactionTemplate(transactionManager), properties, meterRegistry);
+        relay.start();
+        return relay;
+    }
+}
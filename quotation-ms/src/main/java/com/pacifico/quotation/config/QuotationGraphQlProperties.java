@@ -0,0 +1,14 @@
+package com.pacifico.quotation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * GraphQL endpoint settings bound from the {@code quotation.graphql} namespace.
+ *
+ * @param documentCacheSize Maximum number of parsed and validated documents kept, keyed by SHA-256 (automatic persisted queries).
+ */
+@ConfigurationProperties(prefix = "quotation.graphql")
+public record QuotationGraphQlProperties(
+        @DefaultValue("1000") long documentCacheSize
+) {}
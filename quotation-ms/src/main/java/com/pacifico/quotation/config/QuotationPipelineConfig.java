@@ -0,0 +1,72 @@
+package com.pacifico.quotation.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.MethodDescriptor;
+import io.grpc.StatusRuntimeException;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.devh.boot.grpc.client.interceptor.GrpcGlobalClientInterceptor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+@EnableConfigurationProperties({QuotationPipelineProperties.class, RiskHedgingProperties.class,
+        RiskCircuitBreakerProperties.class, RejectionFilterProperties.class})
+public class QuotationPipelineConfig {
+
+    /**
+     * Gives every outgoing gRPC call a deadline unless the caller already set one.
+     * <p>
+     * Applied per call rather than on the injected stubs, whose deadline would otherwise
+     * be fixed at injection time.
+     */
+    @Bean
+    @GrpcGlobalClientInterceptor
+    public ClientInterceptor riskDeadlineInterceptor(QuotationPipelineProperties properties) {
+        long deadlineMillis = properties.riskDeadline().toMillis();
+        return new ClientInterceptor() {
+            @Override
+            public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+                                                                       CallOptions callOptions, Channel next) {
+                CallOptions options = callOptions.getDeadline() == null
+                        ? callOptions.withDeadlineAfter(deadlineMillis, TimeUnit.MILLISECONDS)
+                        : callOptions;
+                return next.newCall(method, options);
+            }
+        };
+    }
+
+    /**
+     * Circuit breaker around risk scoring calls to ml-risk-ms.
+     * <p>
+     * Opens on either a high error rate or a high share of slow calls, so a replica set that
+     * still answers but no longer within budget is also shed. Only gRPC failures are recorded;
+     * rejections such as {@code HighRiskException} are business outcomes. State, call outcomes
+     * and rates are published under {@code resilience4j.circuitbreaker.*} with
+     * {@code name=ml-risk-ms}.
+     */
+    @Bean
+    public CircuitBreaker riskCircuitBreaker(RiskCircuitBreakerProperties properties, MeterRegistry meterRegistry) {
+        CircuitBreakerRegistry registry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(properties.failureRateThreshold())
+                .slowCallRateThreshold(properties.slowCallRateThreshold())
+                .slowCallDurationThreshold(properties.slowCallDuration())
+                .slidingWindowSize(properties.slidingWindowSize())
+                .minimumNumberOfCalls(properties.minimumNumberOfCalls())
+                .waitDurationInOpenState(properties.waitInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(properties.permittedCallsInHalfOpenState())
+                .recordExceptions(StatusRuntimeException.class)
+                .build());
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registry).bindTo(meterRegistry);
+        return registry.circuitBreaker("ml-risk-ms");
+    }
+}
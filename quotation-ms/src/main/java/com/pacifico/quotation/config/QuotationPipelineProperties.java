@@ -0,0 +1,26 @@
+package com.pacifico.quotation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Quotation pipeline settings bound from the {@code quotation.pipeline} namespace.
+ *
+ * @param mode Whether {@code createQuote} runs the non-blocking or the sequential pipeline.
+ * @param riskDeadline Deadline applied to every call to ml-risk-ms that does not set its own.
+ */
+@ConfigurationProperties(prefix = "quotation.pipeline")
+public record QuotationPipelineProperties(
+        @DefaultValue("ASYNC") Mode mode,
+        @DefaultValue("500ms") Duration riskDeadline
+) {
+
+    public enum Mode {
+        /** Future stub and {@code CompletableFuture} stages; no thread waits on the gRPC call. */
+        ASYNC,
+        /** Blocking stub, each step run in turn on the request thread. */
+        BLOCKING
+    }
+}
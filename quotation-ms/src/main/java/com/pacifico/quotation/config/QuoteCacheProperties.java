@@ -0,0 +1,18 @@
+package com.pacifico.quotation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Approved quote cache settings bound from the {@code quotation.quote-cache} namespace.
+ *
+ * @param maxSize Maximum number of quotes kept in memory.
+ * @param ttl Time to live of cached quotes; approved quotes never change, so this only bounds memory residency.
+ */
+@ConfigurationProperties(prefix = "quotation.quote-cache")
+public record QuoteCacheProperties(
+        @DefaultValue("10000") long maxSize,
+        @DefaultValue("1h") Duration ttl
+) {}
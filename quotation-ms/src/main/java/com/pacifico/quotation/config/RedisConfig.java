@@ -1,13 +1,22 @@
 package com.pacifico.quotation.config;
 
+import com.pacifico.quotation.cache.RiskCache;
+import com.pacifico.quotation.cache.RiskCacheEntryCodec;
+import com.pacifico.quotation.dto.RiskCacheEntry;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
+import java.nio.charset.StandardCharsets;
+
 @Configuration
+@EnableConfigurationProperties(RiskCacheProperties.class)
 public class RedisConfig {
 
     @Bean
@@ -18,4 +27,30 @@ public class RedisConfig {
         template.setValueSerializer(new GenericJackson2JsonRedisSerializer());
         return template;
     }
+
+    /**
+     * Template dedicated to risk assessments, stored with the compact binary codec.
+     */
+    @Bean
+    public RedisTemplate<String, RiskCacheEntry> riskCacheRedisTemplate(RedisConnectionFactory connectionFactory) {
+        RedisTemplate<String, RiskCacheEntry> template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(new StringRedisSerializer());
+        template.setValueSerializer(new RiskCacheEntryCodec());
+        return template;
+    }
+
+    /**
+     * Subscribes the local risk cache to invalidations published by other replicas.
+     */
+    @Bean
+    public RedisMessageListenerContainer riskCacheInvalidationListener(RedisConnectionFactory connectionFactory,
+                                                                       RiskCache riskCache) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(
+                (message, pattern) -> riskCache.onInvalidation(new String(message.getBody(), StandardCharsets.UTF_8)),
+                new ChannelTopic(RiskCache.INVALIDATION_CHANNEL));
+        return container;
+    }
 }
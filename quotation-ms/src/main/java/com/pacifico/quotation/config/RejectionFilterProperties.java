@@ -0,0 +1,24 @@
+package com.pacifico.quotation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * High-risk rejection fast path settings, bound from the {@code quotation.rejection-filter} namespace.
+ *
+ * @param enabled Whether repeated high-risk applicants are rejected before the risk cache is consulted.
+ * @param window Lifetime of one filter generation; a rejection is remembered for one to two windows.
+ * @param expectedInsertions Distinct rejections per window the filter is sized for.
+ * @param falsePositiveRate Target false positive probability at {@code expectedInsertions}.
+ * @param exactMaxSize Most recent rejections whose score is kept to confirm filter hits.
+ */
+@ConfigurationProperties(prefix = "quotation.rejection-filter")
+public record RejectionFilterProperties(
+        @DefaultValue("true") boolean enabled,
+        @DefaultValue("10m") Duration window,
+        @DefaultValue("100000") long expectedInsertions,
+        @DefaultValue("0.01") double falsePositiveRate,
+        @DefaultValue("50000") long exactMaxSize
+) {}
@@ -0,0 +1,36 @@
+package com.pacifico.quotation.config;
+
+import com.pacifico.quotation.cache.RiskCacheKeyStrategy;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Risk cache settings bound from the {@code quotation.risk-cache} namespace.
+ *
+ * @param ttl Time to live of risk assessments in Redis.
+ * @param localMaxSize Maximum number of entries kept in the in-process L1 cache.
+ * @param localTtl Time to live in L1; kept short so replicas converge even if an invalidation is lost.
+ * @param keyStrategy Projection of the risk features used as cache key.
+ * @param carValueBucket Width of the car value buckets used in cache keys.
+ * @param modelVersion Version of the model deployed in ml-risk-ms; part of every key and entry.
+ * @param shadowStrategies Key strategies whose hit ratio is estimated on live traffic without being used.
+ * @param ttlJitter Fraction by which each Redis TTL is randomly shortened or lengthened, so entries
+ *                  written in a burst do not expire in a burst.
+ * @param refreshAhead Scale of the probabilistic early refresh; a hit re-scores the entry in the
+ *                     background with probability {@code exp(-remaining / refreshAhead)}. Zero disables it.
+ */
+@ConfigurationProperties(prefix = "quotation.risk-cache")
+public record RiskCacheProperties(
+        @DefaultValue("10m") Duration ttl,
+        @DefaultValue("10000") long localMaxSize,
+        @DefaultValue("60s") Duration localTtl,
+        @DefaultValue("DNI_CAR_BUCKET") RiskCacheKeyStrategy keyStrategy,
+        @DefaultValue("1000") double carValueBucket,
+        @DefaultValue("risk-model-v1") String modelVersion,
+        @DefaultValue List<RiskCacheKeyStrategy> shadowStrategies,
+        @DefaultValue("0.1") double ttlJitter,
+        @DefaultValue("1m") Duration refreshAhead
+) {}
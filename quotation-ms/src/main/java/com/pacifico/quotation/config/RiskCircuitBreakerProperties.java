@@ -0,0 +1,55 @@
+package com.pacifico.quotation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Circuit breaker and fallback scoring settings for ml-risk-ms, bound from the
+ * {@code quotation.risk-circuit-breaker} namespace.
+ *
+ * @param failureRateThreshold Percentage of failed calls in the window that opens the circuit.
+ * @param slowCallRateThreshold Percentage of slow calls in the window that opens the circuit.
+ * @param slowCallDuration Calls taking longer than this count as slow.
+ * @param slidingWindowSize Number of most recent calls the rates are computed over.
+ * @param minimumNumberOfCalls Calls required in the window before the rates are evaluated.
+ * @param waitInOpenState Time the circuit stays open before letting trial calls through.
+ * @param permittedCallsInHalfOpenState Trial calls that decide whether the circuit closes again.
+ * @param fallback Embedded scorer used while the circuit is open.
+ */
+@ConfigurationProperties(prefix = "quotation.risk-circuit-breaker")
+public record RiskCircuitBreakerProperties(
+        @DefaultValue("50") float failureRateThreshold,
+        @DefaultValue("50") float slowCallRateThreshold,
+        @DefaultValue("300ms") Duration slowCallDuration,
+        @DefaultValue("50") int slidingWindowSize,
+        @DefaultValue("20") int minimumNumberOfCalls,
+        @DefaultValue("15s") Duration waitInOpenState,
+        @DefaultValue("5") int permittedCallsInHalfOpenState,
+        @DefaultValue Fallback fallback
+) {
+
+    /**
+     * Lookup table synced from ml-risk-ms while it is healthy.
+     *
+     * @param syncEnabled Whether the table is refreshed in the background.
+     * @param syncInterval Time between two refreshes.
+     * @param syncTimeout Deadline of each batch scoring call made by a refresh.
+     * @param batchSize Grid points scored per batch call.
+     * @param minAge Lowest age covered by the table.
+     * @param maxAge Highest age covered by the table.
+     * @param maxCarValue Highest car value covered by the table; the grid starts at zero.
+     * @param carValueStep Distance between two car value grid nodes.
+     */
+    public record Fallback(
+            @DefaultValue("true") boolean syncEnabled,
+            @DefaultValue("10m") Duration syncInterval,
+            @DefaultValue("5s") Duration syncTimeout,
+            @DefaultValue("1000") int batchSize,
+            @DefaultValue("18") int minAge,
+            @DefaultValue("99") int maxAge,
+            @DefaultValue("200000") double maxCarValue,
+            @DefaultValue("5000") double carValueStep
+    ) {}
+}
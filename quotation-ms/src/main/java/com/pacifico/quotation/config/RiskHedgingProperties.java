@@ -0,0 +1,20 @@
+package com.pacifico.quotation.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Request hedging settings for calls to ml-risk-ms, bound from the {@code quotation.risk-hedging} namespace.
+ *
+ * @param enabled Whether a second call is sent when the first one is slow.
+ * @param percentile Latency percentile after which the second call is sent.
+ * @param minDelay Lower bound of the hedging delay; also used until enough latencies have been observed.
+ */
+@ConfigurationProperties(prefix = "quotation.risk-hedging")
+public record RiskHedgingProperties(
+        @DefaultValue("false") boolean enabled,
+        @DefaultValue("0.95") double percentile,
+        @DefaultValue("10ms") Duration minDelay
+) {}
@@ -1,21 +1,26 @@
 package com.pacifico.quotation.controller;
 
+import com.pacifico.quotation.config.QuotationPipelineProperties;
 import com.pacifico.quotation.dto.QuotationRequest;
 import com.pacifico.quotation.model.Quote;
 import com.pacifico.quotation.service.QuotationService;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Size;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.graphql.data.method.annotation.Argument;
 import org.springframework.graphql.data.method.annotation.MutationMapping;
 import org.springframework.stereotype.Controller;
 
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * GraphQL Controller for handling quotation-related operations.
  * <p>
  * This controller serves as the entry point for GraphQL mutations,
- * delegating business logic to {@link QuotationService}.
+ * delegating business logic to {@link QuotationService}. Mutations return a
+ * {@link CompletableFuture}, which Spring GraphQL resolves without holding the request thread.
  */
 @Controller
 public class QuotationController {
@@ -23,9 +28,30 @@ public class QuotationController {
     @Autowired
     private QuotationService quotationService;
 
+    @Autowired
+    private QuotationPipelineProperties pipelineProperties;
+
     @MutationMapping
-    public Map<String, Object> createQuote(@Valid @Argument QuotationRequest input) {
-        Quote quote = quotationService.orchestrateQuotation(input.dni(), input.age(), input.carValue());
+    public CompletableFuture<Map<String, Object>> createQuote(@Valid @Argument QuotationRequest input) {
+        CompletableFuture<Quote> quote = pipelineProperties.mode() == QuotationPipelineProperties.Mode.ASYNC
+                ? quotationService.orchestrateQuotationAsync(input.dni(), input.age(), input.carValue())
+                : CompletableFuture.completedFuture(
+                        quotationService.orchestrateQuotation(input.dni(), input.age(), input.carValue()));
+        return quote.thenApply(this::toResponse);
+    }
+
+    @MutationMapping
+    public CompletableFuture<List<Map<String, Object>>> createQuotes(
+            @Valid @Argument @Size(max = 500) List<@Valid QuotationRequest> inputs) {
+        return quotationService.orchestrateQuotationsAsync(inputs)
+                .thenApply(results -> results.stream()
+                        .map(result -> result.isApproved()
+                                ? toResponse(result.quote())
+                                : Map.<String, Object>of("status", "REJECTED", "message", result.rejectionReason()))
+                        .toList());
+    }
+
+    private Map<String, Object> toResponse(Quote quote) {
         return Map.of(
             "quoteId", quote.getId().toString(),
             "status", "SUCCESS",
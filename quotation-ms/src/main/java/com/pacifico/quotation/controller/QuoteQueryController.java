@@ -0,0 +1,46 @@
+package com.pacifico.quotation.controller;
+
+import com.pacifico.quotation.dto.QuoteConnection;
+import com.pacifico.quotation.model.Quote;
+import com.pacifico.quotation.service.QuoteQueryService;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import org.dataloader.DataLoader;
+import org.springframework.graphql.data.method.annotation.Argument;
+import org.springframework.graphql.data.method.annotation.QueryMapping;
+import org.springframework.graphql.execution.BatchLoaderRegistry;
+import org.springframework.stereotype.Controller;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * GraphQL Controller for reading quotations.
+ * <p>
+ * {@code quote(id)} goes through a {@link DataLoader}, so every quote requested in one
+ * GraphQL document (aliases, fragments, nested lookups) is fetched with a single
+ * {@link QuoteQueryService#findByIds} call.
+ */
+@Controller
+public class QuoteQueryController {
+
+    private final QuoteQueryService quoteQueryService;
+
+    public QuoteQueryController(QuoteQueryService quoteQueryService, BatchLoaderRegistry batchLoaderRegistry) {
+        this.quoteQueryService = quoteQueryService;
+        batchLoaderRegistry.forTypePair(Long.class, Quote.class)
+                .registerMappedBatchLoader((ids, environment) -> Mono.fromCallable(() -> quoteQueryService.findByIds(ids)));
+    }
+
+    @QueryMapping
+    public CompletableFuture<Quote> quote(@Argument Long id, DataLoader<Long, Quote> quoteLoader) {
+        return quoteLoader.load(id);
+    }
+
+    @QueryMapping
+    public QuoteConnection quotesByDni(@Argument String dni,
+                                       @Argument @Min(1) @Max(100) int first,
+                                       @Argument String after) {
+        return quoteQueryService.findByDni(dni, first, after);
+    }
+}
@@ -0,0 +1,24 @@
+package com.pacifico.quotation.dto;
+
+import com.pacifico.quotation.model.Quote;
+
+/**
+ * Outcome of one vehicle in a bulk quotation.
+ *
+ * @param quote The persisted quote, or {@code null} if the vehicle was rejected.
+ * @param rejectionReason Why the vehicle was rejected, or {@code null} if it was approved.
+ */
+public record QuotationResult(Quote quote, String rejectionReason) {
+
+    public static QuotationResult approved(Quote quote) {
+        return new QuotationResult(quote, null);
+    }
+
+    public static QuotationResult rejected(String reason) {
+        return new QuotationResult(null, reason);
+    }
+
+    public boolean isApproved() {
+        return quote != null;
+    }
+}
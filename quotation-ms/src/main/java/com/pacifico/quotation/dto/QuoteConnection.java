@@ -0,0 +1,18 @@
+package com.pacifico.quotation.dto;
+
+import com.pacifico.quotation.model.Quote;
+
+import java.util.List;
+
+/**
+ * A page of quotes in the GraphQL cursor connection format.
+ *
+ * @param edges The quotes of the page with their cursors, newest first.
+ * @param pageInfo Whether older quotes exist and where the next page starts.
+ */
+public record QuoteConnection(List<QuoteEdge> edges, PageInfo pageInfo) {
+
+    public record QuoteEdge(Quote node, String cursor) {}
+
+    public record PageInfo(boolean hasNextPage, String endCursor) {}
+}
@@ -0,0 +1,43 @@
+package com.pacifico.quotation.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of a quote in a customer's quote history, ordered by creation time and id.
+ * <p>
+ * Exposed to GraphQL clients as an opaque cursor.
+ *
+ * @param createdAt Creation time of the quote.
+ * @param id Quote id; breaks ties between quotes created at the same instant.
+ */
+public record QuoteCursor(LocalDateTime createdAt, Long id) {
+
+    private static final String SEPARATOR = "|";
+
+    /**
+     * @return The opaque cursor string.
+     */
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((createdAt + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor A cursor produced by {@link #encode()}.
+     * @return The decoded position.
+     * @throws IllegalArgumentException if the cursor is malformed.
+     */
+    public static QuoteCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = decoded.indexOf(SEPARATOR);
+            return new QuoteCursor(LocalDateTime.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+}
@@ -5,9 +5,27 @@ import java.io.Serializable;
  * DTO representing a cached risk assessment result.
  * <p>
  * This record is used to store risk data in Redis to avoid redundant gRPC calls.
+ * Entries carry the version of the model that produced them, so a score cached by a
+ * previous model is treated as a miss rather than served. Entries read from the cache also
+ * carry their expiry, which drives refresh-ahead.
  *
  * @param probabilityScore The inferred probability of risk.
  * @param riskLevel The categorized risk level (e.g., LOW, MEDIUM, HIGH).
+ * @param modelVersion The risk model version that produced the score.
+ * @param expiresAt Epoch millis at which the entry expires in Redis, or 0 when not yet cached.
  */
-public record RiskCacheEntry(double probabilityScore, String riskLevel) implements Serializable {
+public record RiskCacheEntry(double probabilityScore, String riskLevel, String modelVersion, long expiresAt)
+        implements Serializable {
+
+    public RiskCacheEntry(double probabilityScore, String riskLevel, String modelVersion) {
+        this(probabilityScore, riskLevel, modelVersion, 0);
+    }
+
+    /**
+     * @param expiresAt Epoch millis at which the entry expires in Redis.
+     * @return A copy of this entry carrying {@code expiresAt}.
+     */
+    public RiskCacheEntry withExpiresAt(long expiresAt) {
+        return new RiskCacheEntry(probabilityScore, riskLevel, modelVersion, expiresAt);
+    }
 }
@@ -0,0 +1,124 @@
+package com.pacifico.quotation.graphql;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import graphql.ExecutionInput;
+import graphql.GraphqlErrorBuilder;
+import graphql.execution.preparsed.PreparsedDocumentEntry;
+import graphql.execution.preparsed.PreparsedDocumentProvider;
+import graphql.execution.preparsed.persisted.PersistedQueryIdInvalid;
+import graphql.execution.preparsed.persisted.PersistedQueryNotFound;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Caches parsed and validated GraphQL documents and implements automatic persisted queries.
+ * <p>
+ * Documents are keyed by the SHA-256 of their text, which is also the id clients use in
+ * the {@code extensions.persistedQuery.sha256Hash} field of the Apollo protocol. A request
+ * carrying only the hash is served from the cache; if the hash is unknown it fails with
+ * {@code PersistedQueryNotFound} and the client retries with the full query, which is then
+ * parsed, validated and cached. Requests with a full query and no hash use the same cache,
+ * so repeated documents skip parsing and validation either way.
+ * <p>
+ * Only valid documents are cached. Cache hits and misses are exposed through the Caffeine
+ * binder under the {@code graphql.documents} cache name; persisted query lookups by hash
+ * are counted in {@code graphql.persisted.queries}.
+ */
+public class PersistedQueryDocumentProvider implements PreparsedDocumentProvider {
+
+    private static final String PERSISTED_QUERY = "persistedQuery";
+    private static final String SHA256_HASH = "sha256Hash";
+
+    private final Cache<String, PreparsedDocumentEntry> documents;
+    private final Counter persistedHits;
+    private final Counter persistedMisses;
+
+    /**
+     * @param maxSize Maximum number of documents kept.
+     * @param meterRegistry Registry for cache metrics.
+     */
+    public PersistedQueryDocumentProvider(long maxSize, MeterRegistry meterRegistry) {
+        this.documents = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, documents, "graphql.documents");
+        this.persistedHits = persistedCounter(meterRegistry, "hit");
+        this.persistedMisses = persistedCounter(meterRegistry, "not_found");
+    }
+
+    @Override
+    public PreparsedDocumentEntry getDocument(ExecutionInput executionInput,
+                                              Function<ExecutionInput, PreparsedDocumentEntry> parseAndValidate) {
+        String hash = persistedQueryHash(executionInput);
+        String query = executionInput.getQuery();
+
+        if (hash != null && (query.isBlank() || PersistedQuerySupport.PERSISTED_QUERY_MARKER.equals(query))) {
+            PreparsedDocumentEntry cached = documents.getIfPresent(hash);
+            if (cached == null) {
+                persistedMisses.increment();
+                PersistedQueryNotFound notFound = new PersistedQueryNotFound(hash);
+                return error(notFound.getMessage(), notFound.getExtensions());
+            }
+            persistedHits.increment();
+            return cached;
+        }
+
+        String queryHash = sha256(query);
+        if (hash != null && !hash.equalsIgnoreCase(queryHash)) {
+            PersistedQueryIdInvalid invalid = new PersistedQueryIdInvalid(hash);
+            return error(invalid.getMessage(), invalid.getExtensions());
+        }
+        PreparsedDocumentEntry cached = documents.getIfPresent(queryHash);
+        if (cached != null) {
+            return cached;
+        }
+        PreparsedDocumentEntry parsed = parseAndValidate.apply(executionInput);
+        if (!parsed.hasErrors()) {
+            documents.put(queryHash, parsed);
+        }
+        return parsed;
+    }
+
+    private static String persistedQueryHash(ExecutionInput executionInput) {
+        Map<String, Object> extensions = executionInput.getExtensions();
+        if (extensions != null && extensions.get(PERSISTED_QUERY) instanceof Map<?, ?> persistedQuery
+                && persistedQuery.get(SHA256_HASH) instanceof String hash) {
+            return hash.toLowerCase();
+        }
+        return null;
+    }
+
+    private static PreparsedDocumentEntry error(String message, Map<String, Object> extensions) {
+        return new PreparsedDocumentEntry(GraphqlErrorBuilder.newError()
+                .message(message)
+                .extensions(extensions)
+                .build());
+    }
+
+    static String sha256(String query) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(query.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    private static Counter persistedCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("graphql.persisted.queries")
+                .description("Persisted query lookups by hash")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
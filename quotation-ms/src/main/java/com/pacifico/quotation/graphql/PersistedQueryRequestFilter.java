@@ -0,0 +1,218 @@
+package com.pacifico.quotation.graphql;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lets hash-only persisted query requests through the Spring GraphQL HTTP handler.
+ * <p>
+ * The handler rejects a request without a {@code query}, but with automatic persisted
+ * queries the client sends only {@code extensions.persistedQuery}. For such requests the
+ * filter adds the {@link PersistedQuerySupport#PERSISTED_QUERY_MARKER} as query, which
+ * {@link PersistedQueryDocumentProvider} resolves from its cache.
+ * <p>
+ * The top-level fields are read with a streaming parser that stops at the first non-blank
+ * {@code query}. Only the bytes read up to that point are kept; they are replayed ahead of
+ * the unread remainder, so requests that carry a query are passed on unchanged without
+ * buffering the whole body or building a JSON tree.
+ */
+public class PersistedQueryRequestFilter extends OncePerRequestFilter {
+
+    private final ObjectMapper objectMapper;
+
+    public PersistedQueryRequestFilter(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        if (!HttpMethod.POST.matches(request.getMethod())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+        InputStream original = request.getInputStream();
+        ByteArrayOutputStream consumed = new ByteArrayOutputStream();
+        if (isHashOnly(new TeeInputStream(original, consumed))) {
+            consumed.write(original.readAllBytes());
+            ObjectNode document = (ObjectNode) objectMapper.readTree(consumed.toByteArray());
+            document.put("query", PersistedQuerySupport.PERSISTED_QUERY_MARKER);
+            byte[] body = objectMapper.writeValueAsBytes(document);
+            filterChain.doFilter(new BodyRequestWrapper(request, new ByteArrayInputStream(body), body.length), response);
+            return;
+        }
+        InputStream replayed = new SequenceInputStream(new ByteArrayInputStream(consumed.toByteArray()), original);
+        filterChain.doFilter(new BodyRequestWrapper(request, replayed, request.getContentLengthLong()), response);
+    }
+
+    private boolean isHashOnly(InputStream body) {
+        boolean hasPersistedQuery = false;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            parser.disable(JsonParser.Feature.AUTO_CLOSE_SOURCE);
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return false;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("query".equals(field)) {
+                    if (value == JsonToken.VALUE_STRING && !parser.getText().isBlank()) {
+                        return false;
+                    }
+                } else if ("extensions".equals(field) && value == JsonToken.START_OBJECT) {
+                    JsonNode extensions = objectMapper.readTree(parser);
+                    hasPersistedQuery = extensions.hasNonNull("persistedQuery");
+                } else {
+                    parser.skipChildren();
+                }
+            }
+        } catch (IOException e) {
+            // Malformed bodies are left to the GraphQL handler to reject
+            return false;
+        }
+        return hasPersistedQuery;
+    }
+
+    /**
+     * Copies every byte read from the request into {@code consumed}, so it can be replayed.
+     */
+    private static final class TeeInputStream extends FilterInputStream {
+
+        private final OutputStream consumed;
+
+        TeeInputStream(InputStream in, OutputStream consumed) {
+            super(in);
+            this.consumed = consumed;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                consumed.write(b);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                consumed.write(buffer, offset, read);
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+            // The request stream is still read by the GraphQL handler
+        }
+    }
+
+    private static final class BodyRequestWrapper extends HttpServletRequestWrapper {
+
+        private final ServletInputStream inputStream;
+        private final long contentLength;
+
+        BodyRequestWrapper(HttpServletRequest request, InputStream body, long contentLength) {
+            super(request);
+            this.inputStream = new BodyInputStream(body);
+            this.contentLength = contentLength;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public int getContentLength() {
+            return contentLength > Integer.MAX_VALUE ? -1 : (int) contentLength;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return contentLength;
+        }
+    }
+
+    /**
+     * Serves the inspected body. What the filter read is in memory and the remainder comes
+     * from the request's blocking stream, so the stream always reports itself ready and a
+     * {@link ReadListener} is driven straight away.
+     */
+    private static final class BodyInputStream extends ServletInputStream {
+
+        private final InputStream body;
+        private boolean finished;
+
+        BodyInputStream(InputStream body) {
+            this.body = body;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = body.read();
+            finished = b == -1;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = body.read(buffer, offset, length);
+            finished = read == -1;
+            return read;
+        }
+
+        @Override
+        public boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setReadListener(ReadListener listener) {
+            try {
+                listener.onDataAvailable();
+                if (finished) {
+                    listener.onAllDataRead();
+                }
+            } catch (IOException e) {
+                listener.onError(e);
+            }
+        }
+    }
+}
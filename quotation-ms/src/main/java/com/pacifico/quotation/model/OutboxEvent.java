@@ -0,0 +1,60 @@
+package com.pacifico.quotation.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Kafka record waiting in the transactional outbox.
+ * <p>
+ * Written in the same transaction as the {@link Quote} it describes and deleted by the
+ * outbox relay once the broker has acknowledged it, so an event is published if and only
+ * if its quote was committed. An event the broker keeps refusing is parked after
+ * {@code quotation.outbox.max-attempts} and left in the table for inspection.
+ */
+@Entity
+@Table(name = "quote_outbox")
+@Getter
+@Setter
+@ToString(exclude = "payload")
+@EqualsAndHashCode(onlyExplicitlyIncluded = true)
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxEvent {
+    // allocationSize must match INCREMENT BY of quote_outbox_id_seq
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "outbox_id_seq")
+    @SequenceGenerator(name = "outbox_id_seq", sequenceName = "quote_outbox_id_seq", allocationSize = 50)
+    @EqualsAndHashCode.Include
+    private Long id;
+
+    private Long quoteId;
+    private String topic;
+    private String messageKey;
+
+    // Avro binary encoding of the event
+    @Column(length = 4096)
+    private byte[] payload;
+
+    private LocalDateTime createdAt;
+
+    // Failed publish attempts so far
+    private int attempts;
+
+    // Claimed by a relay or waiting to be retried until then; null when it can be relayed now
+    private LocalDateTime availableAt;
+
+    // Set once the event ran out of attempts; parked events are not relayed again
+    private LocalDateTime parkedAt;
+
+    @Column(length = 1000)
+    private String lastError;
+}
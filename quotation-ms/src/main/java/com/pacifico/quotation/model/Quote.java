@@ -20,7 +20,8 @@ import java.time.LocalDateTime;
  * It uses {@link NamedEntityGraph} to optimize database fetching and avoid N+1 issues.
  */
 @Entity
-@Table(name = "quotes")
+// Backs keyset pagination of a customer's quotes (quotesByDni)
+@Table(name = "quotes", indexes = @Index(name = "idx_quotes_dni_created_at", columnList = "dni, createdAt, id"))
 @Getter
 @Setter
 @ToString
@@ -33,8 +34,10 @@ import java.time.LocalDateTime;
     @NamedAttributeNode("status")
 })
 public class Quote implements Serializable {
+    // Sequence ids let Hibernate batch inserts; allocationSize must match INCREMENT BY of quotes_id_seq
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "quote_id_seq")
+    @SequenceGenerator(name = "quote_id_seq", sequenceName = "quotes_id_seq", allocationSize = 50)
     @EqualsAndHashCode.Include
     private Long id;
     
@@ -45,4 +48,8 @@ public class Quote implements Serializable {
     private String riskLevel;
     private String status;
     private LocalDateTime createdAt;
+
+    // Scored in-process while ml-risk-ms was degraded, not by the deployed model
+    @Column(nullable = false)
+    private boolean fallbackScored;
 }
@@ -0,0 +1,61 @@
+package com.pacifico.quotation.repository;
+
+import com.pacifico.quotation.model.OutboxEvent;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository interface for {@link OutboxEvent} entities.
+ */
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Locks the oldest events that are neither parked, claimed nor waiting to be retried.
+     * <p>
+     * Rows already locked by another relay are skipped ({@code FOR UPDATE SKIP LOCKED} on
+     * PostgreSQL). The lock is only held while the relay claims the rows; the claim itself
+     * ({@code availableAt}) keeps other instances away while the events are published.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = "jakarta.persistence.lock.timeout", value = "-2"))
+    @Query("select e from OutboxEvent e where e.parkedAt is null and (e.availableAt is null or e.availableAt <= :now) order by e.id")
+    List<OutboxEvent> findBatchForRelay(@Param("now") LocalDateTime now, Pageable pageable);
+
+    /**
+     * Records a failed publish attempt: the event is retried from {@code availableAt}, or
+     * parked when {@code parkedAt} is set.
+     */
+    @Modifying
+    @Query("update OutboxEvent e set e.attempts = :attempts, e.availableAt = :availableAt, e.parkedAt = :parkedAt, "
+            + "e.lastError = :lastError where e.id = :id")
+    int recordFailure(@Param("id") Long id,
+                      @Param("attempts") int attempts,
+                      @Param("availableAt") LocalDateTime availableAt,
+                      @Param("parkedAt") LocalDateTime parkedAt,
+                      @Param("lastError") String lastError);
+
+    /**
+     * Drops the claim on events the relay did not get to send, without recording an attempt.
+     */
+    @Modifying
+    @Query("update OutboxEvent e set e.availableAt = null where e.id in :ids")
+    int release(@Param("ids") Collection<Long> ids);
+
+    long countByParkedAtIsNull();
+
+    long countByParkedAtIsNotNull();
+
+    @Query("select min(e.createdAt) from OutboxEvent e where e.parkedAt is null")
+    LocalDateTime findOldestCreatedAt();
+}
@@ -1,17 +1,46 @@
 package com.pacifico.quotation.repository;
 
+import com.pacifico.quotation.dto.QuoteCursor;
 import com.pacifico.quotation.model.Quote;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 /**
  * Repository interface for {@link Quote} entities.
  * <p>
  * Provides standard CRUD operations and custom optimized fetching using Entity Graphs.
+ * Pages of a customer's quotes are read with keyset pagination over the
+ * {@code (dni, created_at, id)} index: only positions are selected, so PostgreSQL can
+ * answer from the index alone, and the entities are then resolved by id.
  */
 public interface QuoteRepository extends JpaRepository<Quote, Long> {
     
     @EntityGraph(value = "Quote.all", type = EntityGraph.EntityGraphType.LOAD)
     Optional<Quote> findById(Long id);
+
+    @EntityGraph(value = "Quote.all", type = EntityGraph.EntityGraphType.LOAD)
+    List<Quote> findAllById(Iterable<Long> ids);
+
+    /**
+     * @return Positions of the customer's newest quotes, newest first.
+     */
+    @Query("select new com.pacifico.quotation.dto.QuoteCursor(q.createdAt, q.id) from Quote q "
+            + "where q.dni = :dni order by q.createdAt desc, q.id desc")
+    List<QuoteCursor> findPositionsByDni(@Param("dni") String dni, Pageable page);
+
+    /**
+     * @return Positions of the customer's quotes older than {@code after}, newest first.
+     */
+    @Query("select new com.pacifico.quotation.dto.QuoteCursor(q.createdAt, q.id) from Quote q "
+            + "where q.dni = :dni and (q.createdAt < :createdAt or (q.createdAt = :createdAt and q.id < :id)) "
+            + "order by q.createdAt desc, q.id desc")
+    List<QuoteCursor> findPositionsByDniAfter(@Param("dni") String dni, @Param("createdAt") LocalDateTime createdAt,
+                                              @Param("id") Long id, Pageable page);
 }
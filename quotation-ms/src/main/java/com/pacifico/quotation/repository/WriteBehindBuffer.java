@@ -0,0 +1,135 @@
+package com.pacifico.quotation.repository;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Function;
+
+/**
+ * Buffers entity writes and flushes them in batches from a single writer thread.
+ * <p>
+ * The writer takes whatever has queued up while the previous flush was running, up to
+ * {@code maxBatchSize}, and hands it to {@code writer} (typically {@code saveAll}) in one
+ * transaction. An idle buffer therefore flushes a single entity immediately, while under
+ * load batches grow on their own and Hibernate can group them into JDBC batches; no
+ * timer is involved, so no write waits for a batch to fill.
+ * <p>
+ * Each caller gets a future completed with its saved entity once the batch is committed,
+ * so writes stay durable before anything downstream (such as a Kafka event) sees them.
+ * If a flush fails, every entity in that batch fails with the same exception.
+ *
+ * @param <T> Entity type.
+ */
+public class WriteBehindBuffer<T> implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(WriteBehindBuffer.class);
+
+    private final String name;
+    private final Function<List<T>, List<T>> writer;
+    private final int maxBatchSize;
+    private final BlockingQueue<PendingWrite<T>> queue;
+    private final DistributionSummary batchSize;
+    private final Thread flusher;
+
+    private volatile boolean closed;
+
+    /**
+     * @param name Buffer name, used for the flusher thread and the {@code buffer} metric tag.
+     * @param writer Persists a batch and returns the saved entities in the same order.
+     * @param maxBatchSize Maximum number of entities per flush; align with {@code hibernate.jdbc.batch_size}.
+     * @param capacity Maximum number of queued writes before new ones are rejected.
+     * @param meterRegistry Registry for buffer metrics.
+     */
+    public WriteBehindBuffer(String name, Function<List<T>, List<T>> writer, int maxBatchSize, int capacity,
+                             MeterRegistry meterRegistry) {
+        this.name = name;
+        this.writer = writer;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = DistributionSummary.builder("write.buffer.batch.size")
+                .description("Entities persisted per write-behind flush")
+                .tag("buffer", name)
+                .register(meterRegistry);
+        Gauge.builder("write.buffer.queue.depth", queue, BlockingQueue::size)
+                .description("Entities waiting to be flushed")
+                .tag("buffer", name)
+                .register(meterRegistry);
+        this.flusher = Thread.ofVirtual().name(name + "-write-behind").start(this::run);
+    }
+
+    /**
+     * Queues an entity for the next flush.
+     *
+     * @param entity The entity to persist.
+     * @return A future completed with the saved entity once its batch is committed, or failed
+     *         with {@link RejectedExecutionException} if the buffer is full or closed.
+     */
+    public CompletableFuture<T> submit(T entity) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (closed || !queue.offer(new PendingWrite<>(entity, result))) {
+            result.completeExceptionally(new RejectedExecutionException("Write buffer " + name + " is full or closed"));
+        }
+        return result;
+    }
+
+    private void run() {
+        List<PendingWrite<T>> batch = new ArrayList<>(maxBatchSize);
+        while (!closed) {
+            try {
+                batch.add(queue.take());
+            } catch (InterruptedException e) {
+                break;
+            }
+            queue.drainTo(batch, maxBatchSize - 1);
+            flush(batch);
+            batch.clear();
+        }
+        failRemaining();
+    }
+
+    private void flush(List<PendingWrite<T>> batch) {
+        batchSize.record(batch.size());
+        try {
+            List<T> saved = writer.apply(batch.stream().map(PendingWrite::entity).toList());
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(saved.get(i));
+            }
+        } catch (Exception e) {
+            logger.error("Write buffer {} failed to flush {} entities", name, batch.size(), e);
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    private void failRemaining() {
+        List<PendingWrite<T>> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        remaining.forEach(pending -> pending.result()
+                .completeExceptionally(new RejectedExecutionException("Write buffer " + name + " closed")));
+    }
+
+    /**
+     * Stops the flusher after the batch in progress; writes still queued are failed.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        flusher.interrupt();
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        failRemaining();
+    }
+
+    private record PendingWrite<T>(T entity, CompletableFuture<T> result) {}
+}
@@ -0,0 +1,307 @@
+package com.pacifico.quotation.service;
+
+import com.pacifico.insurance.event.InsurancePolicyEvent;
+import com.pacifico.quotation.config.OutboxProperties;
+import com.pacifico.quotation.model.OutboxEvent;
+import com.pacifico.quotation.repository.OutboxEventRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.util.StringUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Publishes the events written by {@link QuoteWriter} from the outbox table to Kafka.
+ * <p>
+ * A single background thread claims the oldest pending events in a short transaction,
+ * hands the whole batch to the producer, flushes once so the records share compressed
+ * producer batches, and waits for the acknowledgements outside any transaction. A second
+ * short transaction deletes the acknowledged events and records a failed attempt on the
+ * others, which are retried with exponential backoff and parked after
+ * {@code max-attempts}, so one event the broker keeps refusing does not hold back the rest.
+ * Claims expire after {@code claim-timeout}, so delivery stays at-least-once when a relay
+ * dies mid-batch. To finish well within that claim, the relay stops handing events to the
+ * producer after the first send that fails, or once {@code send-timeout} has passed while
+ * sends block on broker metadata ({@code max.block.ms}); the events not sent are released
+ * for the next batch without counting an attempt.
+ * <p>
+ * Relayed rows are deleted rather than tracked with an id cursor: ids come from a pooled
+ * sequence and commit out of order across instances, so a cursor could skip events.
+ * <p>
+ * Throughput is reported in {@code outbox.relay.events} and {@code outbox.relay.batch.size},
+ * failed attempts in {@code outbox.relay.failures} and parked events in
+ * {@code outbox.relay.parked}; {@code outbox.lag.events} and {@code outbox.lag.seconds} give
+ * the pending backlog and the age of its oldest event, {@code outbox.parked.events} the
+ * events waiting for an operator. The backlog gauges count the table, so they are refreshed
+ * every {@code lag-refresh} on a separate thread rather than after each batch.
+ */
+public class OutboxRelay implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutboxRelay.class);
+
+    private final OutboxEventRepository outboxEventRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration pollInterval;
+    private final Duration sendTimeout;
+    private final Duration claimTimeout;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final Duration maxRetryBackoff;
+    private final Duration lagRefresh;
+
+    private final Counter relayed;
+    private final Counter failures;
+    private final Counter parked;
+    private final DistributionSummary batchSizes;
+    private final AtomicLong lagEvents = new AtomicLong();
+    private final AtomicLong lagMillis = new AtomicLong();
+    private final AtomicLong parkedEvents = new AtomicLong();
+    private final ScheduledExecutorService lagScheduler = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("outbox-lag").daemon().factory());
+
+    private volatile boolean closed;
+    private Thread relayThread;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       TransactionTemplate transactionTemplate,
+                       OutboxProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = properties.batchSize();
+        this.pollInterval = properties.pollInterval();
+        this.sendTimeout = properties.sendTimeout();
+        this.claimTimeout = properties.claimTimeout();
+        this.maxAttempts = properties.maxAttempts();
+        this.retryBackoff = properties.retryBackoff();
+        this.maxRetryBackoff = properties.maxRetryBackoff();
+        this.lagRefresh = properties.lagRefresh();
+        this.relayed = Counter.builder("outbox.relay.events")
+                .description("Outbox events published to Kafka")
+                .register(meterRegistry);
+        this.failures = Counter.builder("outbox.relay.failures")
+                .description("Failed attempts to publish an outbox event")
+                .register(meterRegistry);
+        this.parked = Counter.builder("outbox.relay.parked")
+                .description("Outbox events parked after running out of attempts")
+                .register(meterRegistry);
+        this.batchSizes = DistributionSummary.builder("outbox.relay.batch.size")
+                .description("Outbox events claimed per relay batch")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag.events", lagEvents, AtomicLong::get)
+                .description("Outbox events waiting to be published")
+                .register(meterRegistry);
+        Gauge.builder("outbox.lag.seconds", lagMillis, millis -> millis.get() / 1000.0)
+                .description("Age of the oldest outbox event waiting to be published")
+                .register(meterRegistry);
+        Gauge.builder("outbox.parked.events", parkedEvents, AtomicLong::get)
+                .description("Outbox events parked after running out of attempts")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts the relay thread and the backlog gauge refresh.
+     */
+    public void start() {
+        relayThread = Thread.ofVirtual().name("outbox-relay").start(this::run);
+        lagScheduler.scheduleWithFixedDelay(this::refreshLagQuietly, 0, lagRefresh.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    private void run() {
+        while (!closed) {
+            int published;
+            try {
+                published = relayBatch();
+            } catch (Exception e) {
+                logger.error("Outbox relay batch failed, retrying in {}", pollInterval, e);
+                published = 0;
+            }
+            if (published < batchSize) {
+                try {
+                    Thread.sleep(pollInterval);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims, publishes and settles one batch of pending events.
+     *
+     * @return The number of events acknowledged or recorded as failed; events released
+     *         unsent are not counted, so the relay pauses before claiming them again.
+     */
+    int relayBatch() {
+        List<OutboxEvent> batch = transactionTemplate.execute(status -> {
+            LocalDateTime now = LocalDateTime.now();
+            List<OutboxEvent> claimed = outboxEventRepository.findBatchForRelay(now, PageRequest.of(0, batchSize));
+            // Flushed on commit; keeps other relays away once the row locks are released
+            claimed.forEach(event -> event.setAvailableAt(now.plus(claimTimeout)));
+            return claimed;
+        });
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+        batchSizes.record(batch.size());
+
+        Map<OutboxEvent, Throwable> failed = new LinkedHashMap<>();
+        Map<OutboxEvent, CompletableFuture<?>> sends = new LinkedHashMap<>();
+        List<Long> unsent = new ArrayList<>();
+        long sendDeadline = System.nanoTime() + sendTimeout.toNanos();
+        boolean stopSending = false;
+        for (OutboxEvent event : batch) {
+            if (stopSending || System.nanoTime() > sendDeadline) {
+                unsent.add(event.getId());
+                continue;
+            }
+            Object payload;
+            try {
+                payload = decode(event);
+            } catch (RuntimeException e) {
+                failed.put(event, e);
+                continue;
+            }
+            try {
+                sends.put(event, kafkaTemplate.send(new ProducerRecord<>(event.getTopic(), event.getMessageKey(), payload)));
+            } catch (RuntimeException e) {
+                // Usually the producer could not get metadata or buffer space; the rest would block too
+                failed.put(event, e);
+                stopSending = true;
+            }
+        }
+        kafkaTemplate.flush();
+        List<Long> acknowledged = awaitAcknowledgements(sends, failed);
+
+        transactionTemplate.executeWithoutResult(status -> {
+            if (!acknowledged.isEmpty()) {
+                outboxEventRepository.deleteAllByIdInBatch(acknowledged);
+            }
+            if (!unsent.isEmpty()) {
+                outboxEventRepository.release(unsent);
+            }
+            failed.forEach(this::recordFailure);
+        });
+        relayed.increment(acknowledged.size());
+        if (!unsent.isEmpty()) {
+            logger.warn("Released {} outbox events unsent after a blocked or failed send", unsent.size());
+        }
+        return acknowledged.size() + failed.size();
+    }
+
+    private void refreshLagQuietly() {
+        try {
+            refreshLag();
+        } catch (RuntimeException e) {
+            logger.warn("Could not refresh the outbox backlog gauges", e);
+        }
+    }
+
+    void refreshLag() {
+        lagEvents.set(outboxEventRepository.countByParkedAtIsNull());
+        parkedEvents.set(outboxEventRepository.countByParkedAtIsNotNull());
+        LocalDateTime oldest = outboxEventRepository.findOldestCreatedAt();
+        lagMillis.set(oldest == null ? 0 : Math.max(0, Duration.between(oldest, LocalDateTime.now()).toMillis()));
+    }
+
+    /**
+     * Waits for the broker until {@code send-timeout}. Events still unacknowledged by then are
+     * added to {@code failed}; when interrupted, they keep their claim and are retried once
+     * it expires.
+     *
+     * @return The ids of the acknowledged events.
+     */
+    private List<Long> awaitAcknowledgements(Map<OutboxEvent, CompletableFuture<?>> sends, Map<OutboxEvent, Throwable> failed) {
+        List<Long> acknowledged = new ArrayList<>(sends.size());
+        long deadline = System.nanoTime() + sendTimeout.toNanos();
+        for (Map.Entry<OutboxEvent, CompletableFuture<?>> send : sends.entrySet()) {
+            try {
+                send.getValue().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                acknowledged.add(send.getKey().getId());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                failed.put(send.getKey(), e.getCause());
+            } catch (TimeoutException e) {
+                failed.put(send.getKey(), new TimeoutException("Not acknowledged within " + sendTimeout));
+            }
+        }
+        return acknowledged;
+    }
+
+    private void recordFailure(OutboxEvent event, Throwable error) {
+        int attempts = event.getAttempts() + 1;
+        LocalDateTime now = LocalDateTime.now();
+        String lastError = StringUtils.truncate(String.valueOf(error), 1000);
+        failures.increment();
+        if (attempts >= maxAttempts) {
+            parked.increment();
+            logger.error("Parking outbox event {} for quote {} after {} failed attempts",
+                    event.getId(), event.getQuoteId(), attempts, error);
+            outboxEventRepository.recordFailure(event.getId(), attempts, null, now, lastError);
+        } else {
+            Duration backoff = retryBackoff(attempts);
+            logger.warn("Could not publish outbox event {} for quote {} (attempt {}), retrying in {}: {}",
+                    event.getId(), event.getQuoteId(), attempts, backoff, lastError);
+            outboxEventRepository.recordFailure(event.getId(), attempts, now.plus(backoff), null, lastError);
+        }
+    }
+
+    private Duration retryBackoff(int attempts) {
+        Duration backoff = retryBackoff.multipliedBy(1L << Math.min(attempts - 1, 30));
+        return backoff.compareTo(maxRetryBackoff) > 0 ? maxRetryBackoff : backoff;
+    }
+
+    private static Object decode(OutboxEvent event) {
+        try {
+            return InsurancePolicyEvent.fromByteBuffer(ByteBuffer.wrap(event.getPayload()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not decode outbox event " + event.getId(), e);
+        }
+    }
+
+    /**
+     * Stops the relay after the batch in progress; unpublished events stay in the outbox.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        lagScheduler.shutdownNow();
+        if (relayThread != null) {
+            relayThread.interrupt();
+            try {
+                relayThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -1,33 +1,53 @@
 package com.pacifico.quotation.service;
 
-import com.pacifico.insurance.event.InsurancePolicyEvent;
+import com.pacifico.quotation.cache.RejectedRiskFilter;
+import com.pacifico.quotation.cache.RiskCache;
+import com.pacifico.quotation.cache.RiskCacheKeys;
+import com.pacifico.quotation.cache.RiskCacheKeys.RiskCacheKey;
+import com.pacifico.quotation.client.FallbackRiskScorer;
+import com.pacifico.quotation.client.HedgedRiskClient;
+import com.pacifico.quotation.dto.QuotationRequest;
+import com.pacifico.quotation.dto.QuotationResult;
 import com.pacifico.quotation.dto.RiskCacheEntry;
 import com.pacifico.quotation.exception.HighRiskException;
 import com.pacifico.quotation.model.Quote;
-import com.pacifico.quotation.repository.QuoteRepository;
+import com.pacifico.quotation.repository.WriteBehindBuffer;
+import com.pacifico.risk.RiskBatchRequest;
+import com.pacifico.risk.RiskBatchResponse;
 import com.pacifico.risk.RiskInferenceServiceGrpc;
 import com.pacifico.risk.RiskRequest;
 import com.pacifico.risk.RiskResponse;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.grpc.StatusRuntimeException;
+import jakarta.annotation.PreDestroy;
 import net.devh.boot.grpc.client.inject.GrpcClient;
-import org.apache.kafka.clients.producer.ProducerRecord;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
-import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * Core service for orchestrating the insurance quotation lifecycle.
  * <p>
- * This service implements the Cache-Aside pattern using Redis to optimize risk assessment,
+ * This service implements the Cache-Aside pattern over a two-tier cache (in-process L1 in front of Redis)
+ * to optimize risk assessment,
  * communicates with the ML Risk Service via gRPC for high-performance scoring,
- * and publishes events to Kafka for downstream policy issuance.
+ * and records policy issuance events in a transactional outbox that is relayed to Kafka
+ * in the background (see {@link QuoteWriter}), keeping the broker out of the request path.
  * <p>
  * It leverages Project Loom's Virtual Threads (when running on Java 21) 
  * to handle multiple simultaneous quotation requests efficiently.
@@ -41,26 +61,46 @@ public class QuotationService {
     private RiskInferenceServiceGrpc.RiskInferenceServiceBlockingStub riskStub;
 
     @Autowired
-    private RedisTemplate<String, Object> redisTemplate;
+    private HedgedRiskClient riskClient;
 
     @Autowired
-    private QuoteRepository quoteRepository;
+    private CircuitBreaker riskCircuitBreaker;
 
     @Autowired
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private FallbackRiskScorer fallbackScorer;
 
-    private static final String RISK_CACHE_PREFIX = "risk_cache:";
-    private static final String KAFKA_TOPIC = "insurance.policy.issuance";
+    @Autowired
+    private RiskCache riskCache;
+
+    @Autowired
+    private RiskCacheKeys riskCacheKeys;
+
+    @Autowired
+    private RejectedRiskFilter rejectionFilter;
+
+    @Autowired
+    private QuoteWriter quoteWriter;
+
+    @Autowired
+    private WriteBehindBuffer<Quote> quoteWriteBuffer;
+
+    private static final double MAX_ACCEPTED_SCORE = 0.80;
+
+    /** Runs bulk quotations, which block on gRPC and JDBC, off the GraphQL request thread. */
+    private final ExecutorService bulkExecutor = Executors.newVirtualThreadPerTaskExecutor();
 
     /**
      * Orchestrates the complete quotation process for a customer.
      * <p>
      * The flow includes:
-     * 1. Checking risk cache in Redis (Cache-Aside).
-     * 2. Inferred risk score via gRPC if not cached.
+     * 0. Rejecting applicants whose risk key was recently rejected, in-process.
+     * 1. Checking the risk cache, L1 then Redis (Cache-Aside).
+     * 2. Inferred risk score via gRPC if not cached, coalescing concurrent misses. While the
+     *    risk circuit is open, or when the call fails, the {@link FallbackRiskScorer} scores
+     *    the quote in-process instead; such scores are not cached.
      * 3. Functional evaluation of risk thresholds.
-     * 4. Persistence of approved quotes in PostgreSQL.
-     * 5. Async event publication to Kafka for policy issuance.
+     * 4. Persistence of approved quotes in PostgreSQL, batched with concurrent quotes, together
+     *    with their policy issuance event in the outbox.
      *
      * @param dni The national ID of the customer.
      * @param age The age of the customer.
@@ -71,70 +111,283 @@ public class QuotationService {
     public Quote orchestrateQuotation(String dni, int age, double carValue) {
         logger.info("Orchestrating quotation for DNI: {}", dni);
 
-        // 1. Check Redis Cache
-        RiskCacheEntry cachedRisk = (RiskCacheEntry) redisTemplate.opsForValue().get(RISK_CACHE_PREFIX + dni);
-
-        RiskResponse riskResponse;
-        if (cachedRisk != null) {
-            logger.info("Cache hit for DNI: {}", dni);
-            riskResponse = RiskResponse.newBuilder()
-                    .setProbabilityScore(cachedRisk.probabilityScore())
-                    .setRiskLevel(cachedRisk.riskLevel())
-                    .build();
-        } else {
-            logger.info("Cache miss for DNI: {}. Calling gRPC...", dni);
-            // 2. gRPC Call
-            RiskRequest request = RiskRequest.newBuilder()
-                    .setDni(dni)
-                    .setAge(age)
-                    .setCarValue(carValue)
-                    .build();
-            
-            riskResponse = riskStub.evaluateRisk(request);
-            
-            // Store in Redis (TTL 10m)
-            RiskCacheEntry entry = new RiskCacheEntry(riskResponse.getProbabilityScore(), riskResponse.getRiskLevel());
-            redisTemplate.opsForValue().set(RISK_CACHE_PREFIX + dni, entry, Duration.ofMinutes(10));
+        RiskCacheKey cacheKey = riskCacheKeys.forRequest(dni, age, carValue);
+        // 0. Repeated high-risk attempts are answered without Redis or gRPC
+        RiskCacheEntry rejected = rejectionFilter.confirmedRejection(cacheKey.key());
+        if (rejected != null) {
+            throw new HighRiskException("High risk detected: " + rejected.probabilityScore());
         }
 
-        final RiskResponse finalRisk = riskResponse;
+        // 1. Check Risk Cache; concurrent misses for the same key share one gRPC call
+        RiskCacheEntry risk;
+        try {
+            risk = riskCache.getOrLoad(cacheKey.key(), () -> {
+                logger.info("Cache miss for {}. Calling gRPC...", cacheKey.key());
+                // 2. gRPC Call behind the circuit breaker, scoring the quantized car value the key stands for
+                RiskResponse response = riskCircuitBreaker.executeSupplier(
+                        () -> riskStub.evaluateRisk(toRiskRequest(dni, age, cacheKey)));
+                return toCacheEntry(response);
+            });
+        } catch (CallNotPermittedException | StatusRuntimeException e) {
+            risk = fallbackRisk(age, carValue, e);
+        }
+
+        final RiskCacheEntry finalRisk = risk;
         
         // 3. Functional Logic
-        return Optional.of(riskResponse)
-                .filter(res -> res.getProbabilityScore() < 0.80)
+        return Optional.of(risk)
+                .filter(res -> res.probabilityScore() < MAX_ACCEPTED_SCORE)
                 .map(res -> saveToPostgres(dni, age, carValue, res))
-                .map(quote -> {
-                    sendToKafka(quote);
-                    return quote;
+                .orElseThrow(() -> reject(cacheKey, finalRisk));
+    }
+
+    /**
+     * Non-blocking variant of {@link #orchestrateQuotation}.
+     * <p>
+     * The risk call goes through the future stub, so no thread waits while ml-risk-ms
+     * scores; the Redis write-back of a fresh score runs in the background, overlapping
+     * with the quote persistence. The gRPC call carries the configured deadline. The
+     * persistence step has no timeout of its own: a buffered write that timed out could still
+     * commit, and with it the outbox event that issues the policy, so the caller waits for
+     * the outcome; the write buffer's capacity rejects writes it cannot take. The risk call
+     * goes through the same circuit breaker and fallback as the blocking pipeline.
+     *
+     * @param dni The national ID of the customer.
+     * @param age The age of the customer.
+     * @param carValue The appraised value of the vehicle.
+     * @return A future completed with the persisted {@link Quote}, or failed with
+     *         {@link HighRiskException} if the risk score exceeds the acceptable threshold (0.80).
+     */
+    public CompletableFuture<Quote> orchestrateQuotationAsync(String dni, int age, double carValue) {
+        logger.info("Orchestrating quotation asynchronously for DNI: {}", dni);
+
+        RiskCacheKey cacheKey = riskCacheKeys.forRequest(dni, age, carValue);
+        RiskCacheEntry rejected = rejectionFilter.confirmedRejection(cacheKey.key());
+        if (rejected != null) {
+            return CompletableFuture.failedFuture(new HighRiskException("High risk detected: " + rejected.probabilityScore()));
+        }
+        return riskCache.getOrLoadAsync(cacheKey.key(), () -> {
+                    logger.info("Cache miss for {}. Calling gRPC...", cacheKey.key());
+                    return riskCircuitBreaker
+                            .decorateCompletionStage(() -> riskClient.evaluateRisk(toRiskRequest(dni, age, cacheKey)))
+                            .get()
+                            .toCompletableFuture()
+                            .thenApply(this::toCacheEntry);
+                })
+                .exceptionally(error -> {
+                    Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                    if (cause instanceof CallNotPermittedException || cause instanceof StatusRuntimeException) {
+                        return fallbackRisk(age, carValue, (RuntimeException) cause);
+                    }
+                    throw error instanceof CompletionException completion ? completion : new CompletionException(cause);
                 })
-                .orElseThrow(() -> new HighRiskException("High risk detected: " + finalRisk.getProbabilityScore()));
+                .thenApply(risk -> {
+                    if (risk.probabilityScore() >= MAX_ACCEPTED_SCORE) {
+                        throw reject(cacheKey, risk);
+                    }
+                    return risk;
+                })
+                .thenCompose(risk -> quoteWriteBuffer.submit(buildQuote(dni, age, carValue, risk)));
+    }
+
+    /**
+     * Non-blocking counterpart of {@link #orchestrateQuotations}: the batch runs on a virtual
+     * thread, so the caller's thread is released while the fleet is scored and stored.
+     *
+     * @param inputs The vehicles to quote.
+     * @return A future completed with one result per input, in the same order.
+     */
+    public CompletableFuture<List<QuotationResult>> orchestrateQuotationsAsync(List<QuotationRequest> inputs) {
+        return CompletableFuture.supplyAsync(() -> orchestrateQuotations(inputs), bulkExecutor);
+    }
+
+    /**
+     * Quotes a fleet of vehicles in one pass.
+     * <p>
+     * Risk is resolved through {@link #evaluateRiskBatch} (one cache multi-get, one batched
+     * scoring call for the misses), and approved quotes and their outbox events are stored in
+     * one transaction with a single {@code saveAll} each, so Hibernate can group the inserts
+     * into JDBC batches.
+     * <p>
+     * High-risk vehicles are rejected individually; the rest of the fleet is still quoted.
+     * Rejections are remembered for the single-quote fast path.
+     *
+     * @param inputs The vehicles to quote.
+     * @return One result per input, in the same order.
+     */
+    public List<QuotationResult> orchestrateQuotations(List<QuotationRequest> inputs) {
+        if (inputs.isEmpty()) {
+            return List.of();
+        }
+        logger.info("Orchestrating bulk quotation of {} vehicles", inputs.size());
+
+        List<RiskRequest> requests = inputs.stream()
+                .map(input -> RiskRequest.newBuilder()
+                        .setDni(input.dni())
+                        .setAge(input.age())
+                        .setCarValue(input.carValue())
+                        .build())
+                .toList();
+        // Resolved once: every resolution is also recorded by the shadow key strategies
+        List<RiskCacheKey> keys = cacheKeysFor(requests);
+        List<RiskCacheEntry> risks = scoreBatch(requests, keys);
+
+        QuotationResult[] results = new QuotationResult[inputs.size()];
+        List<Quote> approved = new ArrayList<>();
+        List<Integer> approvedPositions = new ArrayList<>();
+        for (int i = 0; i < inputs.size(); i++) {
+            QuotationRequest input = inputs.get(i);
+            RiskCacheEntry risk = risks.get(i);
+            if (risk.probabilityScore() < MAX_ACCEPTED_SCORE) {
+                approved.add(buildQuote(input.dni(), input.age(), input.carValue(), risk));
+                approvedPositions.add(i);
+            } else {
+                results[i] = QuotationResult.rejected(reject(keys.get(i), risk).getMessage());
+            }
+        }
+
+        if (!approved.isEmpty()) {
+            List<Quote> saved = quoteWriter.saveAll(approved);
+            for (int i = 0; i < saved.size(); i++) {
+                results[approvedPositions.get(i)] = QuotationResult.approved(saved.get(i));
+            }
+        }
+        logger.info("Bulk quotation done: {} approved, {} rejected", approved.size(), inputs.size() - approved.size());
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Scores many customer profiles with a single {@code EvaluateRiskBatch} round trip.
+     * <p>
+     * Intended for fleet and renewal jobs that would otherwise issue one gRPC call per vehicle.
+     * Cached assessments are read with one multi-get; only the distinct cache misses are sent
+     * to the ML Risk Service, and their results are written back in one pipelined batch.
+     * While the risk circuit is open, or when the batch call fails, the misses are scored by
+     * the {@link FallbackRiskScorer} and not cached.
+     *
+     * @param requests The risk requests to score.
+     * @return The risk responses, positionally matched with {@code requests}.
+     * @throws IllegalStateException if the ML Risk Service returns a different number of responses.
+     */
+    public List<RiskResponse> evaluateRiskBatch(List<RiskRequest> requests) {
+        List<RiskCacheEntry> risks = scoreBatch(requests, cacheKeysFor(requests));
+        List<RiskResponse> responses = new ArrayList<>(risks.size());
+        for (int i = 0; i < risks.size(); i++) {
+            responses.add(toRiskResponse(risks.get(i))
+                    .setRequestId(requests.get(i).getRequestId())
+                    .build());
+        }
+        return responses;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        bulkExecutor.close();
+    }
+
+    private List<RiskCacheKey> cacheKeysFor(List<RiskRequest> requests) {
+        return requests.stream()
+                .map(request -> riskCacheKeys.forRequest(request.getDni(), request.getAge(), request.getCarValue()))
+                .toList();
     }
 
-    private Quote saveToPostgres(String dni, int age, double carValue, RiskResponse risk) {
-        Quote quote = Quote.builder()
+    private List<RiskCacheEntry> scoreBatch(List<RiskRequest> requests, List<RiskCacheKey> keys) {
+        if (requests.isEmpty()) {
+            return List.of();
+        }
+        Map<String, RiskCacheEntry> risks = riskCache.getAll(keys.stream().map(RiskCacheKey::key).toList());
+
+        Map<String, RiskRequest> misses = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            RiskCacheKey key = keys.get(i);
+            if (!risks.containsKey(key.key())) {
+                misses.putIfAbsent(key.key(), requests.get(i).toBuilder().setCarValue(key.scoredCarValue()).build());
+            }
+        }
+
+        if (!misses.isEmpty()) {
+            logger.info("Scoring risk batch of {} requests via gRPC ({} cached)", misses.size(), requests.size() - misses.size());
+            try {
+                RiskBatchResponse response = riskCircuitBreaker.executeSupplier(() -> riskStub.evaluateRiskBatch(
+                        RiskBatchRequest.newBuilder().addAllRequests(misses.values()).build()));
+
+                if (response.getResponsesCount() != misses.size()) {
+                    throw new IllegalStateException("Risk batch size mismatch: sent " + misses.size()
+                            + ", received " + response.getResponsesCount());
+                }
+                Map<String, RiskCacheEntry> scored = new LinkedHashMap<>();
+                int index = 0;
+                for (String key : misses.keySet()) {
+                    RiskResponse risk = response.getResponses(index++);
+                    scored.put(key, new RiskCacheEntry(risk.getProbabilityScore(), risk.getRiskLevel(), riskCache.modelVersion()));
+                }
+                riskCache.putAll(scored);
+                risks.putAll(scored);
+            } catch (CallNotPermittedException | StatusRuntimeException e) {
+                logger.warn("Risk service degraded ({}), scoring {} requests with the embedded fallback",
+                        e.getMessage(), misses.size());
+                misses.forEach((key, request) -> risks.put(key, fallbackScorer.score(request.getAge(), request.getCarValue())));
+            }
+        }
+
+        return keys.stream().map(key -> risks.get(key.key())).toList();
+    }
+
+    private static RiskRequest toRiskRequest(String dni, int age, RiskCacheKey cacheKey) {
+        return RiskRequest.newBuilder()
+                .setDni(dni)
+                .setAge(age)
+                .setCarValue(cacheKey.scoredCarValue())
+                .build();
+    }
+
+    /**
+     * Remembers a rejection for the high-risk fast path, unless it came from the fallback
+     * scorer, whose coarse scores should not outlive the incident.
+     */
+    private HighRiskException reject(RiskCacheKey cacheKey, RiskCacheEntry risk) {
+        if (!FallbackRiskScorer.isFallback(risk)) {
+            rejectionFilter.recordRejection(cacheKey.key(), risk);
+        }
+        return new HighRiskException("High risk detected: " + risk.probabilityScore());
+    }
+
+    private RiskCacheEntry fallbackRisk(int age, double carValue, RuntimeException cause) {
+        logger.warn("Risk service degraded ({}), scoring with the embedded fallback", cause.getMessage());
+        return fallbackScorer.score(age, carValue);
+    }
+
+    private RiskCacheEntry toCacheEntry(RiskResponse response) {
+        return new RiskCacheEntry(response.getProbabilityScore(), response.getRiskLevel(), riskCache.modelVersion());
+    }
+
+    private static RiskResponse.Builder toRiskResponse(RiskCacheEntry risk) {
+        return RiskResponse.newBuilder()
+                .setProbabilityScore(risk.probabilityScore())
+                .setRiskLevel(risk.riskLevel());
+    }
+
+    private Quote saveToPostgres(String dni, int age, double carValue, RiskCacheEntry risk) {
+        try {
+            return quoteWriteBuffer.submit(buildQuote(dni, age, carValue, risk)).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw e;
+        }
+    }
+
+    private static Quote buildQuote(String dni, int age, double carValue, RiskCacheEntry risk) {
+        return Quote.builder()
                 .dni(dni)
                 .age(age)
                 .carValue(BigDecimal.valueOf(carValue))
-                .probabilityScore(risk.getProbabilityScore())
-                .riskLevel(risk.getRiskLevel())
+                .probabilityScore(risk.probabilityScore())
+                .riskLevel(risk.riskLevel())
+                .fallbackScored(FallbackRiskScorer.isFallback(risk))
                 .status("APPROVED")
                 .createdAt(LocalDateTime.now())
                 .build();
-        return quoteRepository.save(quote);
-    }
-
-    private void sendToKafka(Quote quote) {
-        logger.info("Sending quote to Kafka: {}", quote.getId());
-        double finalPremium = quote.getCarValue().doubleValue() * 0.05 * (1 + quote.getProbabilityScore());
-        
-        InsurancePolicyEvent event = InsurancePolicyEvent.newBuilder()
-                .setQuoteId(quote.getId())
-                .setDni(quote.getDni())
-                .setApprovedRiskScore(quote.getProbabilityScore())
-                .setFinalPremium(finalPremium)
-                .build();
-
-        ProducerRecord<String, Object> kafkaRecord = new ProducerRecord<>(KAFKA_TOPIC, quote.getDni(), event);
-        kafkaTemplate.send(kafkaRecord);
     }
 }
@@ -0,0 +1,109 @@
+package com.pacifico.quotation.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.pacifico.quotation.config.QuoteCacheProperties;
+import com.pacifico.quotation.dto.QuoteConnection;
+import com.pacifico.quotation.dto.QuoteConnection.PageInfo;
+import com.pacifico.quotation.dto.QuoteConnection.QuoteEdge;
+import com.pacifico.quotation.dto.QuoteCursor;
+import com.pacifico.quotation.model.Quote;
+import com.pacifico.quotation.repository.QuoteRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Read side of quotations.
+ * <p>
+ * Quotes are resolved through a bounded read-through cache: approved quotes are immutable,
+ * so once loaded they are served from memory and dashboards polling the same quotes do not
+ * reach PostgreSQL. Lookups are bulk, so a whole GraphQL document costs at most one
+ * {@code WHERE id IN (...)} query for the quotes not yet cached.
+ * <p>
+ * Hits, misses and evictions are exposed through the Caffeine binder under the
+ * {@code quotes} cache name.
+ */
+@Service
+public class QuoteQueryService {
+
+    static final String APPROVED = "APPROVED";
+
+    private final QuoteRepository quoteRepository;
+    private final Cache<Long, Quote> approvedQuotes;
+
+    public QuoteQueryService(QuoteRepository quoteRepository, QuoteCacheProperties properties, MeterRegistry meterRegistry) {
+        this.quoteRepository = quoteRepository;
+        this.approvedQuotes = Caffeine.newBuilder()
+                .maximumSize(properties.maxSize())
+                .expireAfterWrite(properties.ttl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, approvedQuotes, "quotes");
+    }
+
+    /**
+     * Looks up quotes by id, loading the ones not cached with a single query.
+     *
+     * @param ids The quote ids.
+     * @return The quotes found, keyed by id; unknown ids are absent.
+     */
+    public Map<Long, Quote> findByIds(Collection<Long> ids) {
+        Map<Long, Quote> found = new HashMap<>(approvedQuotes.getAllPresent(ids));
+        Set<Long> missing = ids.stream().filter(id -> !found.containsKey(id)).collect(Collectors.toSet());
+        if (missing.isEmpty()) {
+            return found;
+        }
+        for (Quote quote : quoteRepository.findAllById(missing)) {
+            found.put(quote.getId(), quote);
+            if (APPROVED.equals(quote.getStatus())) {
+                approvedQuotes.put(quote.getId(), quote);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Pages through a customer's quotes, newest first, with keyset pagination.
+     *
+     * @param dni The national ID of the customer.
+     * @param first Maximum number of quotes to return.
+     * @param after Cursor of the last quote of the previous page, or {@code null} for the first page.
+     * @return The page of quotes.
+     * @throws IllegalArgumentException if {@code after} is not a valid cursor.
+     */
+    public QuoteConnection findByDni(String dni, int first, String after) {
+        // One extra position tells whether another page follows
+        PageRequest page = PageRequest.of(0, first + 1);
+        List<QuoteCursor> positions = after == null
+                ? quoteRepository.findPositionsByDni(dni, page)
+                : findPositionsAfter(dni, QuoteCursor.decode(after), page);
+
+        boolean hasNextPage = positions.size() > first;
+        List<QuoteCursor> pagePositions = hasNextPage ? positions.subList(0, first) : positions;
+        Map<Long, Quote> quotes = findByIds(pagePositions.stream().map(QuoteCursor::id).toList());
+
+        List<QuoteEdge> edges = new ArrayList<>(pagePositions.size());
+        for (QuoteCursor position : pagePositions) {
+            Quote quote = quotes.get(position.id());
+            if (quote != null) {
+                edges.add(new QuoteEdge(quote, position.encode()));
+            }
+        }
+        String endCursor = pagePositions.isEmpty() ? null : pagePositions.get(pagePositions.size() - 1).encode();
+        return new QuoteConnection(edges, new PageInfo(hasNextPage, endCursor));
+    }
+
+    private List<QuoteCursor> findPositionsAfter(String dni, QuoteCursor after, PageRequest page) {
+        return quoteRepository.findPositionsByDniAfter(dni, after.createdAt(), after.id(), page);
+    }
+}
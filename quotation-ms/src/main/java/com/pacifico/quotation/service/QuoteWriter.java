@@ -0,0 +1,77 @@
+package com.pacifico.quotation.service;
+
+import com.pacifico.insurance.event.InsurancePolicyEvent;
+import com.pacifico.quotation.model.OutboxEvent;
+import com.pacifico.quotation.model.Quote;
+import com.pacifico.quotation.repository.OutboxEventRepository;
+import com.pacifico.quotation.repository.QuoteRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Stores approved quotes together with their policy issuance events.
+ * <p>
+ * Each quote and its {@link InsurancePolicyEvent} are written to the outbox in the same
+ * transaction; {@link OutboxRelay} publishes them to Kafka afterwards, so the request path
+ * never waits on the broker and no event is lost when the broker is slow or down.
+ */
+@Component
+public class QuoteWriter {
+
+    static final String KAFKA_TOPIC = "insurance.policy.issuance";
+
+    private final QuoteRepository quoteRepository;
+    private final OutboxEventRepository outboxEventRepository;
+
+    public QuoteWriter(QuoteRepository quoteRepository, OutboxEventRepository outboxEventRepository) {
+        this.quoteRepository = quoteRepository;
+        this.outboxEventRepository = outboxEventRepository;
+    }
+
+    /**
+     * @param quotes The approved quotes.
+     * @return The saved quotes, in the same order.
+     */
+    @Transactional
+    public List<Quote> saveAll(List<Quote> quotes) {
+        List<Quote> saved = quoteRepository.saveAll(quotes);
+        LocalDateTime now = LocalDateTime.now();
+        outboxEventRepository.saveAll(saved.stream()
+                .map(quote -> OutboxEvent.builder()
+                        .quoteId(quote.getId())
+                        .topic(KAFKA_TOPIC)
+                        .messageKey(quote.getDni())
+                        .payload(encode(toPolicyEvent(quote)))
+                        .createdAt(now)
+                        .build())
+                .toList());
+        return saved;
+    }
+
+    static InsurancePolicyEvent toPolicyEvent(Quote quote) {
+        double finalPremium = quote.getCarValue().doubleValue() * 0.05 * (1 + quote.getProbabilityScore());
+        return InsurancePolicyEvent.newBuilder()
+                .setQuoteId(quote.getId())
+                .setDni(quote.getDni())
+                .setApprovedRiskScore(quote.getProbabilityScore())
+                .setFinalPremium(finalPremium)
+                .build();
+    }
+
+    private static byte[] encode(InsurancePolicyEvent event) {
+        try {
+            ByteBuffer buffer = event.toByteBuffer();
+            byte[] bytes = new byte[buffer.remaining()];
+            buffer.get(bytes);
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not encode policy event for quote " + event.getQuoteId(), e);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.pacifico.quotation.cache;
+
+import com.pacifico.quotation.config.RejectionFilterProperties;
+import com.pacifico.quotation.dto.RiskCacheEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RejectedRiskFilterTest {
+
+    private static final String KEY = "risk_cache:v3:risk-model-v1:dni-car:12345678:40";
+    private static final RiskCacheEntry HIGH_RISK = new RiskCacheEntry(0.9, "HIGH", "risk-model-v1");
+    private static final Duration WINDOW = Duration.ofMinutes(10);
+
+    private final AtomicLong nanos = new AtomicLong();
+    private SimpleMeterRegistry meterRegistry;
+    private RejectedRiskFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        filter = filter(10_000, 100);
+    }
+
+    @Test
+    @DisplayName("Should confirm a recorded rejection and pass unknown keys")
+    void shouldConfirmRecordedRejection() {
+        // GIVEN
+        filter.recordRejection(KEY, HIGH_RISK);
+
+        // WHEN & THEN
+        assertThat(filter.confirmedRejection(KEY)).isEqualTo(HIGH_RISK);
+        assertThat(filter.confirmedRejection("risk_cache:v3:risk-model-v1:dni-car:87654321:40")).isNull();
+        assertThat(checks("rejected")).isEqualTo(1);
+        assertThat(checks("miss")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should remember a rejection for at least one window and forget it after two")
+    void shouldRotateGenerationsByWindow() {
+        // GIVEN
+        filter.recordRejection(KEY, HIGH_RISK);
+
+        // WHEN & THEN
+        advance(WINDOW.plusSeconds(1));
+        assertThat(filter.confirmedRejection(KEY)).isEqualTo(HIGH_RISK);
+        advance(WINDOW);
+        assertThat(filter.confirmedRejection(KEY)).isNull();
+        assertThat(checks("miss")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should fall through to scoring when a filter hit cannot be confirmed")
+    void shouldNotRejectUnconfirmedHits() {
+        // GIVEN
+        // A tiny filter saturated with rejections reports nearly every key as a member
+        RejectedRiskFilter saturated = filter(10, 1);
+        for (int i = 0; i < 1000; i++) {
+            saturated.recordRejection("rejected-" + i, HIGH_RISK);
+        }
+
+        // WHEN
+        int falselyRejected = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (saturated.confirmedRejection("approved-" + i) != null) {
+                falselyRejected++;
+            }
+        }
+
+        // THEN
+        assertThat(falselyRejected).isZero();
+        assertThat(checks("false_positive")).isGreaterThan(0);
+    }
+
+    @Test
+    @DisplayName("Should expose the filter footprint and expected false positive rate")
+    void shouldExposeFilterMetrics() {
+        // GIVEN
+        for (int i = 0; i < 10_000; i++) {
+            filter.recordRejection("rejected-" + i, HIGH_RISK);
+        }
+
+        // THEN
+        // Two generations of ~9.6 bits per key at 1%
+        assertThat(meterRegistry.get("risk.rejection.filter.memory").gauge().value()).isCloseTo(2 * 11_981, within(2.0));
+        assertThat(meterRegistry.get("risk.rejection.filter.fpp").gauge().value()).isCloseTo(0.01, within(0.005));
+        assertThat(meterRegistry.get("risk.rejection.filter.elements").gauge().value()).isCloseTo(10_000, within(200.0));
+    }
+
+    private RejectedRiskFilter filter(long expectedInsertions, long exactMaxSize) {
+        return new RejectedRiskFilter(new RejectionFilterProperties(true, WINDOW, expectedInsertions, 0.01, exactMaxSize),
+                meterRegistry, nanos::get);
+    }
+
+    private void advance(Duration duration) {
+        nanos.addAndGet(duration.toNanos());
+    }
+
+    private double checks(String result) {
+        return meterRegistry.get("risk.rejection.filter.checks").tag("result", result).counter().count();
+    }
+}
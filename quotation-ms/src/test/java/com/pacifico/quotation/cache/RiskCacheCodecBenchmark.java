@@ -0,0 +1,79 @@
+package com.pacifico.quotation.cache;
+
+import com.pacifico.quotation.dto.RiskCacheEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary risk cache codec with the JSON serializer it replaced.
+ * <p>
+ * Not part of the test suite; run from the IDE or with
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=com.pacifico.quotation.cache.RiskCacheCodecBenchmark}.
+ * Payload sizes are printed before the measurements start.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RiskCacheCodecBenchmark {
+
+    private final RiskCacheEntryCodec binary = new RiskCacheEntryCodec();
+    private final GenericJackson2JsonRedisSerializer json = new GenericJackson2JsonRedisSerializer();
+    private final RiskCacheEntry entry = new RiskCacheEntry(0.4213, "MEDIUM", "risk-model-v1");
+
+    private byte[] binaryBytes;
+    private byte[] jsonBytes;
+
+    @Setup
+    public void encode() {
+        binaryBytes = binary.serialize(entry);
+        jsonBytes = json.serialize(entry);
+    }
+
+    @Benchmark
+    public byte[] binaryEncode() {
+        return binary.serialize(entry);
+    }
+
+    @Benchmark
+    public RiskCacheEntry binaryDecode() {
+        return binary.deserialize(binaryBytes);
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() {
+        return json.serialize(entry);
+    }
+
+    @Benchmark
+    public Object jsonDecode() {
+        return json.deserialize(jsonBytes);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        RiskCacheCodecBenchmark sizes = new RiskCacheCodecBenchmark();
+        sizes.encode();
+        System.out.printf("Payload size: binary=%d bytes, json=%d bytes%n", sizes.binaryBytes.length, sizes.jsonBytes.length);
+
+        new Runner(new OptionsBuilder()
+                .include(RiskCacheCodecBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,78 @@
+package com.pacifico.quotation.cache;
+
+import com.pacifico.quotation.dto.RiskCacheEntry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
+import org.springframework.data.redis.serializer.SerializationException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RiskCacheEntryCodecTest {
+
+    private final RiskCacheEntryCodec codec = new RiskCacheEntryCodec();
+
+    @Test
+    @DisplayName("Should round-trip a risk cache entry without losing precision")
+    void shouldRoundTripEntry() {
+        // GIVEN
+        RiskCacheEntry entry = new RiskCacheEntry(0.123456789012345, "MEDIUM", "risk-model-v1", 1_760_000_000_000L);
+
+        // WHEN
+        RiskCacheEntry decoded = codec.deserialize(codec.serialize(entry));
+
+        // THEN
+        assertThat(decoded).isEqualTo(entry);
+    }
+
+    @Test
+    @DisplayName("Should encode far fewer bytes than the JSON serializer")
+    void shouldBeSmallerThanJson() {
+        // GIVEN
+        RiskCacheEntry entry = new RiskCacheEntry(0.2, "LOW", "risk-model-v1");
+
+        // WHEN
+        byte[] binary = codec.serialize(entry);
+        byte[] json = new GenericJackson2JsonRedisSerializer().serialize(entry);
+
+        // THEN
+        assertThat(binary).hasSize(32);
+        assertThat(binary.length * 4).isLessThan(json.length);
+    }
+
+    @Test
+    @DisplayName("Should reject values written before entries carried their expiry")
+    void shouldRejectFormatWithoutExpiry() {
+        // GIVEN
+        byte[] modelVersion = "risk-model-v1".getBytes(StandardCharsets.UTF_8);
+        byte[] legacy = ByteBuffer.allocate(11 + modelVersion.length)
+                .put((byte) 1)
+                .putDouble(0.4)
+                .put((byte) 1)
+                .put((byte) modelVersion.length)
+                .put(modelVersion)
+                .array();
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> codec.deserialize(legacy)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject values written in another format")
+    void shouldRejectForeignFormat() {
+        byte[] json = new GenericJackson2JsonRedisSerializer().serialize(new RiskCacheEntry(0.2, "LOW", "risk-model-v1"));
+
+        assertThatThrownBy(() -> codec.deserialize(json)).isInstanceOf(SerializationException.class);
+    }
+
+    @Test
+    @DisplayName("Should reject an unknown risk level")
+    void shouldRejectUnknownRiskLevel() {
+        assertThatThrownBy(() -> codec.serialize(new RiskCacheEntry(0.2, "EXTREME", "risk-model-v1")))
+                .isInstanceOf(SerializationException.class);
+    }
+}
@@ -0,0 +1,100 @@
+package com.pacifico.quotation.cache;
+
+import com.pacifico.quotation.cache.RiskCacheKeys.RiskCacheKey;
+import com.pacifico.quotation.config.RiskCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RiskCacheKeysTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should namespace keys by encoding and model version")
+    void shouldNamespaceKeysByVersion() {
+        // GIVEN
+        RiskCacheKeys keys = keys(RiskCacheKeyStrategy.DNI_CAR_BUCKET, List.of());
+
+        // WHEN
+        RiskCacheKey key = keys.forRequest("12345678", 25, 40_250.0);
+
+        // THEN
+        assertThat(key.key()).isEqualTo("risk_cache:v3:risk-model-v1:dni-car:12345678:40");
+        assertThat(key.scoredCarValue()).isEqualTo(40_500.0);
+    }
+
+    @Test
+    @DisplayName("Should give a customer a new key when the car value moves to another bucket")
+    void shouldSeparateCarValueBuckets() {
+        // GIVEN
+        RiskCacheKeys keys = keys(RiskCacheKeyStrategy.DNI_CAR_BUCKET, List.of());
+
+        // WHEN
+        RiskCacheKey sameBucket = keys.forRequest("12345678", 25, 40_999.0);
+        RiskCacheKey otherCar = keys.forRequest("12345678", 25, 90_000.0);
+
+        // THEN
+        assertThat(sameBucket).isEqualTo(keys.forRequest("12345678", 25, 40_000.0));
+        assertThat(otherCar.key()).isNotEqualTo(sameBucket.key());
+    }
+
+    @Test
+    @DisplayName("Should share feature-based keys across customers with identical features")
+    void shouldShareFeatureKeysAcrossCustomers() {
+        // GIVEN
+        RiskCacheKeys keys = keys(RiskCacheKeyStrategy.FEATURES, List.of());
+
+        // WHEN
+        RiskCacheKey first = keys.forRequest("12345678", 30, 25_100.0);
+        RiskCacheKey second = keys.forRequest("87654321", 30, 25_700.0);
+
+        // THEN
+        assertThat(first).isEqualTo(second);
+        assertThat(keys.forRequest("87654321", 31, 25_700.0).key()).isNotEqualTo(first.key());
+    }
+
+    @Test
+    @DisplayName("Should estimate the hit ratio of shadow strategies on live traffic")
+    void shouldEstimateShadowHitRatio() {
+        // GIVEN
+        RiskCacheKeys keys = keys(RiskCacheKeyStrategy.DNI_CAR_BUCKET,
+                List.of(RiskCacheKeyStrategy.FEATURES, RiskCacheKeyStrategy.DNI));
+
+        // WHEN
+        keys.forRequest("12345678", 30, 25_100.0);
+        keys.forRequest("87654321", 30, 25_700.0);
+        keys.forRequest("12345678", 30, 60_000.0);
+
+        // THEN
+        assertThat(shadow("features", "hit")).isEqualTo(1);
+        assertThat(shadow("features", "miss")).isEqualTo(2);
+        assertThat(shadow("dni", "hit")).isEqualTo(1);
+        assertThat(shadow("dni", "miss")).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive car value bucket")
+    void shouldRejectInvalidBucket() {
+        RiskCacheProperties properties = new RiskCacheProperties(Duration.ofMinutes(10), 100, Duration.ofSeconds(60),
+                RiskCacheKeyStrategy.FEATURES, 0, "risk-model-v1", List.of(), 0, Duration.ZERO);
+
+        assertThatThrownBy(() -> new RiskCacheKeys(properties, meterRegistry))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private RiskCacheKeys keys(RiskCacheKeyStrategy strategy, List<RiskCacheKeyStrategy> shadows) {
+        return new RiskCacheKeys(new RiskCacheProperties(Duration.ofMinutes(10), 100, Duration.ofSeconds(60),
+                strategy, 1000, "risk-model-v1", shadows, 0, Duration.ZERO), meterRegistry);
+    }
+
+    private double shadow(String strategy, String result) {
+        return meterRegistry.get("risk.cache.shadow.gets").tag("strategy", strategy).tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,390 @@
+package com.pacifico.quotation.cache;
+
+import com.pacifico.quotation.config.RiskCacheProperties;
+import com.pacifico.quotation.dto.RiskCacheEntry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ValueOperations;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class RiskCacheTest {
+
+    private static final String MODEL_VERSION = "risk-model-v1";
+    private static final String KEY = "risk_cache:v3:risk-model-v1:dni-car:12345678:40";
+    private static final RiskCacheEntry ENTRY = new RiskCacheEntry(0.2, "LOW", MODEL_VERSION);
+
+    @Mock
+    private RedisTemplate<String, RiskCacheEntry> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, RiskCacheEntry> valueOperations;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
+
+    private SimpleMeterRegistry meterRegistry;
+    private RiskCache riskCache;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        meterRegistry = new SimpleMeterRegistry();
+        riskCache = new RiskCache(redisTemplate, stringRedisTemplate, new RiskCacheProperties(Duration.ofMinutes(10), 100,
+                Duration.ofSeconds(60), RiskCacheKeyStrategy.DNI_CAR_BUCKET, 1000, MODEL_VERSION, List.of(), 0, Duration.ZERO), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should promote a Redis hit to L1 and serve later reads locally")
+    void shouldPromoteRedisHitToLocalTier() {
+        // GIVEN
+        when(valueOperations.get(KEY)).thenReturn(ENTRY);
+
+        // WHEN
+        RiskCacheEntry first = riskCache.get(KEY);
+        RiskCacheEntry second = riskCache.get(KEY);
+
+        // THEN
+        assertThat(first).isEqualTo(ENTRY);
+        assertThat(second).isEqualTo(ENTRY);
+        verify(valueOperations, times(1)).get(KEY);
+        assertThat(gets("l1", "hit")).isEqualTo(1);
+        assertThat(gets("l1", "miss")).isEqualTo(1);
+        assertThat(gets("l2", "hit")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should count a miss on both tiers when the key is unknown")
+    void shouldCountMissOnBothTiers() {
+        // GIVEN
+        when(valueOperations.get(KEY)).thenReturn(null);
+
+        // WHEN
+        RiskCacheEntry result = riskCache.get(KEY);
+
+        // THEN
+        assertThat(result).isNull();
+        assertThat(gets("l1", "miss")).isEqualTo(1);
+        assertThat(gets("l2", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should treat an entry scored by another model version as a miss")
+    void shouldMissOnModelVersionMismatch() {
+        // GIVEN
+        when(valueOperations.get(KEY)).thenReturn(new RiskCacheEntry(0.2, "LOW", "risk-model-v0"));
+
+        // WHEN
+        RiskCacheEntry result = riskCache.get(KEY);
+
+        // THEN
+        assertThat(result).isNull();
+        assertThat(gets("l2", "miss")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should write through to Redis and broadcast an invalidation")
+    void shouldWriteThroughAndBroadcast() {
+        // WHEN
+        riskCache.put(KEY, ENTRY);
+
+        // THEN
+        ArgumentCaptor<RiskCacheEntry> written = ArgumentCaptor.forClass(RiskCacheEntry.class);
+        verify(valueOperations).set(eq(KEY), written.capture(), eq(Duration.ofMinutes(10)));
+        assertThat(withoutExpiry(written.getValue())).isEqualTo(ENTRY);
+        assertThat(written.getValue().expiresAt()).isGreaterThan(System.currentTimeMillis());
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(RiskCache.INVALIDATION_CHANNEL), message.capture());
+        assertThat(message.getValue()).endsWith("|" + KEY);
+        assertThat(withoutExpiry(riskCache.get(KEY))).isEqualTo(ENTRY);
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    @Test
+    @DisplayName("Should read many keys with L1 first and a single MGET for the rest")
+    void shouldReadManyKeysWithSingleMultiGet() {
+        // GIVEN
+        String cachedLocally = KEY;
+        String cachedRemotely = "risk_cache:v3:risk-model-v1:dni-car:87654321:60";
+        String unknown = "risk_cache:v3:risk-model-v1:dni-car:11111111:20";
+        riskCache.put(cachedLocally, ENTRY);
+        RiskCacheEntry remote = new RiskCacheEntry(0.9, "HIGH", MODEL_VERSION);
+        when(valueOperations.multiGet(List.of(cachedRemotely, unknown))).thenReturn(Arrays.asList(remote, null));
+
+        // WHEN
+        Map<String, RiskCacheEntry> found = riskCache.getAll(List.of(cachedLocally, cachedRemotely, unknown));
+
+        // THEN
+        assertThat(withoutExpiry(found)).containsOnly(entry(cachedLocally, ENTRY), entry(cachedRemotely, remote));
+        verify(valueOperations, times(1)).multiGet(anyList());
+        verify(valueOperations, never()).get(anyString());
+        assertThat(gets("l1", "hit")).isEqualTo(1);
+        assertThat(gets("l2", "hit")).isEqualTo(1);
+        assertThat(gets("l2", "miss")).isEqualTo(1);
+        assertThat(riskCache.get(cachedRemotely)).isEqualTo(remote);
+    }
+
+    @Test
+    @DisplayName("Should write many keys with one pipelined round trip")
+    void shouldWriteManyKeysInOnePipeline() {
+        // GIVEN
+        String other = "risk_cache:v3:risk-model-v1:dni-car:87654321:60";
+        Map<String, RiskCacheEntry> entries = Map.of(KEY, ENTRY, other, new RiskCacheEntry(0.9, "HIGH", MODEL_VERSION));
+
+        // WHEN
+        riskCache.putAll(entries);
+
+        // THEN
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        verify(stringRedisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+        verify(valueOperations, never()).set(anyString(), any(), any(Duration.class));
+        assertThat(withoutExpiry(riskCache.getAll(entries.keySet()))).isEqualTo(entries);
+        verify(valueOperations, never()).multiGet(anyList());
+    }
+
+    @Test
+    @DisplayName("Should drop the L1 copy when another replica invalidates the key")
+    void shouldDropLocalCopyOnRemoteInvalidation() {
+        // GIVEN
+        riskCache.put(KEY, ENTRY);
+        when(valueOperations.get(KEY)).thenReturn(new RiskCacheEntry(0.6, "MEDIUM", MODEL_VERSION));
+
+        // WHEN
+        riskCache.onInvalidation("other-instance|" + KEY);
+
+        // THEN
+        assertThat(riskCache.get(KEY).riskLevel()).isEqualTo("MEDIUM");
+    }
+
+    @Test
+    @DisplayName("Should ignore invalidations published by itself")
+    void shouldIgnoreOwnInvalidation() {
+        // GIVEN
+        riskCache.put(KEY, ENTRY);
+        ArgumentCaptor<String> message = ArgumentCaptor.forClass(String.class);
+        verify(stringRedisTemplate).convertAndSend(eq(RiskCache.INVALIDATION_CHANNEL), message.capture());
+
+        // WHEN
+        riskCache.onInvalidation(message.getValue());
+
+        // THEN
+        assertThat(withoutExpiry(riskCache.get(KEY))).isEqualTo(ENTRY);
+        verify(valueOperations, never()).get(anyString());
+    }
+
+    @Test
+    @DisplayName("Should share the leader's failure with coalesced callers and allow a retry")
+    void shouldShareLoadFailureAndAllowRetry() throws Exception {
+        // GIVEN
+        when(valueOperations.get(KEY)).thenReturn(null);
+        CountDownLatch releaseLoad = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+        // WHEN
+        CompletableFuture<RiskCacheEntry> leader = CompletableFuture.supplyAsync(() -> riskCache.getOrLoad(KEY, () -> {
+            loads.incrementAndGet();
+            awaitQuietly(releaseLoad);
+            throw new IllegalStateException("ml-risk-ms unavailable");
+        }), executor);
+        while (loads.get() == 0) {
+            Thread.sleep(1);
+        }
+        CompletableFuture<RiskCacheEntry> follower = CompletableFuture.supplyAsync(
+                () -> riskCache.getOrLoad(KEY, () -> ENTRY), executor);
+        while (meterRegistry.get("risk.cache.coalesced").counter().count() < 1) {
+            Thread.sleep(1);
+        }
+        releaseLoad.countDown();
+
+        // THEN
+        assertThatThrownBy(() -> follower.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> leader.get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(withoutExpiry(riskCache.getOrLoad(KEY, () -> ENTRY))).isEqualTo(ENTRY);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should look up Redis without blocking the caller of the non-blocking path")
+    void shouldNotBlockCallerOnRedisLookup() throws Exception {
+        // GIVEN
+        CountDownLatch redisReplied = new CountDownLatch(1);
+        when(valueOperations.get(KEY)).thenAnswer(invocation -> {
+            redisReplied.await(5, TimeUnit.SECONDS);
+            return ENTRY;
+        });
+
+        // WHEN
+        CompletableFuture<RiskCacheEntry> result = riskCache.getOrLoadAsync(KEY, () -> {
+            throw new AssertionError("Redis hit must not be re-scored");
+        });
+
+        // THEN
+        assertThat(result).isNotDone();
+        redisReplied.countDown();
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo(ENTRY);
+        assertThat(gets("l2", "hit")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should re-score a hit in the background when it is close to expiry")
+    void shouldRefreshHitAheadOfExpiry() throws Exception {
+        // GIVEN
+        RiskCache refreshing = refreshAheadCache(Duration.ofMinutes(1));
+        // Due now, so the early expiration draw always triggers
+        RiskCacheEntry expiring = ENTRY.withExpiresAt(System.currentTimeMillis());
+        when(valueOperations.get(KEY)).thenReturn(expiring);
+        RiskCacheEntry rescored = new RiskCacheEntry(0.3, "MEDIUM", MODEL_VERSION);
+        CompletableFuture<RiskCacheEntry> rpc = new CompletableFuture<>();
+
+        // WHEN
+        RiskCacheEntry served = refreshing.getOrLoadAsync(KEY, () -> rpc).get(5, TimeUnit.SECONDS);
+        // A concurrent hit does not start a second refresh of the same key
+        refreshing.getOrLoadAsync(KEY, () -> {
+            throw new AssertionError("Refresh already in flight");
+        });
+        rpc.complete(rescored);
+
+        // THEN
+        assertThat(served).isEqualTo(expiring);
+        verify(valueOperations, timeout(5000)).set(eq(KEY), argThat(entry -> entry.probabilityScore() == 0.3),
+                any(Duration.class));
+        assertThat(withoutExpiry(refreshing.get(KEY))).isEqualTo(rescored);
+        // The refresh is counted once put() has returned, just after the Redis write verified above
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (refreshes("success") < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(refreshes("success")).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should rarely refresh entries that are far from expiry")
+    void shouldNotRefreshFreshEntries() {
+        // GIVEN
+        RiskCache refreshing = refreshAheadCache(Duration.ofSeconds(1));
+        when(valueOperations.get(KEY)).thenReturn(ENTRY.withExpiresAt(System.currentTimeMillis() + 600_000));
+        AtomicInteger loads = new AtomicInteger();
+
+        // WHEN
+        for (int i = 0; i < 1000; i++) {
+            refreshing.getOrLoad(KEY, () -> {
+                loads.incrementAndGet();
+                return ENTRY;
+            });
+        }
+
+        // THEN
+        // exp(-600) per read
+        assertThat(loads.get()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep serving the current entry when a background refresh fails")
+    void shouldKeepEntryWhenRefreshFails() throws Exception {
+        // GIVEN
+        RiskCache refreshing = refreshAheadCache(Duration.ofMinutes(1));
+        RiskCacheEntry expiring = ENTRY.withExpiresAt(System.currentTimeMillis());
+        when(valueOperations.get(KEY)).thenReturn(expiring);
+
+        // WHEN
+        RiskCacheEntry served = refreshing.getOrLoad(KEY, () -> {
+            throw new IllegalStateException("ml-risk-ms unavailable");
+        });
+
+        // THEN
+        assertThat(served).isEqualTo(expiring);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (refreshes("failure") < 1 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(refreshes("failure")).isEqualTo(1);
+        assertThat(refreshing.get(KEY)).isEqualTo(expiring);
+        verify(valueOperations, never()).set(anyString(), any(), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should spread Redis TTLs within the configured jitter")
+    void shouldJitterTtl() {
+        // GIVEN
+        RiskCache jittered = new RiskCache(redisTemplate, stringRedisTemplate, new RiskCacheProperties(Duration.ofMinutes(10), 100,
+                Duration.ofSeconds(60), RiskCacheKeyStrategy.DNI_CAR_BUCKET, 1000, MODEL_VERSION, List.of(), 0.1, Duration.ZERO),
+                meterRegistry);
+
+        // WHEN
+        for (int i = 0; i < 50; i++) {
+            jittered.put(KEY + i, ENTRY);
+        }
+
+        // THEN
+        ArgumentCaptor<Duration> ttls = ArgumentCaptor.forClass(Duration.class);
+        verify(valueOperations, times(50)).set(anyString(), any(), ttls.capture());
+        assertThat(ttls.getAllValues())
+                .allSatisfy(ttl -> assertThat(ttl).isBetween(Duration.ofMinutes(9), Duration.ofMinutes(11)))
+                .doesNotHaveDuplicates();
+    }
+
+    private RiskCache refreshAheadCache(Duration refreshAhead) {
+        return new RiskCache(redisTemplate, stringRedisTemplate, new RiskCacheProperties(Duration.ofMinutes(10), 100,
+                Duration.ofSeconds(60), RiskCacheKeyStrategy.DNI_CAR_BUCKET, 1000, MODEL_VERSION, List.of(), 0, refreshAhead),
+                meterRegistry);
+    }
+
+    private static RiskCacheEntry withoutExpiry(RiskCacheEntry entry) {
+        return entry.withExpiresAt(0);
+    }
+
+    private static Map<String, RiskCacheEntry> withoutExpiry(Map<String, RiskCacheEntry> entries) {
+        Map<String, RiskCacheEntry> result = new HashMap<>();
+        entries.forEach((key, entry) -> result.put(key, withoutExpiry(entry)));
+        return result;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private double gets(String tier, String result) {
+        return meterRegistry.get("risk.cache.gets").tag("strategy", "dni_car_bucket").tag("tier", tier).tag("result", result).counter().count();
+    }
+
+    private double refreshes(String result) {
+        return meterRegistry.get("risk.cache.refreshes").tag("result", result).counter().count();
+    }
+}
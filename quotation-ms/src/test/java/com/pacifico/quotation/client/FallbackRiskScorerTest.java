@@ -0,0 +1,137 @@
+package com.pacifico.quotation.client;
+
+import com.pacifico.quotation.config.QuotationPipelineConfig;
+import com.pacifico.quotation.config.RiskCircuitBreakerProperties;
+import com.pacifico.quotation.dto.RiskCacheEntry;
+import com.pacifico.risk.RiskBatchRequest;
+import com.pacifico.risk.RiskBatchResponse;
+import com.pacifico.risk.RiskInferenceServiceGrpc;
+import com.pacifico.risk.RiskRequest;
+import com.pacifico.risk.RiskResponse;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class FallbackRiskScorerTest {
+
+    private final AtomicInteger batchCalls = new AtomicInteger();
+    private SimpleMeterRegistry meterRegistry;
+    private Server server;
+    private ManagedChannel channel;
+    private CircuitBreaker circuitBreaker;
+    private FallbackRiskScorer scorer;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        String name = "fallback-risk-" + System.nanoTime();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(new LinearRiskService())
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+
+        RiskCircuitBreakerProperties properties = new RiskCircuitBreakerProperties(50, 50,
+                Duration.ofMillis(300), 50, 20, Duration.ofSeconds(15), 5,
+                new RiskCircuitBreakerProperties.Fallback(false, Duration.ofMinutes(10), Duration.ofSeconds(5),
+                        1000, 18, 99, 200000, 5000));
+        circuitBreaker = new QuotationPipelineConfig().riskCircuitBreaker(properties, meterRegistry);
+        scorer = new FallbackRiskScorer(properties, circuitBreaker, meterRegistry);
+        ReflectionTestUtils.setField(scorer, "riskStub", RiskInferenceServiceGrpc.newBlockingStub(channel));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        server.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should score with the built-in rules until a snapshot is synced")
+    void shouldUseRulesBeforeFirstSync() {
+        // WHEN
+        RiskCacheEntry young = scorer.score(20, 60000);
+        RiskCacheEntry adult = scorer.score(40, 20000);
+
+        // THEN
+        assertThat(young.probabilityScore()).isCloseTo(0.8, within(1e-9));
+        assertThat(young.riskLevel()).isEqualTo("HIGH");
+        assertThat(adult.probabilityScore()).isCloseTo(0.2, within(1e-9));
+        assertThat(adult.riskLevel()).isEqualTo("LOW");
+        assertThat(FallbackRiskScorer.isFallback(adult)).isTrue();
+        assertThat(meterRegistry.get("risk.fallback.scores").tag("source", "rules").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Should sync the grid in batches and interpolate between car value nodes")
+    void shouldSyncSnapshotAndInterpolate() {
+        // WHEN
+        boolean synced = scorer.sync();
+        RiskCacheEntry risk = scorer.score(40, 12345);
+
+        // THEN
+        assertThat(synced).isTrue();
+        // 82 ages x 41 car value nodes, 1000 grid points per call
+        assertThat(batchCalls.get()).isEqualTo(4);
+        assertThat(risk.probabilityScore()).isCloseTo(LinearRiskService.score(40, 12345), within(1e-9));
+        assertThat(risk.riskLevel()).isEqualTo("MEDIUM");
+        assertThat(meterRegistry.get("risk.fallback.scores").tag("source", "snapshot").counter().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("risk.fallback.snapshot.age").gauge().value()).isLessThan(60);
+    }
+
+    @Test
+    @DisplayName("Should keep the previous snapshot while the circuit is not closed")
+    void shouldNotSyncWhileCircuitIsOpen() {
+        // GIVEN
+        scorer.sync();
+        circuitBreaker.transitionToOpenState();
+
+        // WHEN
+        boolean synced = scorer.sync();
+
+        // THEN
+        assertThat(synced).isFalse();
+        assertThat(batchCalls.get()).isEqualTo(4);
+        assertThat(scorer.score(30, 100000).probabilityScore()).isCloseTo(LinearRiskService.score(30, 100000), within(1e-9));
+    }
+
+    /**
+     * Scores linearly in both features, so interpolation between grid nodes is exact.
+     */
+    private final class LinearRiskService extends RiskInferenceServiceGrpc.RiskInferenceServiceImplBase {
+
+        static double score(int age, double carValue) {
+            return age / 100.0 + carValue / 1_000_000.0;
+        }
+
+        @Override
+        public void evaluateRiskBatch(RiskBatchRequest request, StreamObserver<RiskBatchResponse> responseObserver) {
+            batchCalls.incrementAndGet();
+            RiskBatchResponse.Builder response = RiskBatchResponse.newBuilder();
+            for (RiskRequest risk : request.getRequestsList()) {
+                response.addResponses(RiskResponse.newBuilder()
+                        .setProbabilityScore(score(risk.getAge(), risk.getCarValue()))
+                        .setRiskLevel("LOW"));
+            }
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        }
+    }
+}
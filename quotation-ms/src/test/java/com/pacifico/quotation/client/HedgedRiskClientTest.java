@@ -0,0 +1,168 @@
+package com.pacifico.quotation.client;
+
+import com.pacifico.quotation.config.QuotationPipelineProperties;
+import com.pacifico.quotation.config.RiskHedgingProperties;
+import com.pacifico.risk.RiskInferenceServiceGrpc;
+import com.pacifico.risk.RiskRequest;
+import com.pacifico.risk.RiskResponse;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.inprocess.InProcessSocketAddress;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HedgedRiskClientTest {
+
+    private static final Duration SLOW = Duration.ofSeconds(1);
+    private static final Duration FAST = Duration.ofMillis(5);
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+    private final List<Server> servers = new ArrayList<>();
+    private final AtomicInteger calls = new AtomicInteger();
+    private final AtomicInteger cancelled = new AtomicInteger();
+    private final AtomicBoolean failing = new AtomicBoolean();
+    private SimpleMeterRegistry meterRegistry;
+    private ManagedChannel channel;
+    private HedgedRiskClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+
+        List<EquivalentAddressGroup> addresses = new ArrayList<>();
+        for (int i = 0; i < 2; i++) {
+            String name = "hedged-risk-" + i + "-" + System.nanoTime();
+            servers.add(InProcessServerBuilder.forName(name)
+                    .directExecutor()
+                    .addService(new FlakyLatencyRiskService())
+                    .build()
+                    .start());
+            addresses.add(new EquivalentAddressGroup(new InProcessSocketAddress(name)));
+        }
+        channel = InProcessChannelBuilder.forTarget("static:///ml-risk-ms")
+                .nameResolverFactory(new LeastOutstandingLoadBalancerTest.StaticNameResolverFactory(addresses))
+                .defaultLoadBalancingPolicy(LeastOutstandingLoadBalancerProvider.POLICY_NAME)
+                .build();
+
+        client = new HedgedRiskClient(new RiskHedgingProperties(true, 0.95, Duration.ofMillis(20)),
+                new QuotationPipelineProperties(QuotationPipelineProperties.Mode.ASYNC, Duration.ofSeconds(3)),
+                meterRegistry);
+        ReflectionTestUtils.setField(client, "riskFutureStub", RiskInferenceServiceGrpc.newFutureStub(channel));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        client.shutdown();
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        servers.forEach(Server::shutdownNow);
+        scheduler.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Should answer slow calls from the hedge and cancel the slow call")
+    void shouldHedgeSlowCalls() throws Exception {
+        // GIVEN
+        int total = 50;
+
+        // WHEN
+        long maxNanos = 0;
+        for (int i = 0; i < total; i++) {
+            long start = System.nanoTime();
+            RiskResponse response = client.evaluateRisk(request(i)).get(5, TimeUnit.SECONDS);
+            maxNanos = Math.max(maxNanos, System.nanoTime() - start);
+            assertThat(response.getRiskLevel()).isEqualTo("LOW");
+        }
+
+        // THEN
+        // Every tenth call is slow; without hedging those would take the full second
+        assertThat(Duration.ofNanos(maxNanos)).isLessThan(SLOW.dividedBy(2));
+        assertThat(meterRegistry.get("risk.client.hedges").tag("outcome", "won").counter().count())
+                .isGreaterThanOrEqualTo(total / 10);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (cancelled.get() < total / 10 && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(cancelled.get()).isGreaterThanOrEqualTo(total / 10);
+    }
+
+    @Test
+    @DisplayName("Should not send a hedge when calls are fast")
+    void shouldNotHedgeFastCalls() throws Exception {
+        // GIVEN
+        calls.set(1);
+
+        // WHEN
+        for (int i = 0; i < 9; i++) {
+            client.evaluateRisk(request(i)).get(5, TimeUnit.SECONDS);
+        }
+
+        // THEN
+        assertThat(meterRegistry.get("risk.client.hedges").tag("outcome", "sent").counter().count()).isZero();
+        assertThat(calls.get()).isEqualTo(10);
+    }
+
+    @Test
+    @DisplayName("Should fail fast when the call fails before the hedge is sent")
+    void shouldFailFastOnError() {
+        // GIVEN
+        failing.set(true);
+
+        // WHEN / THEN
+        assertThatThrownBy(() -> client.evaluateRisk(request(0)).get(5, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(StatusRuntimeException.class)
+                .hasMessageContaining("UNAVAILABLE");
+        assertThat(meterRegistry.get("risk.client.hedges").tag("outcome", "sent").counter().count()).isZero();
+    }
+
+    private static RiskRequest request(int i) {
+        return RiskRequest.newBuilder().setDni("DNI-" + i).setAge(30).setCarValue(20000).build();
+    }
+
+    /**
+     * Answers every tenth call (counting across replicas) after {@link #SLOW}, the rest after {@link #FAST}.
+     */
+    private final class FlakyLatencyRiskService extends RiskInferenceServiceGrpc.RiskInferenceServiceImplBase {
+
+        @Override
+        public void evaluateRisk(RiskRequest request, StreamObserver<RiskResponse> responseObserver) {
+            if (failing.get()) {
+                responseObserver.onError(Status.UNAVAILABLE.withDescription("Injected failure").asRuntimeException());
+                return;
+            }
+            ServerCallStreamObserver<RiskResponse> observer = (ServerCallStreamObserver<RiskResponse>) responseObserver;
+            observer.setOnCancelHandler(cancelled::incrementAndGet);
+            Duration latency = calls.getAndIncrement() % 10 == 0 ? SLOW : FAST;
+            scheduler.schedule(() -> {
+                if (!observer.isCancelled()) {
+                    observer.onNext(RiskResponse.newBuilder().setProbabilityScore(0.2).setRiskLevel("LOW").build());
+                    observer.onCompleted();
+                }
+            }, latency.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,203 @@
+package com.pacifico.quotation.client;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.pacifico.risk.RiskInferenceServiceGrpc;
+import com.pacifico.risk.RiskRequest;
+import com.pacifico.risk.RiskResponse;
+import io.grpc.EquivalentAddressGroup;
+import io.grpc.ManagedChannel;
+import io.grpc.NameResolver;
+import io.grpc.NameResolverProvider;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.inprocess.InProcessSocketAddress;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.net.SocketAddress;
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LeastOutstandingLoadBalancerTest {
+
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(4);
+    private final List<Server> servers = new ArrayList<>();
+    private final List<AtomicInteger> callsPerServer = new ArrayList<>();
+    private SimpleMeterRegistry meterRegistry;
+    private ManagedChannel channel;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+
+        List<EquivalentAddressGroup> addresses = new ArrayList<>();
+        for (Duration latency : List.of(Duration.ofMillis(5), Duration.ofMillis(5), Duration.ofMillis(300))) {
+            String name = "risk-" + servers.size() + "-" + System.nanoTime();
+            AtomicInteger calls = new AtomicInteger();
+            servers.add(InProcessServerBuilder.forName(name)
+                    .directExecutor()
+                    .addService(new DelayedRiskService(scheduler, latency, calls))
+                    .build()
+                    .start());
+            callsPerServer.add(calls);
+            addresses.add(new EquivalentAddressGroup(new InProcessSocketAddress(name)));
+        }
+
+        channel = InProcessChannelBuilder.forTarget("static:///ml-risk-ms")
+                .nameResolverFactory(new StaticNameResolverFactory(addresses))
+                .defaultLoadBalancingPolicy(LeastOutstandingLoadBalancerProvider.POLICY_NAME)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+        servers.forEach(Server::shutdownNow);
+        scheduler.shutdownNow();
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should route calls away from a replica that has calls in flight")
+    void shouldRouteAwayFromSlowReplica() throws Exception {
+        // GIVEN
+        RiskInferenceServiceGrpc.RiskInferenceServiceFutureStub stub = RiskInferenceServiceGrpc.newFutureStub(channel);
+        int total = 150;
+
+        // WHEN
+        List<ListenableFuture<RiskResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < total; i++) {
+            responses.add(stub.evaluateRisk(RiskRequest.newBuilder().setDni("DNI-" + i).setAge(30).build()));
+            Thread.sleep(2);
+        }
+        for (ListenableFuture<RiskResponse> response : responses) {
+            response.get(5, TimeUnit.SECONDS);
+        }
+
+        // THEN
+        assertThat(callsPerServer.get(0).get() + callsPerServer.get(1).get() + callsPerServer.get(2).get())
+                .isEqualTo(total);
+        // Round robin would send a third of the calls to the slow replica
+        assertThat(callsPerServer.get(2).get()).isLessThan(total / 10);
+    }
+
+    @Test
+    @DisplayName("Should record latency and in-flight calls per replica")
+    void shouldRecordPerInstanceMetrics() throws Exception {
+        // GIVEN
+        RiskInferenceServiceGrpc.RiskInferenceServiceFutureStub stub = RiskInferenceServiceGrpc.newFutureStub(channel);
+
+        // WHEN
+        List<ListenableFuture<RiskResponse>> responses = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            responses.add(stub.evaluateRisk(RiskRequest.newBuilder().setDni("DNI-" + i).setAge(30).build()));
+        }
+        for (ListenableFuture<RiskResponse> response : responses) {
+            response.get(5, TimeUnit.SECONDS);
+        }
+
+        // THEN
+        List<Timer> timers = new ArrayList<>(meterRegistry.find("grpc.client.instance.latency")
+                .tag("target", "ml-risk-ms")
+                .timers());
+        assertThat(timers).hasSize(3);
+        assertThat(timers.stream().mapToLong(Timer::count).sum()).isEqualTo(30);
+        assertThat(meterRegistry.find("grpc.client.instance.outstanding").gauges())
+                .hasSize(3)
+                .allSatisfy(gauge -> assertThat(gauge.value()).isZero());
+    }
+
+    /**
+     * Answers every call after a fixed delay, without holding a thread.
+     */
+    static final class DelayedRiskService extends RiskInferenceServiceGrpc.RiskInferenceServiceImplBase {
+
+        private final ScheduledExecutorService scheduler;
+        private final Duration latency;
+        private final AtomicInteger calls;
+
+        DelayedRiskService(ScheduledExecutorService scheduler, Duration latency, AtomicInteger calls) {
+            this.scheduler = scheduler;
+            this.latency = latency;
+            this.calls = calls;
+        }
+
+        @Override
+        public void evaluateRisk(RiskRequest request, StreamObserver<RiskResponse> responseObserver) {
+            calls.incrementAndGet();
+            scheduler.schedule(() -> {
+                responseObserver.onNext(RiskResponse.newBuilder().setProbabilityScore(0.2).setRiskLevel("LOW").build());
+                responseObserver.onCompleted();
+            }, latency.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Resolves any target to a fixed set of addresses.
+     */
+    static final class StaticNameResolverFactory extends NameResolverProvider {
+
+        private final List<EquivalentAddressGroup> addresses;
+
+        StaticNameResolverFactory(List<EquivalentAddressGroup> addresses) {
+            this.addresses = addresses;
+        }
+
+        @Override
+        public NameResolver newNameResolver(URI targetUri, NameResolver.Args args) {
+            return new NameResolver() {
+                @Override
+                public String getServiceAuthority() {
+                    return targetUri.getPath().substring(1);
+                }
+
+                @Override
+                public void start(Listener2 listener) {
+                    listener.onResult(ResolutionResult.newBuilder().setAddresses(addresses).build());
+                }
+
+                @Override
+                public void shutdown() {
+                }
+            };
+        }
+
+        @Override
+        public String getDefaultScheme() {
+            return "static";
+        }
+
+        @Override
+        protected boolean isAvailable() {
+            return true;
+        }
+
+        @Override
+        protected int priority() {
+            return 0;
+        }
+
+        @Override
+        public Collection<Class<? extends SocketAddress>> getProducedSocketAddressTypes() {
+            return Set.of(InProcessSocketAddress.class);
+        }
+    }
+}
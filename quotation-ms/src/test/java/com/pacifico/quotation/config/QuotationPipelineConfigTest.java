@@ -0,0 +1,57 @@
+package com.pacifico.quotation.config;
+
+import com.pacifico.risk.RiskInferenceServiceGrpc;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientInterceptor;
+import io.grpc.Deadline;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class QuotationPipelineConfigTest {
+
+    private final ClientInterceptor interceptor = new QuotationPipelineConfig().riskDeadlineInterceptor(
+            new QuotationPipelineProperties(QuotationPipelineProperties.Mode.ASYNC, Duration.ofMillis(500)));
+
+    @Test
+    @DisplayName("Should add the configured deadline to calls without one")
+    void shouldAddDeadline() {
+        // GIVEN
+        Channel channel = mock(Channel.class);
+        Deadline earliest = Deadline.after(500, TimeUnit.MILLISECONDS);
+
+        // WHEN
+        interceptor.interceptCall(RiskInferenceServiceGrpc.getEvaluateRiskMethod(), CallOptions.DEFAULT, channel);
+
+        // THEN
+        Deadline latest = Deadline.after(500, TimeUnit.MILLISECONDS);
+        ArgumentCaptor<CallOptions> options = ArgumentCaptor.forClass(CallOptions.class);
+        verify(channel).newCall(eq(RiskInferenceServiceGrpc.getEvaluateRiskMethod()), options.capture());
+        assertThat(options.getValue().getDeadline()).isNotNull().isBetween(earliest, latest);
+    }
+
+    @Test
+    @DisplayName("Should keep a deadline set by the caller")
+    void shouldKeepCallerDeadline() {
+        // GIVEN
+        Channel channel = mock(Channel.class);
+        Deadline callerDeadline = Deadline.after(5, TimeUnit.SECONDS);
+
+        // WHEN
+        interceptor.interceptCall(RiskInferenceServiceGrpc.getEvaluateRiskMethod(),
+                CallOptions.DEFAULT.withDeadline(callerDeadline), channel);
+
+        // THEN
+        ArgumentCaptor<CallOptions> options = ArgumentCaptor.forClass(CallOptions.class);
+        verify(channel).newCall(eq(RiskInferenceServiceGrpc.getEvaluateRiskMethod()), options.capture());
+        assertThat(options.getValue().getDeadline()).isSameAs(callerDeadline);
+    }
+}
@@ -0,0 +1,63 @@
+package com.pacifico.quotation.controller;
+
+import com.pacifico.quotation.config.QuotationPipelineProperties;
+import com.pacifico.quotation.dto.QuotationResult;
+import com.pacifico.quotation.service.QuotationService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.GraphQlTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.graphql.test.tester.GraphQlTester;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+@GraphQlTest(QuotationController.class)
+class QuotationControllerTest {
+
+    private static final Map<String, Object> VEHICLE = Map.of("dni", "12345678", "age", 30, "carValue", 20000.0);
+
+    @Autowired
+    private GraphQlTester graphQlTester;
+
+    @MockBean
+    private QuotationService quotationService;
+
+    @MockBean
+    private QuotationPipelineProperties pipelineProperties;
+
+    @Test
+    @DisplayName("Should resolve a bulk quotation from the asynchronous pipeline")
+    void shouldQuoteFleetAsynchronously() {
+        // GIVEN
+        when(quotationService.orchestrateQuotationsAsync(anyList())).thenReturn(CompletableFuture.completedFuture(
+                List.of(QuotationResult.rejected("High risk detected: 0.9"))));
+
+        // WHEN
+        graphQlTester.document("mutation($inputs: [QuoteInput!]!) { createQuotes(inputs: $inputs) { status message } }")
+                .variable("inputs", List.of(VEHICLE))
+                .execute()
+                // THEN
+                .path("createQuotes[0].status").entity(String.class).isEqualTo("REJECTED")
+                .path("createQuotes[0].message").entity(String.class).isEqualTo("High risk detected: 0.9");
+        verify(quotationService, never()).orchestrateQuotations(anyList());
+    }
+
+    @Test
+    @DisplayName("Should reject bulk quotations above the maximum fleet size")
+    void shouldRejectOversizedFleets() {
+        graphQlTester.document("mutation($inputs: [QuoteInput!]!) { createQuotes(inputs: $inputs) { status } }")
+                .variable("inputs", Collections.nCopies(501, VEHICLE))
+                .execute()
+                .errors()
+                .expect(error -> true)
+                .verify();
+        verifyNoInteractions(quotationService);
+    }
+}
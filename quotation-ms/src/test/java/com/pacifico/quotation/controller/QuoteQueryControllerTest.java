@@ -0,0 +1,67 @@
+package com.pacifico.quotation.controller;
+
+import com.pacifico.quotation.model.Quote;
+import com.pacifico.quotation.service.QuoteQueryService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.GraphQlTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.graphql.test.tester.GraphQlTester;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+@GraphQlTest(QuoteQueryController.class)
+class QuoteQueryControllerTest {
+
+    @Autowired
+    private GraphQlTester graphQlTester;
+
+    @MockBean
+    private QuoteQueryService quoteQueryService;
+
+    @Test
+    @DisplayName("Should resolve every quote of a document with a single batched lookup")
+    void shouldBatchQuoteLookups() {
+        // GIVEN
+        when(quoteQueryService.findByIds(anyCollection())).thenReturn(Map.of(
+                1L, Quote.builder().id(1L).dni("12345678").age(30).carValue(java.math.BigDecimal.TEN).build(),
+                2L, Quote.builder().id(2L).dni("87654321").age(40).carValue(java.math.BigDecimal.ONE).build()));
+
+        // WHEN
+        graphQlTester.document("""
+                        query {
+                          a: quote(id: 1) { dni }
+                          b: quote(id: 2) { dni }
+                          c: quote(id: 3) { dni }
+                        }
+                        """)
+                .execute()
+                // THEN
+                .path("a.dni").entity(String.class).isEqualTo("12345678")
+                .path("b.dni").entity(String.class).isEqualTo("87654321")
+                .path("c").valueIsNull();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Long>> ids = ArgumentCaptor.forClass(Collection.class);
+        verify(quoteQueryService, times(1)).findByIds(ids.capture());
+        assertThat(ids.getValue()).containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    @DisplayName("Should reject page sizes above the maximum")
+    void shouldRejectOversizedPages() {
+        graphQlTester.document("{ quotesByDni(dni: \"12345678\", first: 1000) { pageInfo { hasNextPage } } }")
+                .execute()
+                .errors()
+                .expect(error -> true)
+                .verify();
+        verifyNoInteractions(quoteQueryService);
+    }
+}
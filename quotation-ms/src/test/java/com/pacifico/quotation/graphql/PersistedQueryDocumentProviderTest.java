@@ -0,0 +1,125 @@
+package com.pacifico.quotation.graphql;
+
+import com.pacifico.quotation.config.GraphQlConfig;
+import com.pacifico.quotation.controller.QuoteQueryController;
+import com.pacifico.quotation.model.Quote;
+import com.pacifico.quotation.service.QuoteQueryService;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.graphql.GraphQlTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.graphql.ResponseError;
+import org.springframework.graphql.test.tester.GraphQlTester;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.when;
+
+@GraphQlTest(QuoteQueryController.class)
+@Import({GraphQlConfig.class, PersistedQueryDocumentProviderTest.Metrics.class})
+class PersistedQueryDocumentProviderTest {
+
+    private static final String QUERY = "query Quote($id: ID!) { quote(id: $id) { dni } }";
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private GraphQlTester graphQlTester;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @MockBean
+    private QuoteQueryService quoteQueryService;
+
+    @BeforeEach
+    void setUp() {
+        when(quoteQueryService.findByIds(anyCollection())).thenReturn(Map.of(
+                1L, Quote.builder().id(1L).dni("12345678").age(30).carValue(BigDecimal.TEN).build()));
+    }
+
+    @Test
+    @DisplayName("Should ask for the full query when a persisted query hash is unknown")
+    void shouldReportUnknownHash() {
+        hashOnly(PersistedQueryDocumentProvider.sha256("{ quote(id: 42) { id } }"))
+                .execute()
+                .errors()
+                .satisfy(errors -> assertThat(errors).extracting(ResponseError::getMessage)
+                        .containsExactly("PersistedQueryNotFound"));
+
+        assertThat(meterRegistry.get("graphql.persisted.queries").tag("result", "not_found").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should register a query sent with its hash and serve later hash-only requests from the cache")
+    void shouldServePersistedQueryByHash() {
+        // GIVEN
+        String hash = PersistedQueryDocumentProvider.sha256(QUERY);
+        graphQlTester.document(QUERY)
+                .variable("id", 1)
+                .extension("persistedQuery", Map.of("version", 1, "sha256Hash", hash))
+                .execute()
+                .path("quote.dni").entity(String.class).isEqualTo("12345678");
+
+        // WHEN / THEN
+        hashOnly(hash)
+                .variable("id", 1)
+                .execute()
+                .path("quote.dni").entity(String.class).isEqualTo("12345678");
+        assertThat(meterRegistry.get("graphql.persisted.queries").tag("result", "hit").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    @DisplayName("Should reuse the parsed document for a repeated query without a hash")
+    void shouldCacheRepeatedDocuments() {
+        // GIVEN
+        String query = "{ first: quote(id: 1) { dni } }";
+        graphQlTester.document(query).execute().path("first.dni").entity(String.class).isEqualTo("12345678");
+        double hitsBefore = meterRegistry.get("cache.gets").tag("cache", "graphql.documents").tag("result", "hit")
+                .functionCounter().count();
+
+        // WHEN
+        graphQlTester.document(query).execute().path("first.dni").entity(String.class).isEqualTo("12345678");
+
+        // THEN
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "graphql.documents").tag("result", "hit")
+                .functionCounter().count()).isEqualTo(hitsBefore + 1);
+    }
+
+    @Test
+    @DisplayName("Should reject a query whose hash does not match its text")
+    void shouldRejectMismatchedHash() {
+        graphQlTester.document(QUERY)
+                .variable("id", 1)
+                .extension("persistedQuery", Map.of("version", 1, "sha256Hash", PersistedQueryDocumentProvider.sha256("other")))
+                .execute()
+                .errors()
+                .satisfy(errors -> assertThat(errors).extracting(ResponseError::getMessage)
+                        .containsExactly("PersistedQueryIdInvalid"));
+    }
+
+    private GraphQlTester.Request<?> hashOnly(String hash) {
+        // What PersistedQueryRequestFilter turns a hash-only HTTP request into
+        return graphQlTester.document(PersistedQuerySupport.PERSISTED_QUERY_MARKER)
+                .extension("persistedQuery", Map.of("version", 1, "sha256Hash", hash));
+    }
+}
@@ -0,0 +1,106 @@
+package com.pacifico.quotation.graphql;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import graphql.execution.preparsed.persisted.PersistedQuerySupport;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletRequest;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PersistedQueryRequestFilterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final PersistedQueryRequestFilter filter = new PersistedQueryRequestFilter(objectMapper);
+
+    @Test
+    @DisplayName("Should add the persisted query marker to hash-only requests")
+    void shouldAddMarkerToHashOnlyRequests() throws Exception {
+        // GIVEN
+        String body = """
+                {"variables":{"id":"1","query":"not the document"},
+                 "extensions":{"persistedQuery":{"version":1,"sha256Hash":"abc"}}}""";
+
+        // WHEN
+        JsonNode forwarded = objectMapper.readTree(filter(body));
+
+        // THEN
+        assertThat(forwarded.get("query").asText()).isEqualTo(PersistedQuerySupport.PERSISTED_QUERY_MARKER);
+        assertThat(forwarded.at("/extensions/persistedQuery/sha256Hash").asText()).isEqualTo("abc");
+        assertThat(forwarded.at("/variables/id").asText()).isEqualTo("1");
+    }
+
+    @Test
+    @DisplayName("Should pass requests carrying a query through unchanged")
+    void shouldPassFullQueriesThrough() throws Exception {
+        // GIVEN
+        String body = """
+                {"query":"{ quote(id: 1) { dni } }",
+                 "extensions":{"persistedQuery":{"version":1,"sha256Hash":"abc"}}}""";
+
+        // WHEN / THEN
+        assertThat(filter(body)).isEqualTo(body);
+        assertThat(filter("not json")).isEqualTo("not json");
+    }
+
+    @Test
+    @DisplayName("Should drive a read listener through the whole forwarded body")
+    void shouldSupportReadListeners() throws Exception {
+        // GIVEN
+        String body = "{\"query\":\"{ quote(id: 1) { dni } }\",\"variables\":{\"padding\":\"" + "x".repeat(50_000) + "\"}}";
+        ServletInputStream forwarded = forward(body).getInputStream();
+        ByteArrayOutputStream received = new ByteArrayOutputStream();
+        AtomicBoolean allDataRead = new AtomicBoolean();
+
+        // WHEN
+        forwarded.setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() throws IOException {
+                byte[] buffer = new byte[4096];
+                while (forwarded.isReady() && !forwarded.isFinished()) {
+                    int read = forwarded.read(buffer);
+                    if (read > 0) {
+                        received.write(buffer, 0, read);
+                    }
+                }
+            }
+
+            @Override
+            public void onAllDataRead() {
+                allDataRead.set(true);
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                throw new AssertionError(t);
+            }
+        });
+
+        // THEN
+        assertThat(allDataRead).isTrue();
+        assertThat(received.toString(StandardCharsets.UTF_8)).isEqualTo(body);
+    }
+
+    private String filter(String body) throws Exception {
+        return new String(forward(body).getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    }
+
+    private ServletRequest forward(String body) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/graphql");
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        return chain.getRequest();
+    }
+}
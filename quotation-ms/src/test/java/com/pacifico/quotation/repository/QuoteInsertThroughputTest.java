@@ -0,0 +1,128 @@
+package com.pacifico.quotation.repository;
+
+import com.pacifico.quotation.model.Quote;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.function.IntFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Insert throughput of quotes on the H2 test profile, IDENTITY ids (previous mapping)
+ * against the pooled sequence now used by {@link Quote}.
+ */
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+class QuoteInsertThroughputTest {
+
+    private static final Logger logger = LoggerFactory.getLogger(QuoteInsertThroughputTest.class);
+
+    private static final int ROWS = 5_000;
+    private static final int FLUSH_EVERY = 50;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Test
+    @DisplayName("Should batch sequence-id inserts and outperform IDENTITY inserts")
+    void shouldBatchSequenceInserts() {
+        // GIVEN
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        insert(i -> identityQuote(i), 1_000);
+        insert(i -> quote(i), 1_000);
+
+        // WHEN
+        statistics.clear();
+        long identityNanos = insert(i -> identityQuote(i), ROWS);
+        long identityStatements = statistics.getPrepareStatementCount();
+
+        statistics.clear();
+        long sequenceNanos = insert(i -> quote(i), ROWS);
+        long sequenceStatements = statistics.getPrepareStatementCount();
+
+        // THEN
+        logger.info("Inserted {} rows: IDENTITY {} rows/s ({} statements), SEQUENCE {} rows/s ({} statements)",
+                ROWS, rowsPerSecond(identityNanos), identityStatements, rowsPerSecond(sequenceNanos), sequenceStatements);
+        assertThat(identityStatements).isGreaterThanOrEqualTo(ROWS);
+        assertThat(sequenceStatements).isLessThan(ROWS / 10);
+    }
+
+    private long insert(IntFunction<Object> entities, int rows) {
+        long start = System.nanoTime();
+        for (int i = 0; i < rows; i++) {
+            entityManager.persist(entities.apply(i));
+            if ((i + 1) % FLUSH_EVERY == 0) {
+                entityManager.flush();
+                entityManager.clear();
+            }
+        }
+        entityManager.flush();
+        entityManager.clear();
+        return System.nanoTime() - start;
+    }
+
+    private static long rowsPerSecond(long nanos) {
+        return ROWS * 1_000_000_000L / nanos;
+    }
+
+    private static Quote quote(int i) {
+        return Quote.builder()
+                .dni(String.format("%08d", i))
+                .age(30)
+                .carValue(BigDecimal.valueOf(25_000))
+                .probabilityScore(0.2)
+                .riskLevel("LOW")
+                .status("APPROVED")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+
+    private static IdentityQuote identityQuote(int i) {
+        IdentityQuote quote = new IdentityQuote();
+        quote.dni = String.format("%08d", i);
+        quote.age = 30;
+        quote.carValue = BigDecimal.valueOf(25_000);
+        quote.probabilityScore = 0.2;
+        quote.riskLevel = "LOW";
+        quote.status = "APPROVED";
+        quote.createdAt = LocalDateTime.now();
+        return quote;
+    }
+
+    /**
+     * Same columns as {@link Quote} with the IDENTITY mapping it used before.
+     */
+    @Entity
+    @Table(name = "identity_quotes")
+    static class IdentityQuote {
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        Long id;
+        String dni;
+        Integer age;
+        BigDecimal carValue;
+        Double probabilityScore;
+        String riskLevel;
+        String status;
+        LocalDateTime createdAt;
+    }
+}
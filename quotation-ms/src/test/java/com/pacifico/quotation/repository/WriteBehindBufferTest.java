@@ -0,0 +1,119 @@
+package com.pacifico.quotation.repository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WriteBehindBufferTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    @DisplayName("Should flush a lone write immediately")
+    void shouldFlushLoneWriteImmediately() throws Exception {
+        // GIVEN
+        List<List<String>> flushes = Collections.synchronizedList(new ArrayList<>());
+        try (WriteBehindBuffer<String> buffer = buffer(recording(flushes), 50, 100)) {
+
+            // WHEN
+            String saved = buffer.submit("q1").get(5, TimeUnit.SECONDS);
+
+            // THEN
+            assertThat(saved).isEqualTo("q1-saved");
+            assertThat(flushes).containsExactly(List.of("q1"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should group writes that queue up during a flush into one batch")
+    void shouldGroupWritesQueuedDuringFlush() throws Exception {
+        // GIVEN
+        CountDownLatch firstFlushStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirstFlush = new CountDownLatch(1);
+        List<List<String>> flushes = Collections.synchronizedList(new ArrayList<>());
+        Function<List<String>, List<String>> writer = recording(flushes).andThen(saved -> {
+            if (flushes.size() == 1) {
+                firstFlushStarted.countDown();
+                await(releaseFirstFlush);
+            }
+            return saved;
+        });
+
+        try (WriteBehindBuffer<String> buffer = buffer(writer, 50, 100)) {
+            CompletableFuture<String> first = buffer.submit("q0");
+            assertThat(firstFlushStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            // WHEN
+            List<CompletableFuture<String>> queued = new ArrayList<>();
+            for (int i = 1; i <= 10; i++) {
+                queued.add(buffer.submit("q" + i));
+            }
+            releaseFirstFlush.countDown();
+            CompletableFuture.allOf(queued.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+
+            // THEN
+            assertThat(first).isCompletedWithValue("q0-saved");
+            assertThat(flushes).hasSize(2);
+            assertThat(flushes.get(1)).hasSize(10);
+            assertThat(queued.get(9).get()).isEqualTo("q10-saved");
+            assertThat(meterRegistry.get("write.buffer.batch.size").tag("buffer", "test").summary().max()).isEqualTo(10);
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail every write of a batch whose flush fails")
+    void shouldFailWholeBatchOnFlushError() {
+        // GIVEN
+        try (WriteBehindBuffer<String> buffer = buffer(batch -> {
+            throw new IllegalStateException("constraint violation");
+        }, 50, 100)) {
+
+            // WHEN & THEN
+            assertThatThrownBy(() -> buffer.submit("q1").get(5, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(IllegalStateException.class);
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject writes once closed")
+    void shouldRejectWritesWhenClosed() {
+        // GIVEN
+        WriteBehindBuffer<String> buffer = buffer(recording(new ArrayList<>()), 50, 100);
+        buffer.close();
+
+        // WHEN & THEN
+        assertThat(buffer.submit("q1")).isCompletedExceptionally();
+        assertThatThrownBy(() -> buffer.submit("q1").join()).hasCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    private WriteBehindBuffer<String> buffer(Function<List<String>, List<String>> writer, int maxBatchSize, int capacity) {
+        return new WriteBehindBuffer<>("test", writer, maxBatchSize, capacity, meterRegistry);
+    }
+
+    private static Function<List<String>, List<String>> recording(List<List<String>> flushes) {
+        return batch -> {
+            flushes.add(List.copyOf(batch));
+            return batch.stream().map(item -> item + "-saved").toList();
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
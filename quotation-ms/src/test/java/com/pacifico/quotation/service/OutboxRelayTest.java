@@ -0,0 +1,236 @@
+package com.pacifico.quotation.service;
+
+import com.pacifico.insurance.event.InsurancePolicyEvent;
+import com.pacifico.quotation.config.OutboxProperties;
+import com.pacifico.quotation.model.OutboxEvent;
+import com.pacifico.quotation.model.Quote;
+import com.pacifico.quotation.repository.OutboxEventRepository;
+import com.pacifico.quotation.repository.QuoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Sort;
+import org.springframework.kafka.KafkaException;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Runs the outbox against H2 without a surrounding test transaction, so the writer and the
+ * relay commit and roll back exactly as they do in production.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@ActiveProfiles("test")
+@Import(QuoteWriter.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayTest {
+
+    @Autowired
+    private QuoteWriter quoteWriter;
+
+    @Autowired
+    private QuoteRepository quoteRepository;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @SuppressWarnings("unchecked")
+    private final KafkaTemplate<String, Object> kafkaTemplate = mock(KafkaTemplate.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        outboxEventRepository.deleteAll();
+        quoteRepository.deleteAll();
+        relay = new OutboxRelay(outboxEventRepository, kafkaTemplate, new TransactionTemplate(transactionManager),
+                new OutboxProperties(true, 500, Duration.ofMillis(200), Duration.ofSeconds(1), Duration.ofMinutes(2),
+                        3, Duration.ZERO, Duration.ZERO, Duration.ofMinutes(1)), meterRegistry);
+    }
+
+    @Test
+    @DisplayName("Should write one outbox event per saved quote")
+    void shouldWriteOutboxEventsWithQuotes() throws Exception {
+        // WHEN
+        List<Quote> saved = quoteWriter.saveAll(List.of(quote("12345678", 0.5), quote("87654321", 0.1)));
+
+        // THEN
+        List<OutboxEvent> events = outboxEventRepository.findAll();
+        assertThat(events).extracting(OutboxEvent::getQuoteId)
+                .containsExactlyInAnyOrder(saved.get(0).getId(), saved.get(1).getId());
+        OutboxEvent first = events.stream().filter(e -> e.getQuoteId().equals(saved.get(0).getId())).findFirst().orElseThrow();
+        assertThat(first.getTopic()).isEqualTo("insurance.policy.issuance");
+        assertThat(first.getMessageKey()).isEqualTo("12345678");
+        InsurancePolicyEvent event = InsurancePolicyEvent.fromByteBuffer(ByteBuffer.wrap(first.getPayload()));
+        assertThat(event.getDni()).hasToString("12345678");
+        assertThat(event.getFinalPremium()).isCloseTo(3000.0, within(1e-6));
+    }
+
+    @Test
+    @DisplayName("Should publish pending events in one flushed batch and delete them once acknowledged")
+    void shouldRelayAndDeleteAcknowledgedEvents() {
+        // GIVEN
+        quoteWriter.saveAll(List.of(quote("12345678", 0.5), quote("87654321", 0.1)));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenReturn(CompletableFuture.completedFuture(null));
+
+        // WHEN
+        int published = relay.relayBatch();
+        relay.refreshLag();
+
+        // THEN
+        assertThat(published).isEqualTo(2);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<ProducerRecord<String, Object>> records = ArgumentCaptor.forClass(ProducerRecord.class);
+        verify(kafkaTemplate, times(2)).send(records.capture());
+        verify(kafkaTemplate, times(1)).flush();
+        assertThat(records.getAllValues()).extracting(ProducerRecord::key).containsExactly("12345678", "87654321");
+        assertThat(records.getAllValues()).allSatisfy(record -> assertThat(record.value()).isInstanceOf(InsurancePolicyEvent.class));
+        assertThat(outboxEventRepository.count()).isZero();
+        assertThat(meterRegistry.get("outbox.relay.events").counter().count()).isEqualTo(2.0);
+        assertThat(meterRegistry.get("outbox.lag.events").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should keep events in the outbox with an attempt recorded when the broker does not acknowledge them")
+    void shouldKeepEventsWhenSendFails() {
+        // GIVEN
+        quoteWriter.saveAll(List.of(quote("12345678", 0.5)));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenReturn(CompletableFuture.failedFuture(new IllegalStateException("broker down")));
+
+        // WHEN
+        relay.relayBatch();
+        relay.refreshLag();
+
+        // THEN
+        OutboxEvent event = outboxEventRepository.findAll().get(0);
+        assertThat(event.getAttempts()).isEqualTo(1);
+        assertThat(event.getParkedAt()).isNull();
+        assertThat(event.getLastError()).contains("broker down");
+        assertThat(meterRegistry.get("outbox.lag.events").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("outbox.relay.failures").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("outbox.relay.events").counter().count()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should publish the rest of the batch and park an event that keeps failing")
+    void shouldParkEventThatKeepsFailing() {
+        // GIVEN
+        quoteWriter.saveAll(List.of(quote("12345678", 0.5), quote("87654321", 0.1)));
+        when(kafkaTemplate.send(any(ProducerRecord.class))).thenAnswer(invocation -> {
+            ProducerRecord<String, Object> record = invocation.getArgument(0);
+            return "12345678".equals(record.key())
+                    ? CompletableFuture.failedFuture(new IllegalStateException("record too large"))
+                    : CompletableFuture.completedFuture(null);
+        });
+
+        // WHEN
+        for (int i = 0; i < 4; i++) {
+            relay.relayBatch();
+        }
+        relay.refreshLag();
+
+        // THEN
+        OutboxEvent poison = outboxEventRepository.findAll().get(0);
+        assertThat(poison.getMessageKey()).isEqualTo("12345678");
+        assertThat(poison.getAttempts()).isEqualTo(3);
+        assertThat(poison.getParkedAt()).isNotNull();
+        assertThat(outboxEventRepository.count()).isEqualTo(1);
+        // Both sent in the first batch, then the poison event alone until it is parked
+        verify(kafkaTemplate, times(4)).send(any(ProducerRecord.class));
+        assertThat(meterRegistry.get("outbox.relay.events").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("outbox.relay.parked").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("outbox.parked.events").gauge().value()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("outbox.lag.events").gauge().value()).isZero();
+    }
+
+    @Test
+    @DisplayName("Should stop sending a batch after a send fails and release the rest unsent")
+    void shouldReleaseRestOfBatchAfterFailedSend() {
+        // GIVEN
+        quoteWriter.saveAll(List.of(quote("12345678", 0.5), quote("87654321", 0.1), quote("11223344", 0.2)));
+        when(kafkaTemplate.send(any(ProducerRecord.class)))
+                .thenThrow(new KafkaException("Topic not present in metadata after 10000 ms"));
+
+        // WHEN
+        int settled = relay.relayBatch();
+
+        // THEN
+        assertThat(settled).isEqualTo(1);
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+        List<OutboxEvent> events = outboxEventRepository.findAll(Sort.by("id"));
+        assertThat(events).extracting(OutboxEvent::getAttempts).containsExactly(1, 0, 0);
+        assertThat(events.subList(1, 3)).allSatisfy(event -> assertThat(event.getAvailableAt()).isNull());
+    }
+
+    @Test
+    @DisplayName("Should not hand claimed events to another relay while they are being published")
+    void shouldNotReclaimEventsInFlight() {
+        // GIVEN
+        quoteWriter.saveAll(List.of(quote("12345678", 0.5)));
+        CompletableFuture<Object> ack = new CompletableFuture<>();
+        doReturn(ack).when(kafkaTemplate).send(any(ProducerRecord.class));
+        OutboxRelay other = new OutboxRelay(outboxEventRepository, kafkaTemplate, new TransactionTemplate(transactionManager),
+                new OutboxProperties(true, 500, Duration.ofMillis(200), Duration.ofSeconds(5), Duration.ofMinutes(2),
+                        3, Duration.ZERO, Duration.ZERO, Duration.ofMinutes(1)), new SimpleMeterRegistry());
+
+        // WHEN
+        CompletableFuture<Integer> inFlight = CompletableFuture.supplyAsync(other::relayBatch);
+        verify(kafkaTemplate, timeout(5000)).flush();
+        int claimedAgain = relay.relayBatch();
+        ack.complete(null);
+
+        // THEN
+        assertThat(claimedAgain).isZero();
+        assertThat(inFlight.join()).isEqualTo(1);
+        assertThat(outboxEventRepository.count()).isZero();
+        verify(kafkaTemplate, times(1)).send(any(ProducerRecord.class));
+    }
+
+    @Test
+    @DisplayName("Should do nothing when the outbox is empty")
+    void shouldSkipEmptyOutbox() {
+        // WHEN
+        int published = relay.relayBatch();
+
+        // THEN
+        assertThat(published).isZero();
+        verifyNoInteractions(kafkaTemplate);
+    }
+
+    private static Quote quote(String dni, double score) {
+        return Quote.builder()
+                .dni(dni)
+                .age(30)
+                .carValue(BigDecimal.valueOf(40000.0))
+                .probabilityScore(score)
+                .riskLevel("MEDIUM")
+                .status("APPROVED")
+                .createdAt(LocalDateTime.now())
+                .build();
+    }
+}
@@ -1,32 +1,65 @@
 package com.pacifico.quotation.service;
 
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.SettableFuture;
 import com.pacifico.insurance.event.InsurancePolicyEvent;
+import com.pacifico.quotation.cache.RejectedRiskFilter;
+import com.pacifico.quotation.cache.RiskCache;
+import com.pacifico.quotation.cache.RiskCacheKeyStrategy;
+import com.pacifico.quotation.cache.RiskCacheKeys;
+import com.pacifico.quotation.client.FallbackRiskScorer;
+import com.pacifico.quotation.client.HedgedRiskClient;
+import com.pacifico.quotation.config.QuotationPipelineConfig;
+import com.pacifico.quotation.config.QuotationPipelineProperties;
+import com.pacifico.quotation.config.RejectionFilterProperties;
+import com.pacifico.quotation.config.RiskCacheProperties;
+import com.pacifico.quotation.config.RiskCircuitBreakerProperties;
+import com.pacifico.quotation.config.RiskHedgingProperties;
+import com.pacifico.quotation.dto.QuotationRequest;
+import com.pacifico.quotation.dto.QuotationResult;
 import com.pacifico.quotation.dto.RiskCacheEntry;
 import com.pacifico.quotation.exception.HighRiskException;
 import com.pacifico.quotation.model.Quote;
 import com.pacifico.quotation.repository.QuoteRepository;
+import com.pacifico.quotation.repository.WriteBehindBuffer;
+import com.pacifico.risk.RiskBatchRequest;
+import com.pacifico.risk.RiskBatchResponse;
 import com.pacifico.risk.RiskInferenceServiceGrpc;
 import com.pacifico.risk.RiskRequest;
 import com.pacifico.risk.RiskResponse;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.grpc.Status;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ValueOperations;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -38,16 +71,22 @@ class QuotationServiceTest {
     private RiskInferenceServiceGrpc.RiskInferenceServiceBlockingStub riskStub;
 
     @Mock
-    private RedisTemplate<String, Object> redisTemplate;
+    private RiskInferenceServiceGrpc.RiskInferenceServiceFutureStub riskFutureStub;
 
     @Mock
-    private ValueOperations<String, Object> valueOperations;
+    private RedisTemplate<String, RiskCacheEntry> redisTemplate;
+
+    @Mock
+    private ValueOperations<String, RiskCacheEntry> valueOperations;
+
+    @Mock
+    private StringRedisTemplate stringRedisTemplate;
 
     @Mock
     private QuoteRepository quoteRepository;
 
     @Mock
-    private KafkaTemplate<String, Object> kafkaTemplate;
+    private QuoteWriter quoteWriter;
 
     @InjectMocks
     private QuotationService quotationService;
@@ -55,10 +94,49 @@ class QuotationServiceTest {
     private static final String DNI = "12345678";
     private static final int AGE = 25;
     private static final double CAR_VALUE = 40000.0;
+    private static final String MODEL_VERSION = "risk-model-v1";
+
+    private SimpleMeterRegistry meterRegistry;
+    private WriteBehindBuffer<Quote> quoteWriteBuffer;
+
+    private HedgedRiskClient riskClient;
+
+    private CircuitBreaker riskCircuitBreaker;
 
     @BeforeEach
     void setUp() {
         lenient().when(redisTemplate.opsForValue()).thenReturn(valueOperations);
+        meterRegistry = new SimpleMeterRegistry();
+        RiskCacheProperties cacheProperties = new RiskCacheProperties(Duration.ofMinutes(10), 100, Duration.ofSeconds(60),
+                RiskCacheKeyStrategy.DNI_CAR_BUCKET, 1000, MODEL_VERSION, List.of(), 0, Duration.ZERO);
+        ReflectionTestUtils.setField(quotationService, "riskCache",
+                new RiskCache(redisTemplate, stringRedisTemplate, cacheProperties, meterRegistry));
+        ReflectionTestUtils.setField(quotationService, "riskCacheKeys", new RiskCacheKeys(cacheProperties, meterRegistry));
+        ReflectionTestUtils.setField(quotationService, "rejectionFilter", new RejectedRiskFilter(
+                new RejectionFilterProperties(true, Duration.ofMinutes(10), 1000, 0.01, 1000), meterRegistry));
+        // Writes through the mocked repository one entity at a time, so save() can be verified per quote
+        quoteWriteBuffer = new WriteBehindBuffer<>("quotes",
+                quotes -> quotes.stream().map(quoteRepository::save).toList(), 50, 1000, meterRegistry);
+        ReflectionTestUtils.setField(quotationService, "quoteWriteBuffer", quoteWriteBuffer);
+        QuotationPipelineProperties pipelineProperties = new QuotationPipelineProperties(
+                QuotationPipelineProperties.Mode.ASYNC, Duration.ofMillis(500));
+        riskClient = new HedgedRiskClient(new RiskHedgingProperties(false, 0.95, Duration.ofMillis(10)),
+                pipelineProperties, meterRegistry);
+        ReflectionTestUtils.setField(riskClient, "riskFutureStub", riskFutureStub);
+        ReflectionTestUtils.setField(quotationService, "riskClient", riskClient);
+        RiskCircuitBreakerProperties circuitBreakerProperties = new RiskCircuitBreakerProperties(50, 50,
+                Duration.ofMillis(300), 50, 20, Duration.ofSeconds(15), 5,
+                new RiskCircuitBreakerProperties.Fallback(false, Duration.ofMinutes(10), Duration.ofSeconds(5),
+                        1000, 18, 99, 200000, 5000));
+        riskCircuitBreaker = new QuotationPipelineConfig().riskCircuitBreaker(circuitBreakerProperties, meterRegistry);
+        ReflectionTestUtils.setField(quotationService, "riskCircuitBreaker", riskCircuitBreaker);
+        ReflectionTestUtils.setField(quotationService, "fallbackScorer",
+                new FallbackRiskScorer(circuitBreakerProperties, riskCircuitBreaker, meterRegistry));
+    }
+
+    @AfterEach
+    void tearDown() {
+        quoteWriteBuffer.close();
     }
 
     @Test
@@ -92,14 +170,13 @@ class QuotationServiceTest {
         assertThat(result.getDni()).isEqualTo(DNI);
         verify(riskStub, times(1)).evaluateRisk(any(RiskRequest.class));
         verify(redisTemplate.opsForValue(), times(1)).set(anyString(), any(RiskCacheEntry.class), any(Duration.class));
-        verify(kafkaTemplate, times(1)).send(any(org.apache.kafka.clients.producer.ProducerRecord.class));
     }
 
     @Test
     @DisplayName("Should use cache when risk is already inferred")
     void shouldUseCacheWhenRiskIsInferred() {
         // GIVEN
-        RiskCacheEntry cacheEntry = new RiskCacheEntry(0.2, "LOW");
+        RiskCacheEntry cacheEntry = new RiskCacheEntry(0.2, "LOW", MODEL_VERSION);
         when(valueOperations.get(anyString())).thenReturn(cacheEntry);
         
         Quote savedQuote = Quote.builder()
@@ -138,7 +215,28 @@ class QuotationServiceTest {
                 .hasMessageContaining("High risk detected");
         
         verify(quoteRepository, never()).save(any(Quote.class));
-        verify(kafkaTemplate, never()).send(anyString(), any());
+    }
+
+    @Test
+    @DisplayName("Should reject a repeated high-risk applicant without Redis or gRPC")
+    void shouldRejectRepeatedHighRiskApplicantInProcess() {
+        // GIVEN
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(riskStub.evaluateRisk(any(RiskRequest.class))).thenReturn(
+                RiskResponse.newBuilder().setProbabilityScore(0.85).setRiskLevel("HIGH").build());
+        assertThatThrownBy(() -> quotationService.orchestrateQuotation(DNI, AGE, CAR_VALUE))
+                .isInstanceOf(HighRiskException.class);
+        clearInvocations(valueOperations, riskStub);
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> quotationService.orchestrateQuotation(DNI, AGE, CAR_VALUE))
+                .isInstanceOf(HighRiskException.class)
+                .hasMessageContaining("0.85");
+        assertThatThrownBy(() -> quotationService.orchestrateQuotationAsync(DNI, AGE, CAR_VALUE).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(HighRiskException.class);
+        verifyNoInteractions(valueOperations, riskStub, riskFutureStub);
+        assertThat(meterRegistry.get("risk.rejection.filter.checks").tag("result", "rejected").counter().count())
+                .isEqualTo(2);
     }
 
     @Test
@@ -173,4 +271,316 @@ class QuotationServiceTest {
         verify(quoteRepository, times(concurrentTasks)).save(any(Quote.class));
         executor.shutdown();
     }
+
+    @Test
+    @DisplayName("Should coalesce concurrent cache misses for the same DNI into one gRPC call")
+    void shouldCoalesceConcurrentCacheMisses() throws Exception {
+        // GIVEN
+        int concurrentTasks = 20;
+        CountDownLatch releaseRpc = new CountDownLatch(1);
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(riskStub.evaluateRisk(any(RiskRequest.class))).thenAnswer(invocation -> {
+            releaseRpc.await();
+            return RiskResponse.newBuilder().setProbabilityScore(0.1).setRiskLevel("LOW").build();
+        });
+        Quote mockQuote = Quote.builder()
+                .id(1L)
+                .dni(DNI)
+                .carValue(java.math.BigDecimal.valueOf(CAR_VALUE))
+                .probabilityScore(0.1)
+                .build();
+        when(quoteRepository.save(any(Quote.class))).thenReturn(mockQuote);
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        CompletableFuture<?>[] futures = new CompletableFuture[concurrentTasks];
+
+        // WHEN
+        for (int i = 0; i < concurrentTasks; i++) {
+            futures[i] = CompletableFuture.runAsync(() ->
+                    quotationService.orchestrateQuotation(DNI, AGE, CAR_VALUE), executor);
+        }
+        // Hold the leader's RPC until every other caller has joined it
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (meterRegistry.get("risk.cache.coalesced").counter().count() < concurrentTasks - 1
+                && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        releaseRpc.countDown();
+        CompletableFuture.allOf(futures).get(10, TimeUnit.SECONDS);
+
+        // THEN
+        verify(riskStub, times(1)).evaluateRisk(any(RiskRequest.class));
+        verify(valueOperations, times(1)).set(anyString(), any(RiskCacheEntry.class), any(Duration.class));
+        verify(quoteRepository, times(concurrentTasks)).save(any(Quote.class));
+        assertThat(meterRegistry.get("risk.cache.coalesced").counter().count()).isEqualTo(concurrentTasks - 1);
+        executor.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should complete the async pipeline and write the fresh score back in the background")
+    void shouldCompleteAsyncPipeline() throws Exception {
+        // GIVEN
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(riskFutureStub.evaluateRisk(any(RiskRequest.class))).thenReturn(Futures.immediateFuture(
+                RiskResponse.newBuilder().setProbabilityScore(0.5).setRiskLevel("MEDIUM").build()));
+        Quote savedQuote = Quote.builder()
+                .id(1L)
+                .dni(DNI)
+                .carValue(java.math.BigDecimal.valueOf(CAR_VALUE))
+                .probabilityScore(0.5)
+                .riskLevel("MEDIUM")
+                .build();
+        when(quoteRepository.save(any(Quote.class))).thenReturn(savedQuote);
+
+        // WHEN
+        Quote result = quotationService.orchestrateQuotationAsync(DNI, AGE, CAR_VALUE).get(5, TimeUnit.SECONDS);
+
+        // THEN
+        assertThat(result.getId()).isEqualTo(1L);
+        verify(riskStub, never()).evaluateRisk(any(RiskRequest.class));
+        verify(valueOperations, timeout(5000).times(1)).set(anyString(), any(RiskCacheEntry.class), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should not hold a thread per quote while the risk call is in flight")
+    void shouldNotHoldThreadWhileRiskCallInFlight() throws Exception {
+        // GIVEN
+        SettableFuture<RiskResponse> rpc = SettableFuture.create();
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(riskFutureStub.evaluateRisk(any(RiskRequest.class))).thenReturn(rpc);
+        when(quoteRepository.save(any(Quote.class))).thenAnswer(invocation -> {
+            Quote quote = invocation.getArgument(0);
+            quote.setId(1L);
+            return quote;
+        });
+
+        // WHEN
+        List<CompletableFuture<Quote>> quotes = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            quotes.add(quotationService.orchestrateQuotationAsync(DNI, AGE, CAR_VALUE));
+        }
+
+        // THEN
+        assertThat(quotes).noneMatch(CompletableFuture::isDone);
+        verify(riskFutureStub, times(1)).evaluateRisk(any(RiskRequest.class));
+
+        rpc.set(RiskResponse.newBuilder().setProbabilityScore(0.1).setRiskLevel("LOW").build());
+        CompletableFuture.allOf(quotes.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+        verify(quoteRepository, times(10)).save(any(Quote.class));
+    }
+
+    @Test
+    @DisplayName("Should fail the async pipeline with HighRiskException when score exceeds threshold")
+    void shouldFailAsyncPipelineWhenRiskIsHigh() {
+        // GIVEN
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(riskFutureStub.evaluateRisk(any(RiskRequest.class))).thenReturn(Futures.immediateFuture(
+                RiskResponse.newBuilder().setProbabilityScore(0.85).setRiskLevel("HIGH").build()));
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> quotationService.orchestrateQuotationAsync(DNI, AGE, CAR_VALUE).get(5, TimeUnit.SECONDS))
+                .hasCauseInstanceOf(HighRiskException.class);
+        verify(quoteRepository, never()).save(any(Quote.class));
+    }
+
+    @Test
+    @DisplayName("Should score with the embedded fallback when the risk call exceeds its deadline")
+    void shouldFallBackWhenAsyncRiskCallExceedsDeadline() throws Exception {
+        // GIVEN
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(riskFutureStub.evaluateRisk(any(RiskRequest.class)))
+                .thenReturn(Futures.immediateFailedFuture(Status.DEADLINE_EXCEEDED.asRuntimeException()));
+        when(quoteRepository.save(any(Quote.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN
+        Quote result = quotationService.orchestrateQuotationAsync(DNI, AGE, CAR_VALUE).get(5, TimeUnit.SECONDS);
+
+        // THEN
+        assertThat(result.isFallbackScored()).isTrue();
+        assertThat(result.getRiskLevel()).isEqualTo("LOW");
+        assertThat(riskCircuitBreaker.getMetrics().getNumberOfFailedCalls()).isEqualTo(1);
+        // Fallback scores are never cached
+        verify(valueOperations, never()).set(anyString(), any(RiskCacheEntry.class), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should score in-process without calling ml-risk-ms while the circuit is open")
+    void shouldFallBackWhileCircuitIsOpen() {
+        // GIVEN
+        riskCircuitBreaker.transitionToOpenState();
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(quoteRepository.save(any(Quote.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN
+        Quote result = quotationService.orchestrateQuotation(DNI, AGE, CAR_VALUE);
+
+        // THEN
+        assertThat(result.isFallbackScored()).isTrue();
+        verify(riskStub, never()).evaluateRisk(any(RiskRequest.class));
+        verify(valueOperations, never()).set(anyString(), any(RiskCacheEntry.class), any(Duration.class));
+        assertThat(meterRegistry.get("risk.fallback.scores").tag("source", "rules").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Should open the circuit after repeated failures and stop calling ml-risk-ms")
+    void shouldOpenCircuitAfterRepeatedFailures() {
+        // GIVEN
+        when(valueOperations.get(anyString())).thenReturn(null);
+        when(riskStub.evaluateRisk(any(RiskRequest.class))).thenThrow(Status.UNAVAILABLE.asRuntimeException());
+        when(quoteRepository.save(any(Quote.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN
+        List<Quote> quotes = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            quotes.add(quotationService.orchestrateQuotation("DNI-" + i, AGE, CAR_VALUE));
+        }
+
+        // THEN
+        assertThat(quotes).allMatch(Quote::isFallbackScored);
+        assertThat(riskCircuitBreaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        // minimum-number-of-calls failures open the circuit; the rest never reach the stub
+        verify(riskStub, times(20)).evaluateRisk(any(RiskRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should score a batch with one gRPC round trip")
+    void shouldScoreBatchWithSingleRoundTrip() {
+        // GIVEN
+        List<RiskRequest> requests = List.of(
+                RiskRequest.newBuilder().setDni(DNI).setAge(AGE).setCarValue(CAR_VALUE).build(),
+                RiskRequest.newBuilder().setDni("87654321").setAge(20).setCarValue(60000.0).build());
+        RiskBatchResponse batchResponse = RiskBatchResponse.newBuilder()
+                .addResponses(RiskResponse.newBuilder().setProbabilityScore(0.2).setRiskLevel("LOW"))
+                .addResponses(RiskResponse.newBuilder().setProbabilityScore(0.9).setRiskLevel("HIGH"))
+                .build();
+        when(riskStub.evaluateRiskBatch(any(RiskBatchRequest.class))).thenReturn(batchResponse);
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null));
+
+        // WHEN
+        List<RiskResponse> responses = quotationService.evaluateRiskBatch(requests);
+
+        // THEN
+        assertThat(responses).extracting(RiskResponse::getRiskLevel).containsExactly("LOW", "HIGH");
+        verify(riskStub, times(1)).evaluateRiskBatch(any(RiskBatchRequest.class));
+        verify(riskStub, never()).evaluateRisk(any(RiskRequest.class));
+    }
+
+    @Test
+    @DisplayName("Should only send distinct cache misses of a batch to the ML Risk Service")
+    void shouldOnlyScoreBatchCacheMisses() {
+        // GIVEN
+        List<RiskRequest> requests = List.of(
+                RiskRequest.newBuilder().setDni(DNI).setAge(AGE).setCarValue(CAR_VALUE).setRequestId("a").build(),
+                RiskRequest.newBuilder().setDni("87654321").setAge(20).setCarValue(60000.0).setRequestId("b").build(),
+                RiskRequest.newBuilder().setDni("87654321").setAge(20).setCarValue(60100.0).setRequestId("c").build());
+        when(valueOperations.multiGet(anyList()))
+                .thenReturn(Arrays.asList(new RiskCacheEntry(0.2, "LOW", MODEL_VERSION), null));
+        when(riskStub.evaluateRiskBatch(any(RiskBatchRequest.class))).thenReturn(RiskBatchResponse.newBuilder()
+                .addResponses(RiskResponse.newBuilder().setProbabilityScore(0.9).setRiskLevel("HIGH"))
+                .build());
+
+        // WHEN
+        List<RiskResponse> responses = quotationService.evaluateRiskBatch(requests);
+
+        // THEN
+        ArgumentCaptor<RiskBatchRequest> sent = ArgumentCaptor.forClass(RiskBatchRequest.class);
+        verify(riskStub, times(1)).evaluateRiskBatch(sent.capture());
+        assertThat(sent.getValue().getRequestsList()).extracting(RiskRequest::getDni).containsExactly("87654321");
+        assertThat(responses).extracting(RiskResponse::getRiskLevel).containsExactly("LOW", "HIGH", "HIGH");
+        assertThat(responses).extracting(RiskResponse::getRequestId).containsExactly("a", "b", "c");
+        verify(redisTemplate, times(1)).executePipelined(any(SessionCallback.class));
+    }
+
+    @Test
+    @DisplayName("Should quote a fleet with one multi-get, one scoring call and one transactional saveAll")
+    void shouldQuoteFleetInBulk() {
+        // GIVEN
+        List<QuotationRequest> inputs = List.of(
+                new QuotationRequest(DNI, AGE, CAR_VALUE),
+                new QuotationRequest("87654321", 19, 90000.0),
+                new QuotationRequest("11223344", 45, 15000.0));
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null, null));
+        when(riskStub.evaluateRiskBatch(any(RiskBatchRequest.class))).thenReturn(RiskBatchResponse.newBuilder()
+                .addResponses(RiskResponse.newBuilder().setProbabilityScore(0.3).setRiskLevel("MEDIUM"))
+                .addResponses(RiskResponse.newBuilder().setProbabilityScore(0.9).setRiskLevel("HIGH"))
+                .addResponses(RiskResponse.newBuilder().setProbabilityScore(0.1).setRiskLevel("LOW"))
+                .build());
+        AtomicLong ids = new AtomicLong();
+        when(quoteWriter.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Quote> quotes = invocation.getArgument(0);
+            quotes.forEach(quote -> quote.setId(ids.incrementAndGet()));
+            return quotes;
+        });
+
+        // WHEN
+        List<QuotationResult> results = quotationService.orchestrateQuotations(inputs);
+
+        // THEN
+        assertThat(results).extracting(QuotationResult::isApproved).containsExactly(true, false, true);
+        assertThat(results.get(0).quote().getDni()).isEqualTo(DNI);
+        assertThat(results.get(1).rejectionReason()).contains("High risk detected");
+        assertThat(results.get(2).quote().getDni()).isEqualTo("11223344");
+
+        verify(valueOperations, times(1)).multiGet(anyList());
+        verify(riskStub, times(1)).evaluateRiskBatch(any(RiskBatchRequest.class));
+        verify(riskStub, never()).evaluateRisk(any(RiskRequest.class));
+        ArgumentCaptor<List<Quote>> saved = ArgumentCaptor.forClass(List.class);
+        verify(quoteWriter, times(1)).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(Quote::getDni).containsExactly(DNI, "11223344");
+        verify(quoteRepository, never()).save(any(Quote.class));
+    }
+
+    @Test
+    @DisplayName("Should quote a fleet with the embedded fallback while the circuit is open")
+    void shouldQuoteFleetWithFallbackWhileCircuitIsOpen() {
+        // GIVEN
+        riskCircuitBreaker.transitionToOpenState();
+        List<QuotationRequest> inputs = List.of(
+                new QuotationRequest(DNI, AGE, CAR_VALUE),
+                new QuotationRequest("87654321", 19, 90000.0));
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList(null, null));
+        when(quoteWriter.saveAll(anyList())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        // WHEN
+        List<QuotationResult> results = quotationService.orchestrateQuotations(inputs);
+
+        // THEN
+        assertThat(results).extracting(QuotationResult::isApproved).containsExactly(true, false);
+        assertThat(results.get(0).quote().isFallbackScored()).isTrue();
+        verify(riskStub, never()).evaluateRiskBatch(any(RiskBatchRequest.class));
+        verify(valueOperations, never()).set(anyString(), any(RiskCacheEntry.class), any(Duration.class));
+    }
+
+    @Test
+    @DisplayName("Should not touch the database when every vehicle of a fleet is rejected")
+    void shouldRejectWholeHighRiskFleetIndividually() {
+        // GIVEN
+        List<QuotationRequest> inputs = List.of(new QuotationRequest("87654321", 19, 90000.0));
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList((RiskCacheEntry) null));
+        when(riskStub.evaluateRiskBatch(any(RiskBatchRequest.class))).thenReturn(RiskBatchResponse.newBuilder()
+                .addResponses(RiskResponse.newBuilder().setProbabilityScore(0.95).setRiskLevel("HIGH"))
+                .build());
+
+        // WHEN
+        List<QuotationResult> results = quotationService.orchestrateQuotations(inputs);
+
+        // THEN
+        assertThat(results).singleElement().extracting(QuotationResult::isApproved).isEqualTo(false);
+        verify(quoteWriter, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("Should reject a batch response that is not positionally matched")
+    void shouldRejectMismatchedBatchResponse() {
+        // GIVEN
+        List<RiskRequest> requests = List.of(
+                RiskRequest.newBuilder().setDni(DNI).setAge(AGE).setCarValue(CAR_VALUE).build());
+        when(riskStub.evaluateRiskBatch(any(RiskBatchRequest.class))).thenReturn(RiskBatchResponse.getDefaultInstance());
+        when(valueOperations.multiGet(anyList())).thenReturn(Arrays.asList((RiskCacheEntry) null));
+
+        // WHEN & THEN
+        assertThatThrownBy(() -> quotationService.evaluateRiskBatch(requests))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("size mismatch");
+    }
 }
@@ -0,0 +1,132 @@
+package com.pacifico.quotation.service;
+
+import com.pacifico.quotation.config.QuoteCacheProperties;
+import com.pacifico.quotation.dto.QuoteConnection;
+import com.pacifico.quotation.dto.QuoteConnection.QuoteEdge;
+import com.pacifico.quotation.model.Quote;
+import com.pacifico.quotation.repository.QuoteRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.show-sql=false"
+})
+@ActiveProfiles("test")
+class QuoteQueryServiceTest {
+
+    private static final String DNI = "12345678";
+
+    @Autowired
+    private QuoteRepository quoteRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    private QuoteQueryService quoteQueryService;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        quoteQueryService = new QuoteQueryService(quoteRepository,
+                new QuoteCacheProperties(100, Duration.ofHours(1)), new SimpleMeterRegistry());
+        statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("Should page through a customer's quotes newest first, including quotes created at the same instant")
+    void shouldPageThroughQuotesWithKeyset() {
+        // GIVEN
+        LocalDateTime now = LocalDateTime.of(2024, 5, 1, 12, 0);
+        List<Quote> saved = quoteRepository.saveAll(List.of(
+                quote(DNI, now.minusDays(2)),
+                quote(DNI, now.minusDays(1)),
+                quote(DNI, now),
+                quote(DNI, now),
+                quote(DNI, now),
+                quote("87654321", now)));
+        entityManager.flush();
+        entityManager.clear();
+
+        // WHEN
+        List<Long> seen = new ArrayList<>();
+        List<Boolean> hasNext = new ArrayList<>();
+        String after = null;
+        do {
+            QuoteConnection page = quoteQueryService.findByDni(DNI, 2, after);
+            page.edges().stream().map(QuoteEdge::node).map(Quote::getId).forEach(seen::add);
+            hasNext.add(page.pageInfo().hasNextPage());
+            after = page.pageInfo().hasNextPage() ? page.pageInfo().endCursor() : null;
+        } while (after != null);
+
+        // THEN
+        assertThat(seen).containsExactly(saved.get(4).getId(), saved.get(3).getId(), saved.get(2).getId(),
+                saved.get(1).getId(), saved.get(0).getId());
+        assertThat(hasNext).containsExactly(true, true, false);
+    }
+
+    @Test
+    @DisplayName("Should load uncached quotes with one query and serve approved quotes from memory afterwards")
+    void shouldReadThroughApprovedQuotes() {
+        // GIVEN
+        List<Quote> saved = quoteRepository.saveAll(List.of(quote(DNI, LocalDateTime.now()), quote(DNI, LocalDateTime.now())));
+        Quote pending = quote("87654321", LocalDateTime.now());
+        pending.setStatus("PENDING");
+        quoteRepository.save(pending);
+        entityManager.flush();
+        entityManager.clear();
+        List<Long> ids = List.of(saved.get(0).getId(), saved.get(1).getId(), pending.getId(), -1L);
+
+        // WHEN
+        statistics.clear();
+        Map<Long, Quote> first = quoteQueryService.findByIds(ids);
+        long firstStatements = statistics.getPrepareStatementCount();
+        statistics.clear();
+        Map<Long, Quote> second = quoteQueryService.findByIds(List.of(saved.get(0).getId(), saved.get(1).getId()));
+        long secondStatements = statistics.getPrepareStatementCount();
+
+        // THEN
+        assertThat(first).containsOnlyKeys(saved.get(0).getId(), saved.get(1).getId(), pending.getId());
+        assertThat(firstStatements).isEqualTo(1);
+        assertThat(second).containsOnlyKeys(saved.get(0).getId(), saved.get(1).getId());
+        assertThat(secondStatements).isZero();
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed cursor")
+    void shouldRejectMalformedCursor() {
+        assertThatThrownBy(() -> quoteQueryService.findByDni(DNI, 10, "not-a-cursor"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Invalid cursor");
+    }
+
+    private static Quote quote(String dni, LocalDateTime createdAt) {
+        return Quote.builder()
+                .dni(dni)
+                .age(30)
+                .carValue(BigDecimal.valueOf(25000.0))
+                .probabilityScore(0.3)
+                .riskLevel("MEDIUM")
+                .status("APPROVED")
+                .createdAt(createdAt)
+                .build();
+    }
+}